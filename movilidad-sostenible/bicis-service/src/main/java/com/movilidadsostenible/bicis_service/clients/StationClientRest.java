@@ -6,6 +6,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
+import java.util.List;
+
 @FeignClient(name = "estaciones-service")
 public interface StationClientRest {
 
@@ -14,4 +16,7 @@ public interface StationClientRest {
 
   @GetMapping("/{id}")
   ResponseEntity<StationDTO> getById(@PathVariable Integer id);
+
+  @GetMapping("/")
+  List<StationDTO> getAll();
 }
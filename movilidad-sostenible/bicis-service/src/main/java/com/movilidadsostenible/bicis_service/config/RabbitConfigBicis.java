@@ -21,6 +21,9 @@ public class RabbitConfigBicis {
     @Value("${rabbitmq.routing.maintenance.key}")
     public String routingJsonKeyMaintenancePublisher;
 
+    @Value("${rabbitmq.exchange.station.events}")
+    public String stationEventsExchangeName;
+
 
     // spring bean for rabbitmq json queue
     @Bean
@@ -43,6 +46,25 @@ public class RabbitConfigBicis {
         .with(routingJsonKeyMaintenancePublisher);
     }
 
+    // eventos de cambio de estación: cola anónima por réplica, todas reciben cada evento
+    @Bean
+    public TopicExchange stationEventsExchange() {
+        return new TopicExchange(stationEventsExchangeName);
+    }
+
+    @Bean
+    public Queue stationEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding stationEventsBinding() {
+        return BindingBuilder
+          .bind(stationEventsQueue())
+          .to(stationEventsExchange())
+          .with("station.*");
+    }
+
     @Bean
     public MessageConverter messageConverter() {
         return new Jackson2JsonMessageConverter();
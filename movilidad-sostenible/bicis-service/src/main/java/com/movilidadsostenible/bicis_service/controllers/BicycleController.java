@@ -1,10 +1,20 @@
 package com.movilidadsostenible.bicis_service.controllers;
 
-import com.movilidadsostenible.bicis_service.clients.StationClientRest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movilidadsostenible.bicis_service.model.dto.BatteryForecastDTO;
+import com.movilidadsostenible.bicis_service.model.dto.BicyclePadlockBulkResultDTO;
+import com.movilidadsostenible.bicis_service.model.dto.BicyclePadlockUpdateDTO;
 import com.movilidadsostenible.bicis_service.model.dto.BicycleTelemetryEndTravelDTO;
+import com.movilidadsostenible.bicis_service.model.dto.BicycleTrackPointDTO;
+import com.movilidadsostenible.bicis_service.model.dto.NearbyBicycleDTO;
 import com.movilidadsostenible.bicis_service.model.dto.StationDTO;
 import com.movilidadsostenible.bicis_service.model.entity.Bicycle;
+import com.movilidadsostenible.bicis_service.repositories.BicycleTelemetryHistoryRepository;
 import com.movilidadsostenible.bicis_service.services.BicycleService;
+import com.movilidadsostenible.bicis_service.services.fleet.GeoDistance;
+import com.movilidadsostenible.bicis_service.services.station.StationGeometryCache;
+import com.movilidadsostenible.bicis_service.services.websocket.TelemetryCells;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -15,12 +25,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.security.SecureRandom;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,9 +51,20 @@ public class BicycleController {
     private BicycleService service;
 
     @Autowired
-    private StationClientRest stationClient;
+    private StationGeometryCache stationGeometryCache;
+
+    @Autowired
+    private BicycleTelemetryHistoryRepository historyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${battery.at-risk.threshold:20}")
+    private double defaultBatteryThreshold;
 
     private static final SecureRandom RANDOM = new SecureRandom();
+    private static final double MAX_NEARBY_RADIUS_METERS = 5000.0;
+    private static final int MAX_NEARBY_RESULTS = 500;
 
     @GetMapping(produces = "application/json")
     @Operation(summary = "Listar bicicletas",
@@ -48,6 +76,80 @@ public class BicycleController {
         return ResponseEntity.ok(bicicletas);
     }
 
+    @GetMapping(value = "/nearby", produces = "application/json")
+    @Operation(summary = "Bicicletas cercanas",
+            description = "Lista las bicicletas dentro del radio indicado, ordenadas por distancia. Permite filtrar por modelo y batería mínima.")
+    @ApiResponse(responseCode = "200", description = "Bicicletas cercanas",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = NearbyBicycleDTO.class))))
+    @ApiResponse(responseCode = "400", description = "Parámetros inválidos")
+    public ResponseEntity<?> nearby(
+            @Parameter(description = "Latitud del punto de búsqueda", required = true, example = "4.6533")
+            @RequestParam double lat,
+            @Parameter(description = "Longitud del punto de búsqueda", required = true, example = "-74.0836")
+            @RequestParam double lon,
+            @Parameter(description = "Radio de búsqueda en metros (máximo 5000)", example = "500")
+            @RequestParam(defaultValue = "500") double radiusMeters,
+            @Parameter(description = "Modelo: ELECTRIC o MECHANIC", example = "ELECTRIC")
+            @RequestParam(required = false) String model,
+            @Parameter(description = "Batería mínima (%)", example = "20")
+            @RequestParam(required = false) Double minBattery,
+            @Parameter(description = "Máximo de resultados", example = "50")
+            @RequestParam(defaultValue = "50") int limit) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "Coordenadas inválidas"));
+        }
+        if (radiusMeters <= 0 || radiusMeters > MAX_NEARBY_RADIUS_METERS) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "radiusMeters debe estar entre 0 y " + (int) MAX_NEARBY_RADIUS_METERS));
+        }
+        if (model != null && !"ELECTRIC".equals(model) && !"MECHANIC".equals(model)) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "model debe ser ELECTRIC o MECHANIC"));
+        }
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "limit debe ser mayor que 0"));
+        }
+        return ResponseEntity.ok(service.nearby(lat, lon, radiusMeters, model, minBattery, Math.min(limit, MAX_NEARBY_RESULTS)));
+    }
+
+    @GetMapping(value = "/battery/at-risk", produces = "application/json")
+    @Operation(summary = "Bicicletas eléctricas en riesgo de batería baja",
+            description = "Lista las bicicletas eléctricas que, según su consumo estimado, quedarán por debajo del umbral dentro del horizonte indicado. Ordenadas por minutos hasta el umbral.")
+    @ApiResponse(responseCode = "200", description = "Bicicletas en riesgo",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = BatteryForecastDTO.class))))
+    @ApiResponse(responseCode = "400", description = "Parámetros inválidos")
+    @ApiResponse(responseCode = "503", description = "Estado de la flota aún cargando")
+    public ResponseEntity<?> batteryAtRisk(
+            @Parameter(description = "Horizonte de predicción en minutos", example = "60")
+            @RequestParam(defaultValue = "60") double horizonMinutes,
+            @Parameter(description = "Umbral de batería (%). Por defecto battery.at-risk.threshold", example = "20")
+            @RequestParam(required = false) Double threshold) {
+        if (horizonMinutes < 0 || horizonMinutes > 24 * 60) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "horizonMinutes debe estar entre 0 y 1440"));
+        }
+        double limit = threshold != null ? threshold : defaultBatteryThreshold;
+        return service.batteryAtRisk(horizonMinutes, limit)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(Map.of("mensaje", "El estado de la flota aún se está cargando")));
+    }
+
+    @GetMapping(value = "/telemetry/cells", produces = "application/json")
+    @Operation(summary = "Celdas de telemetría de un viewport",
+            description = "Devuelve los destinos STOMP (/topic/bicycle.cell/{celda}) que cubren el rectángulo visible. El cliente se suscribe a ellos para recibir solo las bicis que ve.")
+    @ApiResponse(responseCode = "200", description = "Destinos del viewport")
+    @ApiResponse(responseCode = "400", description = "Viewport demasiado grande")
+    public ResponseEntity<?> telemetryCells(
+            @RequestParam double minLat,
+            @RequestParam double minLon,
+            @RequestParam double maxLat,
+            @RequestParam double maxLon) {
+        List<String> cells = TelemetryCells.covering(minLat, minLon, maxLat, maxLon);
+        if (cells.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje",
+                    "El viewport cubre más de " + TelemetryCells.MAX_CELLS + " celdas; usa /topic/bicycle.location"));
+        }
+        return ResponseEntity.ok(cells.stream().map(c -> TelemetryCells.CELL_TOPIC_PREFIX + c).toList());
+    }
+
     @GetMapping(value = "/{id}", produces = "application/json")
     @Operation(summary = "Obtener bicicleta por id",
             description = "Retorna la bicicleta con el identificador proporcionado")
@@ -66,6 +168,43 @@ public class BicycleController {
 
     }
 
+    @GetMapping(value = "/{id}/track", produces = "application/json")
+    @Operation(summary = "Recorrido de una bicicleta",
+            description = "Devuelve, en orden cronológico, las posiciones reportadas por la bicicleta entre from (incluido) y to (excluido). La respuesta se transmite por streaming.")
+    @ApiResponse(responseCode = "200", description = "Posiciones del rango",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = BicycleTrackPointDTO.class))))
+    @ApiResponse(responseCode = "400", description = "Rango inválido")
+    @ApiResponse(responseCode = "404", description = "No encontrada")
+    public ResponseEntity<?> getTrack(
+            @Parameter(description = "Identificador de la bicicleta", required = true, example = "ELEC-123456")
+            @PathVariable String id,
+            @Parameter(description = "Inicio del rango (ISO-8601)", required = true, example = "2025-12-01T08:00:00")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Fin del rango (ISO-8601). Por defecto, ahora", example = "2025-12-01T09:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        if (!from.isBefore(end)) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "from debe ser anterior a to"));
+        }
+        if (service.byId(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                historyRepository.streamTrack(id, from, end, point -> {
+                    try {
+                        generator.writeObject(point);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     @PutMapping(value = "/{id}", consumes = "application/json", produces = "application/json")
     @Operation(summary = "Actualizar bicicleta",
             description = "Actualiza campos de la bicicleta indicada por id")
@@ -188,6 +327,28 @@ public class BicycleController {
         return ResponseEntity.ok(bici);
     }
 
+    // Actualización masiva de candados (la usa el relay de slots-service)
+    @PutMapping(value = "/padlock-status", consumes = "application/json", produces = "application/json")
+    @Operation(summary = "Actualizar el candado de varias bicicletas",
+            description = "Aplica en un solo lote los estados de candado recibidos. Es idempotente: reenviar el mismo lote deja el mismo estado. "
+                    + "Devuelve cuántas se actualizaron, las que no existen y las que traen un estado no válido.")
+    @ApiResponse(responseCode = "200", description = "Lote procesado",
+            content = @Content(schema = @Schema(implementation = BicyclePadlockBulkResultDTO.class)))
+    @ApiResponse(responseCode = "400", description = "Lista vacía")
+    public ResponseEntity<?> updatePadlockStatuses(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    required = true,
+                    description = "Bicicletas y su nuevo estado de candado",
+                    content = @Content(mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = BicyclePadlockUpdateDTO.class)),
+                            examples = @ExampleObject(value = "[\n  {\"idBicycle\": \"ELEC-123456\", \"padlockStatus\": \"RESERVED\"}\n]")))
+            @RequestBody List<BicyclePadlockUpdateDTO> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "La lista de bicicletas no puede estar vacía"));
+        }
+        return ResponseEntity.ok(service.updatePadlockStatuses(updates));
+    }
+
     // Nuevo: cerrar candado si la bici está a <=30m de una estación (usando telemetría)
     @PutMapping(value = "/padlock-close-if-near", consumes = "application/json", produces = "application/json")
     @Operation(summary = "Cerrar candado si está cerca de la estación (telemetría)",
@@ -221,24 +382,18 @@ public class BicycleController {
         }
         Bicycle bici = o.get();
 
-        if (stationClient == null) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("mensaje", "StationClient no configurado"));
-        }
-
-        ResponseEntity<StationDTO> stationResponse;
-        try {
-          stationResponse = stationClient.getById(telemetry.getStationId());
-        } catch (Exception e) {
+        // Coordenadas desde la caché local; solo va a estaciones-service si la estación no está cargada
+        Optional<StationDTO> stationOpt = stationGeometryCache.find(telemetry.getStationId());
+        if (stationOpt.isEmpty()) {
           return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("mensaje", "Estación no encontrada"));
         }
-
-        StationDTO station = stationResponse.getBody();
+        StationDTO station = stationOpt.get();
 
         if (station == null || station.getLatitude() == null || station.getLength() == null) {
           return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("mensaje", "La estación no tiene coordenadas válidas"));
         }
 
-        double distanceMeters = haversineMeters(telemetry.getLatitude(), telemetry.getLongitude(), station.getLatitude(), station.getLength());
+        double distanceMeters = GeoDistance.haversineMeters(telemetry.getLatitude(), telemetry.getLongitude(), station.getLatitude(), station.getLength());
         if (distanceMeters > 30.0) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of(
                     "mensaje", "La bicicleta no está en la estacion cerca de la estación",
@@ -260,18 +415,6 @@ public class BicycleController {
         return String.format("%s-%06d", prefix, number);
     }
 
-    // Utilidad: distancia Haversine en metros
-    private double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
-        final double R = 6371000.0;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
-
     private ResponseEntity<Map<String, String>> validate(BindingResult result) {
         Map<String,String> errors = new HashMap<>();
         result.getFieldErrors().forEach(err -> {
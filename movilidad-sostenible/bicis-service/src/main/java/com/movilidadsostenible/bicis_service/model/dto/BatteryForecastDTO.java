@@ -0,0 +1,20 @@
+package com.movilidadsostenible.bicis_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatteryForecastDTO {
+    private String idBicycle;
+    private Double battery;
+    // Porcentaje de batería por hora; null si aún no hay suficientes muestras
+    private Double drainPerHour;
+    private Double predictedBattery;
+    // Minutos estimados hasta bajar del umbral; 0 si ya está por debajo, null si no hay estimación
+    private Double minutesToThreshold;
+    private Double latitude;
+    private Double longitude;
+}
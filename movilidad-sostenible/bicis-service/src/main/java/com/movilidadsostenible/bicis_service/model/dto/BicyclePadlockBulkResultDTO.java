@@ -0,0 +1,16 @@
+package com.movilidadsostenible.bicis_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BicyclePadlockBulkResultDTO {
+    private int updated;
+    private List<String> notFound;
+    private List<String> invalid;
+}
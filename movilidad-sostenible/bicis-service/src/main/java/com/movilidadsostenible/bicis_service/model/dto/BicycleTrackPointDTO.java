@@ -0,0 +1,16 @@
+package com.movilidadsostenible.bicis_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BicycleTrackPointDTO {
+    private Long timestamp;
+    private Double latitude;
+    private Double longitude;
+    private Double battery;
+    private String padlockStatus;
+}
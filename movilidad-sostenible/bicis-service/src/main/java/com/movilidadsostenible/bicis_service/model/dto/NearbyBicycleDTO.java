@@ -0,0 +1,18 @@
+package com.movilidadsostenible.bicis_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyBicycleDTO {
+    private String idBicycle;
+    private String model;
+    private Double latitude;
+    private Double longitude;
+    private Double battery;
+    private String padlockStatus;
+    private Double distanceMeters;
+}
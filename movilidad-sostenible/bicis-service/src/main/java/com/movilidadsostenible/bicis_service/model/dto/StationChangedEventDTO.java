@@ -0,0 +1,19 @@
+package com.movilidadsostenible.bicis_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento que publica estaciones-service al crear, actualizar o eliminar una estación.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StationChangedEventDTO {
+    private Integer idStation;
+    private String action;
+    private Double latitude;
+    private Double length;
+    private Long timestamp;
+}
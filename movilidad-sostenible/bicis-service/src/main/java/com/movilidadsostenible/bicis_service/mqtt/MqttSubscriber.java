@@ -1,11 +1,16 @@
 package com.movilidadsostenible.bicis_service.mqtt;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.movilidadsostenible.bicis_service.model.dto.BicycleTelemetryDTO;
-import com.movilidadsostenible.bicis_service.model.entity.Bicycle;
-import com.movilidadsostenible.bicis_service.rabbit.publisher.BicisPublisher;
 import com.movilidadsostenible.bicis_service.repositories.BicycleRepository;
+import com.movilidadsostenible.bicis_service.services.fleet.FleetStateStore;
+import com.movilidadsostenible.bicis_service.services.maintenance.MaintenanceAlertService;
+import com.movilidadsostenible.bicis_service.services.telemetry.BicycleTelemetryHistoryWriter;
+import com.movilidadsostenible.bicis_service.services.telemetry.BicycleTelemetryWriteBehind;
 import com.movilidadsostenible.bicis_service.services.websocket.TelemetryWebSocketPublisher;
+import com.movilidadsostenible.mqtt.DevicePartitions;
+import com.movilidadsostenible.mqtt.MqttTopics;
 import org.eclipse.paho.client.mqttv3.*;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.slf4j.Logger;
@@ -17,12 +22,16 @@ import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.nio.charset.StandardCharsets;
-import java.sql.Timestamp;
-import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Telemetría de bicicletas. Cada réplica recibe todos los mensajes (sin {@code $share}): la flota
+ * en memoria, las alertas por flanco y el WebSocket de cada réplica ven el flujo completo y en
+ * orden por bici. Lo que debe ocurrir una vez (escrituras en BD y publicación de alertas) solo lo
+ * hace la réplica dueña de la bici según {@link DevicePartitions}.
+ */
 @Component
 public class MqttSubscriber implements MqttCallbackExtended {
 
@@ -48,9 +57,26 @@ public class MqttSubscriber implements MqttCallbackExtended {
     private TelemetryWebSocketPublisher webSocketPublisher;
 
     @Autowired
-    private BicisPublisher bicisPublisher;
+    private MaintenanceAlertService maintenanceAlerts;
+
+    @Autowired
+    private TelemetryDispatcher dispatcher;
+
+    @Autowired
+    private BicycleTelemetryWriteBehind writeBehind;
+
+    @Autowired
+    private FleetStateStore fleetStore;
+
+    @Autowired
+    private BicycleTelemetryHistoryWriter historyWriter;
+
+    @Autowired
+    private DevicePartitions partitions;
+
+    // Lector ligado al tipo: parsea directo del byte[] sin resolver el tipo en cada mensaje
+    static final ObjectReader TELEMETRY_READER = new ObjectMapper().readerFor(BicycleTelemetryDTO.class);
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
     private MqttClient client;
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
@@ -65,6 +91,8 @@ public class MqttSubscriber implements MqttCallbackExtended {
                 if (client == null) {
                     client = new MqttClient(brokerUrl, clientId, new MemoryPersistence());
                     client.setCallback(this);
+                    // El ACK de QoS 1 se envía cuando el worker termina, no al volver de messageArrived
+                    client.setManualAcks(true);
                 }
                 MqttConnectOptions opts = new MqttConnectOptions();
                 opts.setAutomaticReconnect(true);
@@ -98,6 +126,9 @@ public class MqttSubscriber implements MqttCallbackExtended {
     public void stop() {
         try {
             if (client != null && client.isConnected()) {
+                // Deja de recibir y da tiempo a los workers para terminar y confirmar lo pendiente
+                client.unsubscribe(inputTopic);
+                dispatcher.stop();
                 client.disconnect();
             }
         } catch (Exception e) {
@@ -125,10 +156,24 @@ public class MqttSubscriber implements MqttCallbackExtended {
 
     @Override
     public void messageArrived(String topic, MqttMessage message) {
+        String idFromTopic = extractBikeId(topic);
         try {
-            String payloadStr = new String(message.getPayload(), StandardCharsets.UTF_8);
-            String idFromTopic = extractBikeId(topic);
-            BicycleTelemetryDTO telemetry = objectMapper.readValue(payloadStr, BicycleTelemetryDTO.class);
+            // Particiona por bicicleta (el tópico la identifica) para conservar el orden por bici
+            dispatcher.dispatch(idFromTopic != null ? idFromTopic : topic,
+                    () -> processTelemetry(topic, idFromTopic, message.getPayload()),
+                    () -> acknowledge(message));
+        } catch (InterruptedException e) {
+            // Sin ACK: el broker re-entregará el mensaje al reconectar
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error encolando mensaje MQTT", e);
+            acknowledge(message);
+        }
+    }
+
+    private void processTelemetry(String topic, String idFromTopic, byte[] payload) {
+        try {
+            BicycleTelemetryDTO telemetry = TELEMETRY_READER.readValue(payload);
             if (telemetry.getIdBicycle() == null) {
                 telemetry.setIdBicycle(idFromTopic);
             }
@@ -136,46 +181,59 @@ public class MqttSubscriber implements MqttCallbackExtended {
                 telemetry.setTimestamp(System.currentTimeMillis());
             }
             if (telemetry.getIdBicycle() == null) {
-                log.warn("Mensaje MQTT sin id de bicicleta. topic={}, payload={}", topic, payloadStr);
+                log.warn("Mensaje MQTT sin id de bicicleta. topic={}, payload={}", topic, new String(payload, StandardCharsets.UTF_8));
                 return;
             }
-            Optional<Bicycle> opt = repository.findById(telemetry.getIdBicycle());
-            if (opt.isEmpty()) {
+            String padlockStatus = null;
+            if ("ERROR".equals(telemetry.getPadlockStatus())
+                    || "LOCKED".equals(telemetry.getPadlockStatus())
+                    || "UNLOCKED".equals(telemetry.getPadlockStatus())) {
+                padlockStatus = telemetry.getPadlockStatus();
+            }
+            // Con la flota cargada en memoria, las bicis desconocidas se descartan sin consultar Postgres
+            boolean known = fleetStore.isLoaded()
+                    ? fleetStore.applyTelemetry(telemetry.getIdBicycle(), telemetry.getLatitude(), telemetry.getLongitude(),
+                            telemetry.getBattery(), padlockStatus, telemetry.getTimestamp())
+                    : repository.existsById(telemetry.getIdBicycle());
+            if (!known) {
                 log.warn("Bicicleta {} no existe en BD. Ignorando telemetría.", telemetry.getIdBicycle());
                 return;
             }
-            Bicycle bike = opt.get();
-            if (telemetry.getLatitude() != null) bike.setLatitude(telemetry.getLatitude());
-            if (telemetry.getLongitude() != null) bike.setLength(telemetry.getLongitude());
-            if (telemetry.getBattery() != null) bike.setBattery(telemetry.getBattery());
-            if ("ERROR".equals(telemetry.getPadlockStatus())) {
-                bike.setPadlockStatus("ERROR");
-                bicisPublisher.sendJsonMaintenanceMessage(telemetry);
-            } else if ("LOCKED".equals(telemetry.getPadlockStatus())) {
-                bike.setPadlockStatus("LOCKED");
-            } else if ("UNLOCKED".equals(telemetry.getPadlockStatus())) {
-                bike.setPadlockStatus("UNLOCKED");
+            boolean owner = partitions.owns(telemetry.getIdBicycle());
+            maintenanceAlerts.onPadlockStatus(telemetry, padlockStatus, owner);
+            if (owner) {
+                // La escritura en BD se agrupa y se hace en batch desde el write-behind
+                writeBehind.enqueue(telemetry, padlockStatus);
+                historyWriter.append(telemetry);
             }
-            bike.setLastUpdate(new Timestamp(telemetry.getTimestamp()));
-            repository.save(bike);
             webSocketPublisher.sendTelemetry(telemetry);
-            log.info("Actualizada bici {} lat={}, lon={}, bat={}", bike.getIdBicycle(), bike.getLatitude(), bike.getLength(), bike.getBattery());
+            if (log.isDebugEnabled()) {
+                log.debug("Actualizada bici {} lat={}, lon={}, bat={}", telemetry.getIdBicycle(), telemetry.getLatitude(), telemetry.getLongitude(), telemetry.getBattery());
+            }
         } catch (Exception e) {
             log.error("Error procesando mensaje MQTT", e);
         }
     }
 
+    private void acknowledge(MqttMessage message) {
+        try {
+            if (client != null && client.isConnected()) {
+                client.messageArrivedComplete(message.getId(), message.getQos());
+            }
+        } catch (MqttException e) {
+            log.warn("No fue posible confirmar el mensaje MQTT {}: {}", message.getId(), e.getMessage());
+        }
+    }
+
     @Override
     public void deliveryComplete(IMqttDeliveryToken token) {
         // no publicamos desde este componente
     }
 
-    private String extractBikeId(String topic) {
+    static String extractBikeId(String topic) {
         // Espera: bikes/{id}/telemetry
-        if (topic == null) return null;
-        String[] parts = topic.split("/");
-        if (parts.length >= 3 && "bikes".equals(parts[0]) && "telemetry".equals(parts[2])) {
-            try { return parts[1];} catch (NumberFormatException ignored) {}
+        if (MqttTopics.segmentEquals(topic, 0, "bikes") && MqttTopics.segmentEquals(topic, 2, "telemetry")) {
+            return MqttTopics.segment(topic, 1);
         }
         return null;
     }
@@ -0,0 +1,86 @@
+package com.movilidadsostenible.bicis_service.mqtt;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reparte el procesamiento de telemetría en carriles de un solo hilo (virtual) particionados por clave.
+ * Todos los mensajes de una misma bicicleta caen en el mismo carril, así que se procesan en orden,
+ * mientras que bicicletas distintas avanzan en paralelo. Un semáforo limita los mensajes en vuelo:
+ * cuando se agota, {@link #dispatch} bloquea el hilo de callback de Paho y el broker deja de entregar.
+ */
+@Component
+public class TelemetryDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryDispatcher.class);
+
+    @Value("${mqtt.worker-lanes:16}")
+    private int lanes;
+    @Value("${mqtt.max-in-flight:1000}")
+    private int maxInFlight;
+
+    private ExecutorService[] executors;
+    private Semaphore inFlight;
+
+    @PostConstruct
+    public void start() {
+        executors = new ExecutorService[lanes];
+        for (int i = 0; i < lanes; i++) {
+            executors[i] = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("telemetry-lane-" + i).factory());
+        }
+        inFlight = new Semaphore(maxInFlight);
+        log.info("Dispatcher de telemetría iniciado con {} carriles y máximo {} mensajes en vuelo", lanes, maxInFlight);
+    }
+
+    /**
+     * Encola la tarea en el carril de la clave. Bloquea mientras haya {@code maxInFlight} mensajes pendientes.
+     * {@code onComplete} se ejecuta siempre al terminar la tarea (por ejemplo, para confirmar el mensaje MQTT).
+     */
+    public void dispatch(String key, Runnable task, Runnable onComplete) throws InterruptedException {
+        inFlight.acquire();
+        ExecutorService lane = executors[Math.floorMod(key != null ? key.hashCode() : 0, lanes)];
+        try {
+            lane.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.release();
+                    onComplete.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    public int inFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        try {
+            for (ExecutorService executor : executors) {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    executor.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class BicisPublisher {
 
@@ -16,6 +18,9 @@ public class BicisPublisher {
     @Value("${rabbitmq.routing.maintenance.key}")
     private String jsonMaintenanceRoutingKey;
 
+    @Value("${rabbitmq.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(BicisPublisher.class);
 
     private RabbitTemplate rabbitTemplate;
@@ -24,8 +29,18 @@ public class BicisPublisher {
         this.rabbitTemplate = rabbitTemplate;
     }
 
-    public void sendJsonMaintenanceMessage(BicycleTelemetryDTO bicycleTelemetryDTO) {
-      LOGGER.info(String.format("JSON Message sent -> %s", bicycleTelemetryDTO.toString()));
-      rabbitTemplate.convertAndSend(jsonExchange, jsonMaintenanceRoutingKey, bicycleTelemetryDTO);
+    /**
+     * Publica el lote en un mismo canal y espera la confirmación del broker (publisher confirms).
+     * Lanza excepción si algún mensaje es rechazado o no se confirma a tiempo.
+     */
+    public void sendMaintenanceBatch(List<BicycleTelemetryDTO> batch) {
+      rabbitTemplate.invoke(ops -> {
+        for (BicycleTelemetryDTO dto : batch) {
+          ops.convertAndSend(jsonExchange, jsonMaintenanceRoutingKey, dto);
+        }
+        ops.waitForConfirmsOrDie(confirmTimeoutMs);
+        return null;
+      });
+      LOGGER.info("JSON Messages sent -> {} alertas de mantenimiento", batch.size());
     }
 }
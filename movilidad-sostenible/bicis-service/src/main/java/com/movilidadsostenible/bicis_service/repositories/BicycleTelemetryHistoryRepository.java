@@ -0,0 +1,90 @@
+package com.movilidadsostenible.bicis_service.repositories;
+
+import com.movilidadsostenible.bicis_service.model.dto.BicycleTelemetryDTO;
+import com.movilidadsostenible.bicis_service.model.dto.BicycleTrackPointDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Acceso JDBC a {@code bicycle_telemetry}, el historial de posiciones particionado por día.
+ */
+@Repository
+public class BicycleTelemetryHistoryRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO bicycle_telemetry (k_id_bicycle, f_recorded_at, n_latitude, n_length, v_battery, t_padlock_status)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String TRACK_SQL = """
+            SELECT f_recorded_at, n_latitude, n_length, v_battery, t_padlock_status
+              FROM bicycle_telemetry
+             WHERE k_id_bicycle = ?
+               AND f_recorded_at >= ?
+               AND f_recorded_at < ?
+             ORDER BY f_recorded_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BicycleTelemetryHistoryRepository(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(1_000);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void insertBatch(List<BicycleTelemetryDTO> samples) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, samples, samples.size(), (ps, t) -> {
+            ps.setString(1, t.getIdBicycle());
+            ps.setTimestamp(2, new Timestamp(t.getTimestamp()));
+            ps.setObject(3, t.getLatitude(), Types.DOUBLE);
+            ps.setObject(4, t.getLongitude(), Types.DOUBLE);
+            ps.setObject(5, t.getBattery(), Types.DOUBLE);
+            ps.setObject(6, t.getPadlockStatus(), Types.VARCHAR);
+        });
+    }
+
+    public void ensurePartitions(int daysAhead) {
+        jdbcTemplate.queryForList("SELECT ensure_bicycle_telemetry_partitions(?)", daysAhead);
+    }
+
+    /**
+     * Recorre las posiciones de la bici en [from, to) en orden cronológico, leyendo con cursor para
+     * que el rango completo nunca esté en memoria.
+     */
+    public void streamTrack(String idBicycle, LocalDateTime from, LocalDateTime to, Consumer<BicycleTrackPointDTO> consumer) {
+        readOnlyTransaction.executeWithoutResult(status -> streamingJdbcTemplate.query(TRACK_SQL,
+                (RowCallbackHandler) rs -> consumer.accept(toPoint(rs)),
+                idBicycle, Timestamp.valueOf(from), Timestamp.valueOf(to)));
+    }
+
+    private static BicycleTrackPointDTO toPoint(ResultSet rs) throws SQLException {
+        return new BicycleTrackPointDTO(
+                rs.getTimestamp("f_recorded_at").getTime(),
+                nullableDouble(rs, "n_latitude"),
+                nullableDouble(rs, "n_length"),
+                nullableDouble(rs, "v_battery"),
+                rs.getString("t_padlock_status"));
+    }
+
+    private static Double nullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -1,5 +1,9 @@
 package com.movilidadsostenible.bicis_service.services;
 
+import com.movilidadsostenible.bicis_service.model.dto.BatteryForecastDTO;
+import com.movilidadsostenible.bicis_service.model.dto.BicyclePadlockBulkResultDTO;
+import com.movilidadsostenible.bicis_service.model.dto.BicyclePadlockUpdateDTO;
+import com.movilidadsostenible.bicis_service.model.dto.NearbyBicycleDTO;
 import com.movilidadsostenible.bicis_service.model.entity.Bicycle;
 
 import java.util.List;
@@ -8,6 +12,11 @@ import java.util.Optional;
 public interface BicycleService {
     List<Bicycle> listBicycle();
     Optional<Bicycle> byId(String id);
+    List<NearbyBicycleDTO> nearby(double lat, double lon, double radiusMeters, String model, Double minBattery, int limit);
+    // Vacío mientras la flota no esté cargada en memoria
+    Optional<List<BatteryForecastDTO>> batteryAtRisk(double horizonMinutes, double threshold);
     Bicycle save(Bicycle bicycle);
+    // Un solo UPDATE por lotes; informa las bicis inexistentes y los estados no válidos
+    BicyclePadlockBulkResultDTO updatePadlockStatuses(List<BicyclePadlockUpdateDTO> updates);
     void delete(String id);
 }
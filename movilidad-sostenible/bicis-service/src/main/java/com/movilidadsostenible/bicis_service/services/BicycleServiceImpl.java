@@ -1,41 +1,132 @@
 package com.movilidadsostenible.bicis_service.services;
 
+import com.movilidadsostenible.bicis_service.model.dto.BatteryForecastDTO;
+import com.movilidadsostenible.bicis_service.model.dto.BicyclePadlockBulkResultDTO;
+import com.movilidadsostenible.bicis_service.model.dto.BicyclePadlockUpdateDTO;
+import com.movilidadsostenible.bicis_service.model.dto.NearbyBicycleDTO;
 import com.movilidadsostenible.bicis_service.model.entity.Bicycle;
 import com.movilidadsostenible.bicis_service.repositories.BicycleRepository;
+import com.movilidadsostenible.bicis_service.services.fleet.FleetStateStore;
+import com.movilidadsostenible.bicis_service.services.fleet.GeoDistance;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class BicycleServiceImpl implements BicycleService {
 
+    private static final Set<String> PADLOCK_STATUSES = Set.of("LOCKED", "UNLOCKED", "ERROR", "MAINTENANCE", "RESERVED");
+
+    private static final String UPDATE_PADLOCK_SQL = "UPDATE bicycle SET t_padlock_status = ? WHERE k_id_bicycle = ?";
+
     @Autowired
     private BicycleRepository repository;
 
+    @Autowired
+    private FleetStateStore fleetStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Sin transacción: si la flota está en memoria no se toma conexión de BD
     @Override
-    @Transactional(readOnly = true)
     public List<Bicycle> listBicycle() {
+        if (fleetStore.isLoaded()) {
+            return fleetStore.snapshot();
+        }
         return (List<Bicycle>) repository.findAll();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Optional<Bicycle> byId(String id) {
+        if (fleetStore.isLoaded()) {
+            return fleetStore.get(id);
+        }
         return repository.findById(id);
     }
 
+    @Override
+    public List<NearbyBicycleDTO> nearby(double lat, double lon, double radiusMeters, String model, Double minBattery, int limit) {
+        if (fleetStore.isLoaded()) {
+            return fleetStore.nearby(lat, lon, radiusMeters, model, minBattery, limit);
+        }
+        // Mientras carga la flota se recorre la tabla completa
+        return listBicycle().stream()
+                .filter(b -> model == null || model.equals(b.getModel()))
+                .filter(b -> minBattery == null || b.getBattery() >= minBattery)
+                .map(b -> new NearbyBicycleDTO(b.getIdBicycle(), b.getModel(), b.getLatitude(), b.getLength(),
+                        b.getBattery(), b.getPadlockStatus(),
+                        GeoDistance.haversineMeters(lat, lon, b.getLatitude(), b.getLength())))
+                .filter(n -> n.getDistanceMeters() <= radiusMeters)
+                .sorted(Comparator.comparingDouble(NearbyBicycleDTO::getDistanceMeters))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Optional<List<BatteryForecastDTO>> batteryAtRisk(double horizonMinutes, double threshold) {
+        if (!fleetStore.isLoaded()) {
+            return Optional.empty();
+        }
+        return Optional.of(fleetStore.batteryAtRisk(horizonMinutes, threshold));
+    }
+
     @Override
     @Transactional
     public Bicycle save(Bicycle bicycle) {
-        return repository.save(bicycle);
+        Bicycle saved = repository.save(bicycle);
+        fleetStore.upsert(saved);
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public BicyclePadlockBulkResultDTO updatePadlockStatuses(List<BicyclePadlockUpdateDTO> updates) {
+        List<BicyclePadlockUpdateDTO> valid = new ArrayList<>(updates.size());
+        List<String> invalid = new ArrayList<>();
+        for (BicyclePadlockUpdateDTO update : updates) {
+            if (update == null || update.getIdBicycle() == null || !PADLOCK_STATUSES.contains(update.getPadlockStatus())) {
+                invalid.add(update == null ? null : update.getIdBicycle());
+            } else {
+                valid.add(update);
+            }
+        }
+        if (valid.isEmpty()) {
+            return new BicyclePadlockBulkResultDTO(0, List.of(), invalid);
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_PADLOCK_SQL, valid, valid.size(),
+                (ps, update) -> {
+                    ps.setString(1, update.getPadlockStatus());
+                    ps.setString(2, update.getIdBicycle());
+                });
+        int updated = 0;
+        List<String> notFound = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                BicyclePadlockUpdateDTO update = valid.get(i++);
+                if (count == 0) {
+                    notFound.add(update.getIdBicycle());
+                } else {
+                    updated++;
+                    fleetStore.applyTelemetry(update.getIdBicycle(), null, null, null, update.getPadlockStatus(), null);
+                }
+            }
+        }
+        return new BicyclePadlockBulkResultDTO(updated, notFound, invalid);
     }
 
     @Override
     @Transactional
     public void delete(String id) {
         repository.deleteById(id);
+        fleetStore.remove(id);
     }
 }
@@ -0,0 +1,137 @@
+package com.movilidadsostenible.bicis_service.services.fleet;
+
+import com.movilidadsostenible.bicis_service.model.entity.Bicycle;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Carga la tabla {@code bicycle} en {@link FleetStateStore} al arrancar, leyendo con cursor para no
+ * materializar todas las entidades. Si la BD no está disponible reintenta cada 30 s.
+ * Con {@code fleet.reconcile-interval-ms} > 0 relee periódicamente solo las filas con
+ * {@code f_last_update} reciente; cada {@code fleet.full-reconcile-interval-ms} relee la tabla completa
+ * para quitar las bicis borradas y recoger cambios que no mueven {@code f_last_update}.
+ */
+@Component
+public class FleetStateLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(FleetStateLoader.class);
+
+    private static final String SELECT_SQL = """
+            SELECT k_id_bicycle, k_series, n_model, t_padlock_status, f_last_update, n_latitude, n_length, v_battery
+              FROM bicycle
+            """;
+
+    private static final String SELECT_CHANGED_SQL = SELECT_SQL + " WHERE f_last_update >= ?";
+
+    @Value("${fleet.reconcile-interval-ms:0}")
+    private long reconcileIntervalMs;
+    @Value("${fleet.full-reconcile-interval-ms:600000}")
+    private long fullReconcileIntervalMs;
+    // Margen hacia atrás de la relectura incremental: telemetría con marca de tiempo algo anterior
+    // a la última vista que otra réplica escribió después
+    @Value("${fleet.reconcile-lag-ms:60000}")
+    private long reconcileLagMs;
+
+    private final FleetStateStore store;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    // Solo se usan desde el hilo del scheduler
+    private long watermark;
+    private long lastFullReconcile;
+
+    public FleetStateLoader(FleetStateStore store, DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.store = store;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(10_000);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduler.execute(this::loadWithRetry);
+    }
+
+    private void loadWithRetry() {
+        try {
+            long start = System.currentTimeMillis();
+            scan(SELECT_SQL, store::upsert);
+            lastFullReconcile = start;
+            store.markLoaded();
+            log.info("Estado de flota cargado: {} bicicletas en {} ms", store.size(), System.currentTimeMillis() - start);
+            if (reconcileIntervalMs > 0) {
+                scheduler.scheduleWithFixedDelay(this::reconcileSafely, reconcileIntervalMs, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible cargar el estado de la flota. Reintentando en 30s: {}", e.getMessage());
+            scheduler.schedule(this::loadWithRetry, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Con varias réplicas cada una recibe solo parte de la telemetría y de las escrituras REST; se
+     * releen las filas que cambiaron para recoger lo que escribieron las demás.
+     */
+    private void reconcileSafely() {
+        try {
+            long now = System.currentTimeMillis();
+            if (fullReconcileIntervalMs > 0 && now - lastFullReconcile >= fullReconcileIntervalMs) {
+                Set<String> before = new HashSet<>(store.ids());
+                scan(SELECT_SQL, b -> {
+                    store.reconcile(b);
+                    before.remove(b.getIdBicycle());
+                });
+                before.forEach(store::remove);
+                lastFullReconcile = now;
+            } else {
+                scan(SELECT_CHANGED_SQL, store::reconcile, new Timestamp(watermark - reconcileLagMs));
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible reconciliar el estado de la flota: {}", e.getMessage());
+        }
+    }
+
+    private void scan(String sql, Consumer<Bicycle> consumer, Object... args) {
+        // El driver de Postgres solo usa cursor (fetchSize) dentro de una transacción
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, rs -> {
+            Bicycle b = new Bicycle();
+            b.setIdBicycle(rs.getString("k_id_bicycle"));
+            b.setSeries(rs.getInt("k_series"));
+            b.setModel(rs.getString("n_model"));
+            b.setPadlockStatus(rs.getString("t_padlock_status"));
+            Timestamp lastUpdate = rs.getTimestamp("f_last_update");
+            b.setLastUpdate(lastUpdate);
+            if (lastUpdate != null && lastUpdate.getTime() > watermark) {
+                watermark = lastUpdate.getTime();
+            }
+            b.setLatitude(rs.getDouble("n_latitude"));
+            b.setLength(rs.getDouble("n_length"));
+            b.setBattery(rs.getDouble("v_battery"));
+            consumer.accept(b);
+        }, args));
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
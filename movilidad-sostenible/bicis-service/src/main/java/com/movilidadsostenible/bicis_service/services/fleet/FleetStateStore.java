@@ -0,0 +1,444 @@
+package com.movilidadsostenible.bicis_service.services.fleet;
+
+import com.movilidadsostenible.bicis_service.model.dto.BatteryForecastDTO;
+import com.movilidadsostenible.bicis_service.model.dto.NearbyBicycleDTO;
+import com.movilidadsostenible.bicis_service.model.entity.Bicycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Estado vivo de la flota en memoria, en arreglos paralelos (struct-of-arrays) indexados por posición.
+ * El id de la bici se resuelve a su posición con una tabla hash de direccionamiento abierto sobre
+ * {@code int[]}, así que cada bici ocupa unas decenas de bytes y no genera objetos por actualización.
+ *
+ * Las posiciones se indexan además en una rejilla ({@link GeoGrid}) por posición en los arreglos,
+ * para las búsquedas por cercanía.
+ *
+ * Las actualizaciones de campos toman el lock en modo lectura (cada bici la escribe un único carril
+ * de telemetría); altas, bajas y crecimiento de arreglos toman el lock exclusivo.
+ */
+@Component
+public class FleetStateStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    // Constante de tiempo del promedio exponencial del consumo de batería
+    private static final double DRAIN_TAU_MINUTES = 30.0;
+    private static final String ELECTRIC = "ELECTRIC";
+
+    private final StampedLock lock = new StampedLock();
+    private final CodeTable modelCodes = new CodeTable();
+    private final CodeTable padlockCodes = new CodeTable();
+    private final GeoGrid grid = new GeoGrid(INITIAL_CAPACITY);
+
+    private volatile boolean loaded;
+    private int size;
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private int[] series = new int[INITIAL_CAPACITY];
+    private byte[] model = new byte[INITIAL_CAPACITY];
+    private byte[] padlock = new byte[INITIAL_CAPACITY];
+    private long[] lastUpdate = new long[INITIAL_CAPACITY];
+    private double[] latitude = new double[INITIAL_CAPACITY];
+    private double[] longitude = new double[INITIAL_CAPACITY];
+    private float[] battery = new float[INITIAL_CAPACITY];
+    // Consumo estimado en %/min (NaN sin estimación) y hora de la última muestra de batería
+    private float[] drainPerMinute = new float[INITIAL_CAPACITY];
+    private long[] batteryAt = new long[INITIAL_CAPACITY];
+    // Posición + 1 de cada id (0 = vacío); capacidad potencia de 2 con factor de carga <= 0.5
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean contains(String id) {
+        if (id == null) return false;
+        long stamp = lock.readLock();
+        try {
+            return indexOf(id) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Aplica telemetría a una bici conocida. Los valores nulos no modifican el estado.
+     * Devuelve false si la bici no está registrada.
+     */
+    public boolean applyTelemetry(String id, Double lat, Double lon, Double bat, String padlockStatus, Long timestamp) {
+        if (id == null) return false;
+        byte padlockCode = padlockStatus != null ? padlockCodes.codeOf(padlockStatus) : 0;
+        long stamp = lock.readLock();
+        try {
+            int i = indexOf(id);
+            if (i < 0) return false;
+            if (lat != null) latitude[i] = lat;
+            if (lon != null) longitude[i] = lon;
+            if (bat != null) updateBattery(i, bat.floatValue(), timestamp);
+            if (padlockStatus != null) padlock[i] = padlockCode;
+            if (timestamp != null) lastUpdate[i] = timestamp;
+            if (lat != null || lon != null) grid.move(i, latitude[i], longitude[i]);
+            return true;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Registra o reemplaza el estado completo de una bici (altas y actualizaciones vía REST o carga inicial).
+     */
+    public void upsert(Bicycle bicycle) {
+        byte modelCode = modelCodes.codeOf(bicycle.getModel());
+        byte padlockCode = padlockCodes.codeOf(bicycle.getPadlockStatus());
+        long stamp = lock.writeLock();
+        try {
+            write(bicycle, modelCode, padlockCode);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Aplica una fila leída de BD salvo que la memoria tenga telemetría más reciente que aún no se ha escrito.
+     */
+    public void reconcile(Bicycle bicycle) {
+        byte modelCode = modelCodes.codeOf(bicycle.getModel());
+        byte padlockCode = padlockCodes.codeOf(bicycle.getPadlockStatus());
+        long stamp = lock.writeLock();
+        try {
+            int i = indexOf(bicycle.getIdBicycle());
+            if (i >= 0 && bicycle.getLastUpdate() != null && lastUpdate[i] != NO_TIMESTAMP
+                    && bicycle.getLastUpdate().getTime() < lastUpdate[i]) {
+                return;
+            }
+            write(bicycle, modelCode, padlockCode);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void write(Bicycle bicycle, byte modelCode, byte padlockCode) {
+        int i = indexOf(bicycle.getIdBicycle());
+        if (i < 0) {
+            ensureCapacity(size + 1);
+            i = size++;
+            ids[i] = bicycle.getIdBicycle();
+            insertIntoTable(bicycle.getIdBicycle(), i);
+            drainPerMinute[i] = Float.NaN;
+            batteryAt[i] = NO_TIMESTAMP;
+        }
+        series[i] = bicycle.getSeries() != null ? bicycle.getSeries() : 0;
+        model[i] = modelCode;
+        padlock[i] = padlockCode;
+        lastUpdate[i] = bicycle.getLastUpdate() != null ? bicycle.getLastUpdate().getTime() : NO_TIMESTAMP;
+        latitude[i] = bicycle.getLatitude();
+        longitude[i] = bicycle.getLength();
+        float value = (float) bicycle.getBattery();
+        // Una subida desde la BD es una carga o un cambio de batería: el consumo se vuelve a estimar
+        if (value > battery[i]) {
+            drainPerMinute[i] = Float.NaN;
+        }
+        battery[i] = value;
+        batteryAt[i] = lastUpdate[i];
+        grid.move(i, latitude[i], longitude[i]);
+    }
+
+    public void remove(String id) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(id);
+            if (slot < 0) return;
+            int removed = table[slot] - 1;
+            deleteSlot(slot);
+            grid.remove(removed);
+            int last = --size;
+            if (removed != last) {
+                // Compacta moviendo la última bici al hueco
+                moveRow(last, removed);
+                grid.moveRow(last, removed);
+                table[slotOf(ids[removed])] = removed + 1;
+            }
+            ids[last] = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public Optional<Bicycle> get(String id) {
+        if (id == null) return Optional.empty();
+        long stamp = lock.readLock();
+        try {
+            int i = indexOf(id);
+            return i < 0 ? Optional.empty() : Optional.of(toBicycle(i));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<String> ids() {
+        long stamp = lock.readLock();
+        try {
+            return new ArrayList<>(Arrays.asList(ids).subList(0, size));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public List<Bicycle> snapshot() {
+        long stamp = lock.readLock();
+        try {
+            List<Bicycle> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(toBicycle(i));
+            }
+            return list;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Bicis a menos de {@code radiusMeters} del punto, ordenadas por distancia. La rejilla acota los
+     * candidatos y la distancia Haversine hace el filtrado exacto. {@code model} y {@code minBattery}
+     * son opcionales.
+     */
+    public List<NearbyBicycleDTO> nearby(double lat, double lon, double radiusMeters, String model, Double minBattery, int limit) {
+        int modelCode = model != null ? modelCodes.find(model) : -1;
+        if (model != null && modelCode < 0) {
+            return List.of();
+        }
+        List<NearbyBicycleDTO> result = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            grid.candidates(lat, lon, radiusMeters, i -> {
+                if (modelCode >= 0 && this.model[i] != modelCode) return;
+                if (minBattery != null && battery[i] < minBattery) return;
+                double distance = GeoDistance.haversineMeters(lat, lon, latitude[i], longitude[i]);
+                if (distance > radiusMeters) return;
+                result.add(new NearbyBicycleDTO(ids[i], modelCodes.valueOf(this.model[i]), latitude[i], longitude[i],
+                        (double) battery[i], padlockCodes.valueOf(padlock[i]), distance));
+            });
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        result.sort(Comparator.comparingDouble(NearbyBicycleDTO::getDistanceMeters));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Bicis eléctricas que, al ritmo de consumo estimado, estarán por debajo de {@code threshold} dentro
+     * de {@code horizonMinutes}. Las que ya están por debajo se incluyen siempre. Ordenadas por urgencia.
+     */
+    public List<BatteryForecastDTO> batteryAtRisk(double horizonMinutes, double threshold) {
+        int electric = modelCodes.find(ELECTRIC);
+        if (electric < 0) {
+            return List.of();
+        }
+        List<BatteryForecastDTO> result = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            for (int i = 0; i < size; i++) {
+                if (model[i] != electric) continue;
+                float drain = drainPerMinute[i];
+                boolean known = !Float.isNaN(drain);
+                double predicted = known ? battery[i] - drain * horizonMinutes : battery[i];
+                if (predicted >= threshold) continue;
+                Double minutes;
+                if (battery[i] < threshold) {
+                    minutes = 0.0;
+                } else {
+                    minutes = known && drain > 0 ? (battery[i] - threshold) / drain : null;
+                }
+                result.add(new BatteryForecastDTO(ids[i], (double) battery[i], known ? drain * 60.0 : null,
+                        predicted, minutes, latitude[i], longitude[i]));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        result.sort(Comparator.comparing(BatteryForecastDTO::getMinutesToThreshold,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    /**
+     * Actualiza la batería y el promedio exponencial de su pendiente, ponderado por el tiempo
+     * transcurrido para tolerar muestras irregulares. Las subidas (carga o cambio de batería) no
+     * cuentan como consumo.
+     */
+    private void updateBattery(int i, float value, Long timestamp) {
+        if (timestamp != null && batteryAt[i] != NO_TIMESTAMP && timestamp > batteryAt[i]) {
+            double minutes = (timestamp - batteryAt[i]) / 60_000.0;
+            double slope = (battery[i] - value) / minutes;
+            if (slope >= 0) {
+                double alpha = 1 - Math.exp(-minutes / DRAIN_TAU_MINUTES);
+                drainPerMinute[i] = Float.isNaN(drainPerMinute[i])
+                        ? (float) slope
+                        : (float) (drainPerMinute[i] + alpha * (slope - drainPerMinute[i]));
+            }
+        }
+        battery[i] = value;
+        if (timestamp != null) batteryAt[i] = timestamp;
+    }
+
+    private Bicycle toBicycle(int i) {
+        Bicycle b = new Bicycle();
+        b.setIdBicycle(ids[i]);
+        b.setSeries(series[i]);
+        b.setModel(modelCodes.valueOf(model[i]));
+        b.setPadlockStatus(padlockCodes.valueOf(padlock[i]));
+        b.setLastUpdate(lastUpdate[i] != NO_TIMESTAMP ? new Date(lastUpdate[i]) : null);
+        b.setLatitude(latitude[i]);
+        b.setLength(longitude[i]);
+        b.setBattery(battery[i]);
+        return b;
+    }
+
+    private void moveRow(int from, int to) {
+        ids[to] = ids[from];
+        series[to] = series[from];
+        model[to] = model[from];
+        padlock[to] = padlock[from];
+        lastUpdate[to] = lastUpdate[from];
+        latitude[to] = latitude[from];
+        longitude[to] = longitude[from];
+        battery[to] = battery[from];
+        drainPerMinute[to] = drainPerMinute[from];
+        batteryAt[to] = batteryAt[from];
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) return;
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        series = Arrays.copyOf(series, capacity);
+        model = Arrays.copyOf(model, capacity);
+        padlock = Arrays.copyOf(padlock, capacity);
+        lastUpdate = Arrays.copyOf(lastUpdate, capacity);
+        latitude = Arrays.copyOf(latitude, capacity);
+        longitude = Arrays.copyOf(longitude, capacity);
+        battery = Arrays.copyOf(battery, capacity);
+        drainPerMinute = Arrays.copyOf(drainPerMinute, capacity);
+        batteryAt = Arrays.copyOf(batteryAt, capacity);
+        grid.ensureCapacity(capacity);
+        table = new int[capacity * 2];
+        for (int i = 0; i < size; i++) {
+            insertIntoTable(ids[i], i);
+        }
+    }
+
+    // ---- tabla hash id -> posición (direccionamiento abierto, sondeo lineal) ----
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(String id) {
+        int slot = slotOf(id);
+        return slot < 0 ? -1 : table[slot] - 1;
+    }
+
+    private int slotOf(String id) {
+        int mask = table.length - 1;
+        int slot = hash(id) & mask;
+        while (true) {
+            int v = table[slot];
+            if (v == 0) return -1;
+            if (ids[v - 1].equals(id)) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insertIntoTable(String id, int index) {
+        int mask = table.length - 1;
+        int slot = hash(id) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    // Borrado con desplazamiento hacia atrás para no dejar lápidas
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        int j = slot;
+        while (true) {
+            j = (j + 1) & mask;
+            int v = table[j];
+            if (v == 0) {
+                table[hole] = 0;
+                return;
+            }
+            int home = hash(ids[v - 1]) & mask;
+            boolean between = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!between) {
+                table[hole] = v;
+                hole = j;
+            }
+        }
+    }
+
+    /**
+     * Diccionario pequeño de valores de texto (modelo, estado del candado) codificados en un byte.
+     */
+    static final class CodeTable {
+        private volatile String[] values = new String[] { null };
+
+        synchronized byte codeOfSlow(String value) {
+            String[] current = values;
+            for (int i = 1; i < current.length; i++) {
+                if (current[i].equals(value)) return (byte) i;
+            }
+            if (current.length > Byte.MAX_VALUE) {
+                throw new IllegalStateException("Demasiados valores distintos: " + value);
+            }
+            String[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = value;
+            values = next;
+            return (byte) current.length;
+        }
+
+        byte codeOf(String value) {
+            if (value == null) return 0;
+            String[] current = values;
+            for (int i = 1; i < current.length; i++) {
+                if (current[i].equals(value)) return (byte) i;
+            }
+            return codeOfSlow(value);
+        }
+
+        // Código del valor, o -1 si nunca se ha registrado
+        int find(String value) {
+            String[] current = values;
+            for (int i = 1; i < current.length; i++) {
+                if (current[i].equals(value)) return i;
+            }
+            return -1;
+        }
+
+        String valueOf(byte code) {
+            return values[code];
+        }
+    }
+}
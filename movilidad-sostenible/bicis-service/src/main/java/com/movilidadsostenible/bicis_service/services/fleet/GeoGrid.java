@@ -0,0 +1,166 @@
+package com.movilidadsostenible.bicis_service.services.fleet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Índice espacial de rejilla fija: cada bici se guarda en la celda de ~550 m que contiene su posición.
+ * Una búsqueda por radio solo recorre las celdas que cubren el círculo y deja el filtrado exacto
+ * (Haversine) a quien la invoca.
+ *
+ * Trabaja con la fila de la bici en {@link FleetStateStore}, no con su id: cada fila guarda su celda
+ * y su posición dentro de ella en dos columnas primitivas, y cada celda es un {@code int[]} de filas.
+ * Son unos 20 bytes por bici; los objetos son por celda, no por bici.
+ *
+ * El store hace crecer y compacta las filas con su lock exclusivo. Los cambios de celda llegan con el
+ * lock del store en modo lectura desde varios carriles, así que la rejilla tiene su propio lock; como
+ * solo se toma cuando la bici cambia de celda, la telemetría rutinaria no lo toca.
+ */
+final class GeoGrid {
+
+    static final double CELL_DEGREES = 0.005;
+    private static final double METERS_PER_DEGREE = Math.toRadians(GeoDistance.EARTH_RADIUS_METERS);
+    private static final long NO_CELL = Long.MIN_VALUE;
+
+    private final StampedLock lock = new StampedLock();
+    private final Map<Long, Cell> cells = new HashMap<>();
+    // Celda de cada fila (NO_CELL si no está indexada) y su posición dentro de Cell.rows
+    private long[] cellOfRow;
+    private int[] slotInCell;
+
+    GeoGrid(int capacity) {
+        cellOfRow = new long[capacity];
+        Arrays.fill(cellOfRow, NO_CELL);
+        slotInCell = new int[capacity];
+    }
+
+    /** Lo llama el store al crecer, con su lock exclusivo. */
+    void ensureCapacity(int capacity) {
+        if (capacity <= cellOfRow.length) return;
+        int previous = cellOfRow.length;
+        cellOfRow = Arrays.copyOf(cellOfRow, capacity);
+        Arrays.fill(cellOfRow, previous, capacity, NO_CELL);
+        slotInCell = Arrays.copyOf(slotInCell, capacity);
+    }
+
+    void move(int row, double lat, double lon) {
+        long cell = cellOf(lat, lon);
+        // Solo el carril de la bici escribe su celda: leerla sin lock es seguro
+        if (cellOfRow[row] == cell) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            unlink(row);
+            cells.computeIfAbsent(cell, k -> new Cell()).add(row, this);
+            cellOfRow[row] = cell;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void remove(int row) {
+        long stamp = lock.writeLock();
+        try {
+            unlink(row);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** La fila {@code from} pasa a ser {@code to} (compactación del store); {@code to} debe estar libre. */
+    void moveRow(int from, int to) {
+        long stamp = lock.writeLock();
+        try {
+            long cell = cellOfRow[from];
+            cellOfRow[to] = cell;
+            cellOfRow[from] = NO_CELL;
+            if (cell != NO_CELL) {
+                int slot = slotInCell[from];
+                slotInCell[to] = slot;
+                cells.get(cell).rows[slot] = to;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Entrega las filas de las celdas que intersecan el rectángulo que envuelve el círculo.
+     */
+    void candidates(double lat, double lon, double radiusMeters, IntConsumer consumer) {
+        double dLat = radiusMeters / METERS_PER_DEGREE;
+        double cosLat = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+        double dLon = Math.min(radiusMeters / (METERS_PER_DEGREE * cosLat), 180.0);
+        int minRow = row(lat - dLat);
+        int maxRow = row(lat + dLat);
+        int minCol = col(lon - dLon);
+        int maxCol = col(lon + dLon);
+        long stamp = lock.readLock();
+        try {
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minCol; c <= maxCol; c++) {
+                    Cell cell = cells.get(key(r, c));
+                    if (cell != null) {
+                        for (int k = 0; k < cell.size; k++) {
+                            consumer.accept(cell.rows[k]);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Con el lock exclusivo de la rejilla
+    private void unlink(int row) {
+        long previous = cellOfRow[row];
+        if (previous == NO_CELL) return;
+        Cell cell = cells.get(previous);
+        cell.remove(slotInCell[row], this);
+        if (cell.size == 0) {
+            cells.remove(previous);
+        }
+        cellOfRow[row] = NO_CELL;
+    }
+
+    private static long cellOf(double lat, double lon) {
+        return key(row(lat), col(lon));
+    }
+
+    private static int row(double lat) {
+        return (int) Math.floor(lat / CELL_DEGREES);
+    }
+
+    private static int col(double lon) {
+        return (int) Math.floor(lon / CELL_DEGREES);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    /** Filas de una celda; el borrado mueve la última al hueco. */
+    private static final class Cell {
+        int[] rows = new int[4];
+        int size;
+
+        void add(int row, GeoGrid grid) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            grid.slotInCell[row] = size;
+            rows[size++] = row;
+        }
+
+        void remove(int slot, GeoGrid grid) {
+            int last = rows[--size];
+            rows[slot] = last;
+            grid.slotInCell[last] = slot;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.movilidadsostenible.bicis_service.services.maintenance;
+
+import com.movilidadsostenible.bicis_service.model.dto.BicycleTelemetryDTO;
+import com.movilidadsostenible.bicis_service.rabbit.publisher.BicisPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Alertas de mantenimiento por flanco: se publica cuando el candado de una bici pasa de OK a ERROR
+ * y de ERROR a OK. Mientras siga en ERROR solo se vuelve a avisar tras {@code maintenance.alerts.cooldown-ms}.
+ * Las alertas se envían en lotes con confirmación del broker; si el lote falla se reintenta en el siguiente flush.
+ */
+@Service
+public class MaintenanceAlertService {
+
+    private static final Logger log = LoggerFactory.getLogger(MaintenanceAlertService.class);
+
+    @Value("${maintenance.alerts.cooldown-ms:1800000}")
+    private long cooldownMs;
+    @Value("${maintenance.alerts.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+    @Value("${maintenance.alerts.batch-size:100}")
+    private int batchSize;
+    @Value("${maintenance.alerts.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private final BicisPublisher publisher;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+    private final Map<String, AlertState> states = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("maintenance-alerts").daemon().factory());
+
+    private BlockingDeque<BicycleTelemetryDTO> pending;
+    private Counter publishedCounter;
+    private Counter suppressedCounter;
+    private Counter droppedCounter;
+
+    @Autowired
+    public MaintenanceAlertService(BicisPublisher publisher, MeterRegistry meterRegistry) {
+        this(publisher, meterRegistry, System::currentTimeMillis);
+    }
+
+    MaintenanceAlertService(BicisPublisher publisher, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.publisher = publisher;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        pending = new LinkedBlockingDeque<>(queueCapacity);
+        publishedCounter = Counter.builder("bicycle.maintenance.alerts.published")
+                .description("Alertas de mantenimiento confirmadas por el broker").register(meterRegistry);
+        suppressedCounter = Counter.builder("bicycle.maintenance.alerts.suppressed")
+                .description("Reportes de ERROR sin alerta por estar dentro del cooldown").register(meterRegistry);
+        droppedCounter = Counter.builder("bicycle.maintenance.alerts.dropped")
+                .description("Alertas descartadas por cola llena").register(meterRegistry);
+        Gauge.builder("bicycle.maintenance.alerts.pending", pending, BlockingDeque::size)
+                .description("Alertas pendientes de publicar").register(meterRegistry);
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra el estado del candado reportado por una bici; encola una alerta si corresponde y
+     * {@code publish} (la réplica es dueña de la bici). El estado se sigue en todas las réplicas,
+     * así la que pase a ser dueña ya conoce el último flanco.
+     */
+    public void onPadlockStatus(BicycleTelemetryDTO telemetry, String padlockStatus, boolean publish) {
+        if (padlockStatus == null) {
+            return;
+        }
+        boolean error = "ERROR".equals(padlockStatus);
+        long now = clock.getAsLong();
+        boolean[] notify = new boolean[1];
+        states.compute(telemetry.getIdBicycle(), (id, previous) -> {
+            if (previous == null || previous.error() != error) {
+                // Sin estado previo solo interesa entrar en ERROR
+                notify[0] = error || previous != null;
+                return new AlertState(error, now);
+            }
+            if (error && now - previous.notifiedAt() >= cooldownMs) {
+                notify[0] = true;
+                return new AlertState(true, now);
+            }
+            return previous;
+        });
+        if (notify[0] && !publish) {
+            return;
+        }
+        if (notify[0]) {
+            if (!pending.offerLast(telemetry)) {
+                droppedCounter.increment();
+                log.warn("Cola de alertas llena; se descarta la alerta de la bici {}", telemetry.getIdBicycle());
+            }
+        } else if (error) {
+            suppressedCounter.increment();
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error publicando alertas de mantenimiento", e);
+        }
+    }
+
+    void flush() {
+        List<BicycleTelemetryDTO> batch = new ArrayList<>(batchSize);
+        while (pending.drainTo(batch, batchSize) > 0) {
+            try {
+                publisher.sendMaintenanceBatch(batch);
+            } catch (RuntimeException e) {
+                // Devuelve el lote al frente conservando el orden
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    if (!pending.offerFirst(batch.get(i))) {
+                        droppedCounter.increment();
+                    }
+                }
+                throw e;
+            }
+            publishedCounter.increment(batch.size());
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("No fue posible publicar las alertas pendientes al detener el servicio", e);
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    record AlertState(boolean error, long notifiedAt) {
+    }
+}
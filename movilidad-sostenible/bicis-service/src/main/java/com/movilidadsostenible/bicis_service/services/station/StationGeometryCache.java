@@ -0,0 +1,153 @@
+package com.movilidadsostenible.bicis_service.services.station;
+
+import com.movilidadsostenible.bicis_service.clients.StationClientRest;
+import com.movilidadsostenible.bicis_service.model.dto.StationChangedEventDTO;
+import com.movilidadsostenible.bicis_service.model.dto.StationDTO;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copia local de las coordenadas de las estaciones para validar el cierre de candado sin ir a
+ * estaciones-service. Se carga completa al arrancar, se invalida con los eventos que publica
+ * estaciones-service y se recarga cada {@code stations.cache.refresh-interval-ms} por si se
+ * perdió algún evento. Una estación que no está en caché se consulta por Feign y se agrega.
+ */
+@Component
+public class StationGeometryCache {
+
+    private static final Logger log = LoggerFactory.getLogger(StationGeometryCache.class);
+
+    @Value("${stations.cache.refresh-interval-ms:600000}")
+    private long refreshIntervalMs;
+
+    private final StationClientRest stationClient;
+    private final Map<Integer, StationDTO> stations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("station-cache").daemon().factory());
+
+    // Ids que cambiaron mientras corría una recarga; la recarga no los pisa con datos viejos
+    private volatile Set<Integer> changedDuringReload;
+
+    public StationGeometryCache(StationClientRest stationClient) {
+        this.stationClient = stationClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduler.execute(this::loadWithRetry);
+    }
+
+    private void loadWithRetry() {
+        try {
+            reload();
+            log.info("Caché de estaciones cargada: {} estaciones", stations.size());
+            if (refreshIntervalMs > 0) {
+                scheduler.scheduleWithFixedDelay(this::reloadSafely, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible cargar la caché de estaciones. Reintentando en 30s: {}", e.getMessage());
+            scheduler.schedule(this::loadWithRetry, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    private void reloadSafely() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("No fue posible recargar la caché de estaciones: {}", e.getMessage());
+        }
+    }
+
+    void reload() {
+        Set<Integer> changed = ConcurrentHashMap.newKeySet();
+        changedDuringReload = changed;
+        try {
+            List<StationDTO> all = stationClient.getAll();
+            Set<Integer> seen = new HashSet<>();
+            for (StationDTO station : all) {
+                seen.add(station.getIdStation());
+                if (!changed.contains(station.getIdStation())) {
+                    stations.put(station.getIdStation(), station);
+                }
+            }
+            stations.keySet().removeIf(id -> !seen.contains(id) && !changed.contains(id));
+        } finally {
+            changedDuringReload = null;
+        }
+    }
+
+    public Optional<StationDTO> find(Integer idStation) {
+        StationDTO cached = stations.get(idStation);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        try {
+            StationDTO station = stationClient.getById(idStation).getBody();
+            if (station != null) {
+                stations.put(idStation, station);
+            }
+            return Optional.ofNullable(station);
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        } catch (Exception e) {
+            log.warn("No fue posible consultar la estación {}: {}", idStation, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @RabbitListener(queues = "#{stationEventsQueue.name}")
+    public void onStationChanged(StationChangedEventDTO event) {
+        Integer id = event.getIdStation();
+        if (id == null) {
+            return;
+        }
+        Set<Integer> changed = changedDuringReload;
+        if (changed != null) {
+            changed.add(id);
+        }
+        if ("DELETED".equals(event.getAction())) {
+            stations.remove(id);
+        } else {
+            stations.compute(id, (k, current) -> {
+                StationDTO station = new StationDTO();
+                if (current != null) {
+                    station.setStationName(current.getStationName());
+                    station.setIdCity(current.getIdCity());
+                    station.setType(current.getType());
+                    station.setCctvStatus(current.getCctvStatus());
+                }
+                station.setIdStation(id);
+                station.setLatitude(event.getLatitude());
+                station.setLength(event.getLength());
+                return station;
+            });
+        }
+        log.debug("Estación {} invalidada en caché ({})", id, event.getAction());
+    }
+
+    public int size() {
+        return stations.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
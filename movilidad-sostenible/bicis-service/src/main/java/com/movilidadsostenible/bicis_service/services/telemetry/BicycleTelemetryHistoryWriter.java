@@ -0,0 +1,118 @@
+package com.movilidadsostenible.bicis_service.services.telemetry;
+
+import com.movilidadsostenible.bicis_service.model.dto.BicycleTelemetryDTO;
+import com.movilidadsostenible.bicis_service.repositories.BicycleTelemetryHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrega cada muestra de telemetría al historial {@code bicycle_telemetry} en inserts por batch.
+ * La cola es acotada: si la BD no da abasto se descartan muestras (y se cuentan) en lugar de
+ * frenar la ingesta.
+ */
+@Service
+public class BicycleTelemetryHistoryWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(BicycleTelemetryHistoryWriter.class);
+
+    @Value("${telemetry.history.queue-capacity:100000}")
+    private int queueCapacity;
+    @Value("${telemetry.history.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+    @Value("${telemetry.history.batch-size:1000}")
+    private int batchSize;
+    @Value("${telemetry.history.partition-days-ahead:2}")
+    private int partitionDaysAhead;
+
+    private final BicycleTelemetryHistoryRepository repository;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("telemetry-history").daemon().factory());
+
+    private BlockingQueue<BicycleTelemetryDTO> queue;
+    private Counter droppedCounter;
+    private Counter writtenCounter;
+
+    public BicycleTelemetryHistoryWriter(BicycleTelemetryHistoryRepository repository, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        droppedCounter = Counter.builder("bicycle.telemetry.history.dropped")
+                .description("Muestras descartadas por cola llena").register(meterRegistry);
+        writtenCounter = Counter.builder("bicycle.telemetry.history.written")
+                .description("Muestras escritas en el historial").register(meterRegistry);
+        Gauge.builder("bicycle.telemetry.history.pending", queue, BlockingQueue::size)
+                .description("Muestras pendientes de escribir").register(meterRegistry);
+
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::ensurePartitions, 0, 6, TimeUnit.HOURS);
+    }
+
+    public void append(BicycleTelemetryDTO telemetry) {
+        if (!queue.offer(telemetry)) {
+            droppedCounter.increment();
+        }
+    }
+
+    private void ensurePartitions() {
+        try {
+            repository.ensurePartitions(partitionDaysAhead);
+        } catch (Exception e) {
+            log.warn("No fue posible crear las particiones del historial de telemetría: {}", e.getMessage());
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error escribiendo historial de telemetría", e);
+        }
+    }
+
+    private void flush() {
+        List<BicycleTelemetryDTO> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                repository.insertBatch(batch);
+            } catch (RuntimeException e) {
+                droppedCounter.increment(batch.size());
+                throw e;
+            }
+            writtenCounter.increment(batch.size());
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("No fue posible escribir el historial pendiente al detener el servicio", e);
+        }
+    }
+}
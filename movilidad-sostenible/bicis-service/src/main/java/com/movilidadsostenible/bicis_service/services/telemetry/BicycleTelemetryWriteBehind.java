@@ -0,0 +1,215 @@
+package com.movilidadsostenible.bicis_service.services.telemetry;
+
+import com.movilidadsostenible.bicis_service.model.dto.BicycleTelemetryDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Escritura diferida (write-behind) de la telemetría de bicicletas.
+ * Solo se guarda el último estado de cada bici; cada {@code flush-interval-ms} o cada
+ * {@code flush-max-updates} actualizaciones se escriben las bicis pendientes en un único batch JDBC.
+ * Justo después de un cambio de réplicas dos de ellas pueden creerse dueñas de la misma bici: el
+ * UPDATE no pisa una fila con {@code f_last_update} más reciente.
+ */
+@Service
+public class BicycleTelemetryWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(BicycleTelemetryWriteBehind.class);
+
+    private static final String UPDATE_SQL = """
+            UPDATE bicycle
+               SET n_latitude = COALESCE(?, n_latitude),
+                   n_length = COALESCE(?, n_length),
+                   v_battery = COALESCE(?, v_battery),
+                   t_padlock_status = COALESCE(?, t_padlock_status),
+                   f_last_update = ?
+             WHERE k_id_bicycle = ?
+               AND (f_last_update IS NULL OR f_last_update <= ?)
+            """;
+
+    @Value("${telemetry.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+    @Value("${telemetry.write-behind.flush-max-updates:5000}")
+    private int flushMaxUpdates;
+    @Value("${telemetry.write-behind.batch-size:500}")
+    private int batchSize;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, PendingTelemetry> dirty = new ConcurrentHashMap<>();
+    private final AtomicInteger updatesSinceFlush = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("telemetry-write-behind").daemon().factory());
+
+    private Counter updatesCounter;
+    private Counter rowsWrittenCounter;
+    private Timer flushTimer;
+    private DistributionSummary batchSizeSummary;
+    private DistributionSummary lagSummary;
+
+    public BicycleTelemetryWriteBehind(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        updatesCounter = Counter.builder("bicycle.telemetry.writebehind.updates")
+                .description("Actualizaciones de telemetría recibidas").register(meterRegistry);
+        rowsWrittenCounter = Counter.builder("bicycle.telemetry.writebehind.rows")
+                .description("Filas escritas en BD tras coalescer").register(meterRegistry);
+        flushTimer = Timer.builder("bicycle.telemetry.writebehind.flush")
+                .description("Duración de cada flush a BD").register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("bicycle.telemetry.writebehind.batch.size")
+                .description("Bicicletas escritas por flush").register(meterRegistry);
+        lagSummary = DistributionSummary.builder("bicycle.telemetry.writebehind.lag")
+                .description("Milisegundos entre la primera actualización pendiente y su escritura")
+                .baseUnit("milliseconds").register(meterRegistry);
+        Gauge.builder("bicycle.telemetry.writebehind.flush.interval", () -> flushIntervalMs)
+                .description("Intervalo configurado entre flushes").baseUnit("milliseconds").register(meterRegistry);
+        Gauge.builder("bicycle.telemetry.writebehind.pending", dirty, Map::size)
+                .description("Bicicletas con cambios pendientes de escribir").register(meterRegistry);
+
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra la telemetría de una bici. Los campos nulos no pisan el valor pendiente ni el de la BD.
+     */
+    public void enqueue(BicycleTelemetryDTO telemetry, String padlockStatus) {
+        PendingTelemetry update = new PendingTelemetry(
+                telemetry.getLatitude(),
+                telemetry.getLongitude(),
+                telemetry.getBattery(),
+                padlockStatus,
+                telemetry.getTimestamp(),
+                System.currentTimeMillis());
+        dirty.merge(telemetry.getIdBicycle(), update, PendingTelemetry::mergeWith);
+        updatesCounter.increment();
+        if (updatesSinceFlush.incrementAndGet() >= flushMaxUpdates && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::flushSafely);
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error escribiendo telemetría pendiente en BD", e);
+        } finally {
+            flushScheduled.set(false);
+        }
+    }
+
+    /**
+     * Escribe en BD todas las bicis pendientes. Si el batch falla, las entradas vuelven a la cola
+     * salvo que ya haya llegado una actualización más reciente.
+     */
+    synchronized void flush() {
+        updatesSinceFlush.set(0);
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, PendingTelemetry>> batch = new ArrayList<>(Math.min(dirty.size(), batchSize));
+        for (String id : dirty.keySet()) {
+            PendingTelemetry pending = dirty.remove(id);
+            if (pending == null) {
+                continue;
+            }
+            batch.add(Map.entry(id, pending));
+            if (batch.size() >= batchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<Map.Entry<String, PendingTelemetry>> batch) {
+        long now = System.currentTimeMillis();
+        try {
+            flushTimer.record(() -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), this::bind));
+        } catch (RuntimeException e) {
+            batch.forEach(entry -> dirty.merge(entry.getKey(), entry.getValue(), (newer, failed) -> failed.mergeWith(newer)));
+            throw e;
+        }
+        rowsWrittenCounter.increment(batch.size());
+        batchSizeSummary.record(batch.size());
+        for (Map.Entry<String, PendingTelemetry> entry : batch) {
+            lagSummary.record(now - entry.getValue().firstDirtyAt());
+        }
+        log.debug("Flush de telemetría: {} bicicletas escritas", batch.size());
+    }
+
+    private void bind(PreparedStatement ps, Map.Entry<String, PendingTelemetry> entry) throws SQLException {
+        PendingTelemetry t = entry.getValue();
+        ps.setObject(1, t.latitude(), Types.DOUBLE);
+        ps.setObject(2, t.longitude(), Types.DOUBLE);
+        ps.setObject(3, t.battery(), Types.DOUBLE);
+        ps.setObject(4, t.padlockStatus(), Types.VARCHAR);
+        Timestamp timestamp = new Timestamp(t.timestamp());
+        ps.setTimestamp(5, timestamp);
+        ps.setString(6, entry.getKey());
+        ps.setTimestamp(7, timestamp);
+    }
+
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("No fue posible escribir la telemetría pendiente al detener el servicio", e);
+        }
+    }
+
+    record PendingTelemetry(Double latitude, Double longitude, Double battery,
+                            String padlockStatus, long timestamp, long firstDirtyAt) {
+
+        // Combina con una actualización posterior: gana el valor nuevo si no es nulo
+        PendingTelemetry mergeWith(PendingTelemetry newer) {
+            return new PendingTelemetry(
+                    newer.latitude != null ? newer.latitude : latitude,
+                    newer.longitude != null ? newer.longitude : longitude,
+                    newer.battery != null ? newer.battery : battery,
+                    newer.padlockStatus != null ? newer.padlockStatus : padlockStatus,
+                    Math.max(timestamp, newer.timestamp),
+                    Math.min(firstDirtyAt, newer.firstDirtyAt));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.movilidadsostenible.bicis_service.services.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Celdas de ~1.1 km (0.01°) para suscripciones por viewport. Un cliente se suscribe a
+ * {@code /topic/bicycle.cell/{celda}} por cada celda visible y solo recibe las bicis que están en ellas.
+ */
+public final class TelemetryCells {
+
+    public static final double CELL_DEGREES = 0.01;
+    public static final String CELL_TOPIC_PREFIX = "/topic/bicycle.cell/";
+    public static final int MAX_CELLS = 400;
+
+    private TelemetryCells() {
+    }
+
+    // Formato "fila_columna", p. ej. "465_-7409"
+    public static String cellOf(double lat, double lon) {
+        return row(lat) + "_" + col(lon);
+    }
+
+    /**
+     * Celdas que cubren el rectángulo, o una lista vacía si superan {@link #MAX_CELLS}.
+     */
+    public static List<String> covering(double minLat, double minLon, double maxLat, double maxLon) {
+        int minRow = row(Math.min(minLat, maxLat));
+        int maxRow = row(Math.max(minLat, maxLat));
+        int minCol = col(Math.min(minLon, maxLon));
+        int maxCol = col(Math.max(minLon, maxLon));
+        long count = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (count > MAX_CELLS) {
+            return List.of();
+        }
+        List<String> cells = new ArrayList<>((int) count);
+        for (int r = minRow; r <= maxRow; r++) {
+            for (int c = minCol; c <= maxCol; c++) {
+                cells.add(r + "_" + c);
+            }
+        }
+        return cells;
+    }
+
+    private static int row(double lat) {
+        return (int) Math.floor(lat / CELL_DEGREES);
+    }
+
+    private static int col(double lon) {
+        return (int) Math.floor(lon / CELL_DEGREES);
+    }
+}
@@ -1,23 +1,103 @@
 package com.movilidadsostenible.bicis_service.services.websocket;
 
 import com.movilidadsostenible.bicis_service.model.dto.BicycleTelemetryDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reenvía la telemetría a los clientes WebSocket con conflación: en cada ventana de
+ * {@code websocket.telemetry.conflation-ms} se envía a lo sumo un mensaje por bici, con su último estado.
+ *
+ * Destinos:
+ * - {@code /topic/bicycle.location/{id}}: una bici concreta.
+ * - {@code /topic/bicycle.cell/{celda}}: bicis dentro de una celda del viewport (ver {@link TelemetryCells}).
+ * - {@code /topic/bicycle.location}: feed completo, se mantiene por compatibilidad y puede desactivarse.
+ */
 @Service
 public class TelemetryWebSocketPublisher {
 
+    private static final Logger log = LoggerFactory.getLogger(TelemetryWebSocketPublisher.class);
+
+    static final String GLOBAL_TOPIC = "/topic/bicycle.location";
+    static final String BICYCLE_TOPIC_PREFIX = "/topic/bicycle.location/";
+
+    @Value("${websocket.telemetry.conflation-ms:500}")
+    private long conflationMs;
+    @Value("${websocket.telemetry.global-topic-enabled:true}")
+    private boolean globalTopicEnabled;
+
     private final SimpMessagingTemplate messagingTemplate;
+    private final Map<String, BicycleTelemetryDTO> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("telemetry-websocket").daemon().factory());
 
     public TelemetryWebSocketPublisher(SimpMessagingTemplate messagingTemplate) {
         this.messagingTemplate = messagingTemplate;
     }
 
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushSafely, conflationMs, conflationMs, TimeUnit.MILLISECONDS);
+    }
+
     public void sendTelemetry(BicycleTelemetryDTO telemetry) {
+        if (telemetry.getIdBicycle() == null) {
+            return;
+        }
+        pending.merge(telemetry.getIdBicycle(), telemetry, TelemetryWebSocketPublisher::merge);
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error enviando telemetría por WebSocket", e);
+        }
+    }
+
+    void flush() {
+        for (String id : pending.keySet()) {
+            BicycleTelemetryDTO telemetry = pending.remove(id);
+            if (telemetry == null) {
+                continue;
+            }
+            messagingTemplate.convertAndSend(BICYCLE_TOPIC_PREFIX + id, telemetry);
+            if (telemetry.getLatitude() != null && telemetry.getLongitude() != null) {
+                messagingTemplate.convertAndSend(
+                        TelemetryCells.CELL_TOPIC_PREFIX + TelemetryCells.cellOf(telemetry.getLatitude(), telemetry.getLongitude()),
+                        telemetry);
+            }
+            if (globalTopicEnabled) {
+                messagingTemplate.convertAndSend(GLOBAL_TOPIC, telemetry);
+            }
+        }
+    }
+
+    // Conserva el último valor no nulo de cada campo dentro de la ventana
+    private static BicycleTelemetryDTO merge(BicycleTelemetryDTO older, BicycleTelemetryDTO newer) {
+        BicycleTelemetryDTO merged = new BicycleTelemetryDTO();
+        merged.setIdBicycle(newer.getIdBicycle());
+        merged.setPadlockStatus(newer.getPadlockStatus() != null ? newer.getPadlockStatus() : older.getPadlockStatus());
+        merged.setLatitude(newer.getLatitude() != null ? newer.getLatitude() : older.getLatitude());
+        merged.setLongitude(newer.getLongitude() != null ? newer.getLongitude() : older.getLongitude());
+        merged.setBattery(newer.getBattery() != null ? newer.getBattery() : older.getBattery());
+        merged.setTimestamp(newer.getTimestamp() != null ? newer.getTimestamp() : older.getTimestamp());
+        return merged;
+    }
 
-        // Ejemplo de topic por bicicleta:
-        String topic = "/topic/bicycle.location";
-        System.out.println("Sending telemetry to topic: " + topic);
-        messagingTemplate.convertAndSend(topic, telemetry);
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
     }
-}
\ No newline at end of file
+}
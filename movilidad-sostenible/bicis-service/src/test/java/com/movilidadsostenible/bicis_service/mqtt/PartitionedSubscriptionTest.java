@@ -0,0 +1,166 @@
+package com.movilidadsostenible.bicis_service.mqtt;
+
+import com.hivemq.embedded.EmbeddedHiveMQ;
+import com.movilidadsostenible.mqtt.DevicePartitions;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Réplicas suscritas sin grupo a un broker embebido: todas reciben cada mensaje y solo la dueña
+ * de la bici lo procesa.
+ */
+class PartitionedSubscriptionTest {
+
+    private static final String FILTER = "bikes/+/telemetry";
+    private static final int MESSAGES = 200;
+
+    @TempDir
+    static Path tempDir;
+
+    private static EmbeddedHiveMQ broker;
+    private static String brokerUrl;
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Path config = Files.createDirectories(tempDir.resolve("conf"));
+        Files.writeString(config.resolve("config.xml"), """
+                <hivemq>
+                    <listeners>
+                        <tcp-listener>
+                            <port>%d</port>
+                            <bind-address>127.0.0.1</bind-address>
+                        </tcp-listener>
+                    </listeners>
+                </hivemq>
+                """.formatted(port));
+        broker = EmbeddedHiveMQ.builder()
+                .withConfigurationFolder(config)
+                .withDataFolder(Files.createDirectories(tempDir.resolve("data")))
+                .withExtensionsFolder(Files.createDirectories(tempDir.resolve("extensions")))
+                .build();
+        broker.start().get(60, TimeUnit.SECONDS);
+        brokerUrl = "tcp://127.0.0.1:" + port;
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        if (broker != null) {
+            broker.stop().join();
+        }
+    }
+
+    @Test
+    void everyBikeIsProcessedByExactlyOneReplicaInOrder() throws Exception {
+        List<String> members = List.of("replica-0", "replica-1", "replica-2");
+        Map<String, AtomicInteger> received = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> processed = new ConcurrentHashMap<>();
+        Map<String, Set<String>> owners = new ConcurrentHashMap<>();
+        Map<String, List<Integer>> sequences = new ConcurrentHashMap<>();
+        List<MqttClient> replicas = new ArrayList<>();
+        for (String member : members) {
+            DevicePartitions partitions = new DevicePartitions(member);
+            partitions.updateMembers(members);
+            replicas.add(subscriber(member, (topic, payload) -> {
+                received.computeIfAbsent(topic + "#" + payload, k -> new AtomicInteger()).incrementAndGet();
+                String bike = MqttSubscriber.extractBikeId(topic);
+                if (partitions.owns(bike)) {
+                    processed.computeIfAbsent(topic + "#" + payload, k -> new AtomicInteger()).incrementAndGet();
+                    owners.computeIfAbsent(bike, k -> ConcurrentHashMap.newKeySet()).add(member);
+                    sequences.computeIfAbsent(bike, k -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(Integer.parseInt(payload.replaceAll("\\D", "")));
+                }
+            }));
+        }
+
+        publish(MESSAGES);
+
+        awaitDeliveries(received, MESSAGES * members.size());
+        // Todas las réplicas ven todo (vistas locales completas) ...
+        assertThat(received.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(members.size()));
+        // ... pero cada mensaje se procesa una sola vez, siempre en la réplica dueña de la bici y en orden
+        assertThat(processed).hasSize(MESSAGES);
+        assertThat(processed.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+        assertThat(owners.values()).allSatisfy(replica -> assertThat(replica).hasSize(1));
+        assertThat(sequences.values()).allSatisfy(sequence -> assertThat(sequence).isSorted());
+        disconnect(replicas);
+    }
+
+    private static MqttClient subscriber(String clientId, BiConsumer<String, String> handler) throws MqttException {
+        MqttClient client = new MqttClient(brokerUrl, clientId, new MemoryPersistence());
+        client.setCallback(new MqttCallback() {
+            @Override
+            public void connectionLost(Throwable cause) {
+            }
+
+            @Override
+            public void messageArrived(String topic, MqttMessage message) {
+                handler.accept(topic, new String(message.getPayload(), StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public void deliveryComplete(IMqttDeliveryToken token) {
+            }
+        });
+        client.connect();
+        client.subscribe(FILTER, 1);
+        return client;
+    }
+
+    private static void publish(int messages) throws MqttException {
+        MqttClient publisher = new MqttClient(brokerUrl, "publisher-" + System.nanoTime(), new MemoryPersistence());
+        publisher.connect();
+        for (int i = 0; i < messages; i++) {
+            publisher.publish("bikes/ELEC-" + (i % 20) + "/telemetry", ("{\"n\":" + i + "}").getBytes(StandardCharsets.UTF_8), 1, false);
+        }
+        publisher.disconnect();
+        publisher.close();
+    }
+
+    private static void awaitDeliveries(Map<String, AtomicInteger> deliveries, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (total(deliveries) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        // Margen para detectar entregas duplicadas tardías
+        Thread.sleep(300);
+    }
+
+    private static int total(Map<String, AtomicInteger> deliveries) {
+        return deliveries.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    private static void disconnect(List<MqttClient> clients) throws MqttException {
+        for (MqttClient client : clients) {
+            client.disconnect();
+            client.close();
+        }
+    }
+}
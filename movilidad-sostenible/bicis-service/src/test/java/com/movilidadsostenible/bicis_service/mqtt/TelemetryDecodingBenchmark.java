@@ -0,0 +1,84 @@
+package com.movilidadsostenible.bicis_service.mqtt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movilidadsostenible.bicis_service.model.dto.BicycleTelemetryDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la decodificación de telemetría anterior (String intermedio + readValue + split del tópico)
+ * con la actual (ObjectReader sobre el byte[] + lectura del tópico con indexOf).
+ *
+ * Ejecutar desde bicis-service, tras {@code mvn test-compile}:
+ * {@code java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *   com.movilidadsostenible.bicis_service.mqtt.TelemetryDecodingBenchmark}
+ * La columna {@code gc.alloc.rate.norm} es el número de bytes asignados por mensaje.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TelemetryDecodingBenchmark {
+
+    private static final String TOPIC = "bikes/ELEC-123456/telemetry";
+    private static final byte[] PAYLOAD = ("{\"idBicycle\":\"ELEC-123456\",\"padlockStatus\":\"UNLOCKED\","
+            + "\"latitude\":4.653312,\"longitude\":-74.083611,\"battery\":87.5,\"timestamp\":1733050000000}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Benchmark
+    public BicycleTelemetryDTO legacy() throws IOException {
+        // Camino anterior: split del tópico en messageArrived y de nuevo al procesar, String del payload
+        String idFromTopic = legacyExtractBikeId(TOPIC);
+        legacyExtractBikeId(TOPIC);
+        String payloadStr = new String(PAYLOAD, StandardCharsets.UTF_8);
+        BicycleTelemetryDTO telemetry = objectMapper.readValue(payloadStr, BicycleTelemetryDTO.class);
+        if (telemetry.getIdBicycle() == null) {
+            telemetry.setIdBicycle(idFromTopic);
+        }
+        return telemetry;
+    }
+
+    @Benchmark
+    public BicycleTelemetryDTO current() throws IOException {
+        String idFromTopic = MqttSubscriber.extractBikeId(TOPIC);
+        BicycleTelemetryDTO telemetry = MqttSubscriber.TELEMETRY_READER.readValue(PAYLOAD);
+        if (telemetry.getIdBicycle() == null) {
+            telemetry.setIdBicycle(idFromTopic);
+        }
+        return telemetry;
+    }
+
+    private static String legacyExtractBikeId(String topic) {
+        String[] parts = topic.split("/");
+        if (parts.length >= 3 && "bikes".equals(parts[0]) && "telemetry".equals(parts[2])) {
+            return parts[1];
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TelemetryDecodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,118 @@
+package com.movilidadsostenible.bicis_service.mqtt;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TelemetryDispatcherTest {
+
+    private final TelemetryDispatcher dispatcher = new TelemetryDispatcher();
+
+    private void start(int lanes, int maxInFlight) {
+        ReflectionTestUtils.setField(dispatcher, "lanes", lanes);
+        ReflectionTestUtils.setField(dispatcher, "maxInFlight", maxInFlight);
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void stop() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void keepsPerKeyOrderWhileKeysSpreadAcrossLanes() throws Exception {
+        start(4, 64);
+        int keys = 40;
+        int perKey = 100;
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        Set<String> lanesUsed = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(keys * perKey);
+
+        for (int n = 0; n < perKey; n++) {
+            for (int k = 0; k < keys; k++) {
+                String key = "ELEC-" + k;
+                int sequence = n;
+                dispatcher.dispatch(key, () -> {
+                    if (ThreadLocalRandom.current().nextInt(50) == 0) {
+                        Thread.yield();
+                    }
+                    lanesUsed.add(Thread.currentThread().getName());
+                    seen.computeIfAbsent(key, x -> Collections.synchronizedList(new ArrayList<>())).add(sequence);
+                }, done::countDown);
+            }
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(lanesUsed).hasSizeGreaterThan(1);
+        assertThat(seen).hasSize(keys);
+        seen.forEach((key, sequences) -> assertThat(sequences).as(key).hasSize(perKey).isSorted());
+        assertThat(dispatcher.inFlightCount()).isZero();
+    }
+
+    @Test
+    void blocksAtMaxInFlightUntilATaskFinishes() throws Exception {
+        start(2, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch("a", () -> await(release), () -> { });
+        dispatcher.dispatch("b", () -> await(release), () -> { });
+        assertThat(dispatcher.inFlightCount()).isEqualTo(2);
+
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> {
+            try {
+                dispatcher.dispatch("c", () -> { }, () -> { });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // El hilo de Paho queda bloqueado: el broker deja de entregar
+        assertThatThrownBy(() -> third.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+        release.countDown();
+        third.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void releasesThePermitAndAcksWhenTheTaskFails() throws Exception {
+        start(1, 1);
+        CountDownLatch acked = new CountDownLatch(1);
+        dispatcher.dispatch("a", () -> {
+            throw new IllegalStateException("payload inválido");
+        }, acked::countDown);
+
+        assertThat(acked.await(5, TimeUnit.SECONDS)).isTrue();
+        // Con un solo permiso, el siguiente mensaje no queda bloqueado
+        CountDownLatch next = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> {
+            try {
+                dispatcher.dispatch("a", () -> { }, next::countDown);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(next.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(dispatcher.inFlightCount()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
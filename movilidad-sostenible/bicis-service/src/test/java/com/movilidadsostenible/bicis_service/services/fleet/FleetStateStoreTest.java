@@ -0,0 +1,134 @@
+package com.movilidadsostenible.bicis_service.services.fleet;
+
+import com.movilidadsostenible.bicis_service.model.dto.BatteryForecastDTO;
+import com.movilidadsostenible.bicis_service.model.dto.NearbyBicycleDTO;
+import com.movilidadsostenible.bicis_service.model.entity.Bicycle;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FleetStateStoreTest {
+
+    @Test
+    void appliesTelemetryOnlyToKnownBicycles() {
+        FleetStateStore store = new FleetStateStore();
+        store.upsert(bicycle("ELEC-000001", "ELECTRIC"));
+
+        assertThat(store.applyTelemetry("ELEC-000001", 4.65, -74.05, 80.5, "UNLOCKED", 1_000L)).isTrue();
+        assertThat(store.applyTelemetry("ELEC-999999", 4.65, -74.05, 80.5, "UNLOCKED", 1_000L)).isFalse();
+
+        Bicycle b = store.get("ELEC-000001").orElseThrow();
+        assertThat(b.getLatitude()).isEqualTo(4.65);
+        assertThat(b.getLength()).isEqualTo(-74.05);
+        assertThat(b.getBattery()).isEqualTo(80.5);
+        assertThat(b.getPadlockStatus()).isEqualTo("UNLOCKED");
+        assertThat(b.getModel()).isEqualTo("ELECTRIC");
+        assertThat(b.getLastUpdate()).isEqualTo(new Date(1_000L));
+    }
+
+    @Test
+    void keepsLookupsConsistentAcrossGrowthAndRemovals() {
+        FleetStateStore store = new FleetStateStore();
+        int total = 5_000;
+        for (int i = 0; i < total; i++) {
+            store.upsert(bicycle(String.format("MECH-%06d", i), "MECHANIC"));
+        }
+        for (int i = 0; i < total; i += 3) {
+            store.remove(String.format("MECH-%06d", i));
+        }
+
+        for (int i = 0; i < total; i++) {
+            String id = String.format("MECH-%06d", i);
+            assertThat(store.contains(id)).as(id).isEqualTo(i % 3 != 0);
+        }
+        assertThat(store.size()).isEqualTo(total - (total + 2) / 3);
+        assertThat(store.snapshot()).hasSize(store.size());
+        // La rejilla sigue las filas compactadas: todas en (0, 0), cada una una sola vez
+        assertThat(store.nearby(0, 0, 100, null, null, total))
+                .extracting(NearbyBicycleDTO::getIdBicycle)
+                .doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(store.ids());
+    }
+
+    @Test
+    void findsNearbyBicyclesAcrossCellsAndFollowsTelemetry() {
+        FleetStateStore store = new FleetStateStore();
+        store.upsert(bicycle("ELEC-000001", "ELECTRIC", 4.6533, -74.0836, 90));
+        store.upsert(bicycle("ELEC-000002", "ELECTRIC", 4.6560, -74.0836, 10));   // ~300 m, otra celda
+        store.upsert(bicycle("MECH-000003", "MECHANIC", 4.6540, -74.0840, 0));    // ~90 m
+        store.upsert(bicycle("ELEC-000004", "ELECTRIC", 4.7000, -74.0836, 90));   // ~5 km
+
+        assertThat(store.nearby(4.6533, -74.0836, 500, null, null, 10))
+                .extracting(NearbyBicycleDTO::getIdBicycle)
+                .containsExactly("ELEC-000001", "MECH-000003", "ELEC-000002");
+        assertThat(store.nearby(4.6533, -74.0836, 500, "ELECTRIC", 50.0, 10))
+                .extracting(NearbyBicycleDTO::getIdBicycle)
+                .containsExactly("ELEC-000001");
+        assertThat(store.nearby(4.6533, -74.0836, 500, "CARGO", null, 10)).isEmpty();
+
+        store.applyTelemetry("ELEC-000004", 4.6534, -74.0836, null, null, 2_000L);
+        store.remove("MECH-000003");
+        assertThat(store.nearby(4.6533, -74.0836, 500, null, null, 2))
+                .extracting(NearbyBicycleDTO::getIdBicycle)
+                .containsExactly("ELEC-000001", "ELEC-000004");
+    }
+
+    @Test
+    void forecastsElectricBicyclesRunningLowFromObservedDrain() {
+        FleetStateStore store = new FleetStateStore();
+        store.upsert(bicycle("ELEC-000001", "ELECTRIC", 4.65, -74.08, 50));
+        store.upsert(bicycle("ELEC-000002", "ELECTRIC", 4.65, -74.08, 90));
+        store.upsert(bicycle("ELEC-000003", "ELECTRIC", 4.65, -74.08, 15));
+        store.upsert(bicycle("MECH-000004", "MECHANIC", 4.65, -74.08, 0));
+
+        long minute = 60_000L;
+        // ELEC-000001 baja 0.5 %/min; ELEC-000002 se mantiene y luego carga
+        for (int t = 0; t <= 10; t++) {
+            store.applyTelemetry("ELEC-000001", null, null, 50.0 - 0.5 * t, null, t * minute);
+            store.applyTelemetry("ELEC-000002", null, null, 90.0, null, t * minute);
+        }
+        store.applyTelemetry("ELEC-000002", null, null, 100.0, null, 11 * minute);
+
+        List<BatteryForecastDTO> atRisk = store.batteryAtRisk(60, 20);
+
+        assertThat(atRisk).extracting(BatteryForecastDTO::getIdBicycle)
+                .containsExactly("ELEC-000003", "ELEC-000001");
+        BatteryForecastDTO draining = atRisk.get(1);
+        assertThat(draining.getDrainPerHour()).isCloseTo(30.0, within(0.01));
+        assertThat(draining.getMinutesToThreshold()).isCloseTo(50.0, within(0.01));
+        assertThat(store.batteryAtRisk(30, 20)).extracting(BatteryForecastDTO::getIdBicycle)
+                .containsExactly("ELEC-000003");
+
+        // La reconciliación trae una batería nueva: el consumo anterior deja de valer
+        Bicycle swapped = bicycle("ELEC-000001", "ELECTRIC", 4.65, -74.08, 100);
+        swapped.setLastUpdate(new Date(12 * minute));
+        store.reconcile(swapped);
+        assertThat(store.batteryAtRisk(24 * 60, 20)).extracting(BatteryForecastDTO::getIdBicycle)
+                .containsExactly("ELEC-000003");
+        // La pendiente siguiente se mide desde el instante de la reconciliación
+        store.applyTelemetry("ELEC-000001", null, null, 99.5, null, 13 * minute);
+        assertThat(store.batteryAtRisk(24 * 60, 20)).filteredOn(f -> f.getIdBicycle().equals("ELEC-000001"))
+                .singleElement().extracting(BatteryForecastDTO::getDrainPerHour).isEqualTo(30.0);
+    }
+
+    private static Bicycle bicycle(String id, String model, double lat, double lon, double battery) {
+        Bicycle b = bicycle(id, model);
+        b.setLatitude(lat);
+        b.setLength(lon);
+        b.setBattery(battery);
+        return b;
+    }
+
+    private static Bicycle bicycle(String id, String model) {
+        Bicycle b = new Bicycle();
+        b.setIdBicycle(id);
+        b.setSeries(2025);
+        b.setModel(model);
+        b.setPadlockStatus("LOCKED");
+        return b;
+    }
+}
@@ -0,0 +1,90 @@
+package com.movilidadsostenible.bicis_service.services.maintenance;
+
+import com.movilidadsostenible.bicis_service.model.dto.BicycleTelemetryDTO;
+import com.movilidadsostenible.bicis_service.rabbit.publisher.BicisPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class MaintenanceAlertServiceTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private final BicisPublisher publisher = mock(BicisPublisher.class);
+    private MaintenanceAlertService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new MaintenanceAlertService(publisher, new SimpleMeterRegistry(), now::get);
+        ReflectionTestUtils.setField(service, "cooldownMs", 60_000L);
+        ReflectionTestUtils.setField(service, "flushIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(service, "batchSize", 100);
+        ReflectionTestUtils.setField(service, "queueCapacity", 100);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(service, "pending", new LinkedBlockingDeque<>());
+        service.stop();
+    }
+
+    @Test
+    void publishesOnlyOnTransitionsAndAfterCooldown() {
+        report("LOCKED");        // sin estado previo y OK: nada
+        report("ERROR");         // OK -> ERROR
+        report("ERROR");         // dentro del cooldown
+        now.addAndGet(30_000);
+        report("ERROR");         // aún dentro del cooldown
+        now.addAndGet(30_000);
+        report("ERROR");         // cooldown cumplido: re-notifica
+        report("UNLOCKED");      // ERROR -> OK
+        report("LOCKED");        // OK -> OK
+
+        service.flush();
+
+        assertThat(published()).extracting(BicycleTelemetryDTO::getPadlockStatus)
+                .containsExactly("ERROR", "ERROR", "UNLOCKED");
+    }
+
+    @Test
+    void keepsBatchWhenBrokerDoesNotConfirm() {
+        doThrow(new AmqpException("nack")).when(publisher).sendMaintenanceBatch(anyList());
+        report("ERROR");
+
+        assertThatThrownBy(service::flush).isInstanceOf(AmqpException.class);
+        assertThat(service.pendingCount()).isEqualTo(1);
+    }
+
+    private void report(String status) {
+        BicycleTelemetryDTO telemetry = new BicycleTelemetryDTO();
+        telemetry.setIdBicycle("ELEC-000001");
+        telemetry.setPadlockStatus(status);
+        service.onPadlockStatus(telemetry, status, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BicycleTelemetryDTO> published() {
+        ArgumentCaptor<List<BicycleTelemetryDTO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(publisher, atLeastOnce()).sendMaintenanceBatch(captor.capture());
+        List<BicycleTelemetryDTO> all = new ArrayList<>();
+        captor.getAllValues().forEach(all::addAll);
+        return all;
+    }
+}
@@ -0,0 +1,58 @@
+package com.movilidadsostenible.bicis_service.services.station;
+
+import com.movilidadsostenible.bicis_service.clients.StationClientRest;
+import com.movilidadsostenible.bicis_service.model.dto.StationChangedEventDTO;
+import com.movilidadsostenible.bicis_service.model.dto.StationDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StationGeometryCacheTest {
+
+    private final StationClientRest client = mock(StationClientRest.class);
+    private final StationGeometryCache cache = new StationGeometryCache(client);
+
+    @Test
+    void servesLoadedStationsAndAppliesChangeEventsWithoutNetwork() {
+        when(client.getAll()).thenReturn(List.of(station(1, 4.60, -74.07), station(2, 4.65, -74.05)));
+        cache.reload();
+
+        assertThat(cache.find(1)).get().extracting(StationDTO::getLatitude).isEqualTo(4.60);
+
+        cache.onStationChanged(new StationChangedEventDTO(1, "UPDATED", 4.61, -74.08, 0L));
+        cache.onStationChanged(new StationChangedEventDTO(2, "DELETED", null, null, 0L));
+
+        StationDTO moved = cache.find(1).orElseThrow();
+        assertThat(moved.getLatitude()).isEqualTo(4.61);
+        assertThat(moved.getStationName()).isEqualTo("EST-1");
+        assertThat(cache.size()).isEqualTo(1);
+        verify(client, never()).getById(1);
+    }
+
+    @Test
+    void fetchesAndKeepsStationsMissingFromTheCache() {
+        when(client.getById(7)).thenReturn(ResponseEntity.ok(station(7, 4.70, -74.03)));
+
+        assertThat(cache.find(7)).isPresent();
+        assertThat(cache.find(7)).isPresent();
+
+        verify(client, times(1)).getById(7);
+    }
+
+    private static StationDTO station(int id, double lat, double lon) {
+        StationDTO s = new StationDTO();
+        s.setIdStation(id);
+        s.setStationName("EST-" + id);
+        s.setLatitude(lat);
+        s.setLength(lon);
+        return s;
+    }
+}
@@ -0,0 +1,123 @@
+package com.movilidadsostenible.bicis_service.services.telemetry;
+
+import com.movilidadsostenible.bicis_service.model.dto.BicycleTelemetryDTO;
+import com.movilidadsostenible.bicis_service.services.telemetry.BicycleTelemetryWriteBehind.PendingTelemetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BicycleTelemetryWriteBehindTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final BicycleTelemetryWriteBehind writeBehind =
+            new BicycleTelemetryWriteBehind(jdbcTemplate, new SimpleMeterRegistry());
+
+    private void start(int flushMaxUpdates) {
+        // El flush periódico queda fuera de la prueba
+        ReflectionTestUtils.setField(writeBehind, "flushIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(writeBehind, "flushMaxUpdates", flushMaxUpdates);
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 500);
+        writeBehind.start();
+    }
+
+    @AfterEach
+    void stop() {
+        writeBehind.stop();
+    }
+
+    @Test
+    void mergeKeepsEarlierValuesWhereTheNewerUpdateIsNull() {
+        PendingTelemetry older = new PendingTelemetry(4.6, -74.0, 80.0, "LOCKED", 1_000L, 10L);
+        PendingTelemetry newer = new PendingTelemetry(null, -74.1, null, null, 2_000L, 20L);
+
+        PendingTelemetry merged = older.mergeWith(newer);
+
+        assertThat(merged).isEqualTo(new PendingTelemetry(4.6, -74.1, 80.0, "LOCKED", 2_000L, 10L));
+        // Un timestamp anterior no hace retroceder la fila
+        assertThat(newer.mergeWith(older).timestamp()).isEqualTo(2_000L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBatchReturnsToThePendingSetWithoutOverridingNewerUpdates() {
+        start(Integer.MAX_VALUE);
+        writeBehind.enqueue(telemetry("ELEC-000001", 4.6, -74.0, 80.0, 1_000L), "LOCKED");
+        // La actualización llega mientras el batch está en vuelo y luego el batch falla
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    writeBehind.enqueue(telemetry("ELEC-000001", null, null, 75.0, 2_000L), null);
+                    throw new DataAccessResourceFailureException("sin conexión");
+                });
+
+        assertThatThrownBy(writeBehind::flush).isInstanceOf(DataAccessResourceFailureException.class);
+
+        Map<String, PendingTelemetry> dirty = (Map<String, PendingTelemetry>) ReflectionTestUtils.getField(writeBehind, "dirty");
+        PendingTelemetry pending = dirty.get("ELEC-000001");
+        assertThat(pending.latitude()).isEqualTo(4.6);
+        assertThat(pending.longitude()).isEqualTo(-74.0);
+        assertThat(pending.battery()).isEqualTo(75.0);
+        assertThat(pending.padlockStatus()).isEqualTo("LOCKED");
+        assertThat(pending.timestamp()).isEqualTo(2_000L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushesOnceMaxUpdatesIsReachedWithAStaleRowGuard() throws Exception {
+        start(3);
+        writeBehind.enqueue(telemetry("ELEC-000001", 4.6, -74.0, null, 1_000L), null);
+        writeBehind.enqueue(telemetry("ELEC-000001", 4.7, -74.0, null, 2_000L), null);
+        writeBehind.enqueue(telemetry("ELEC-000002", 4.8, -74.0, 50.0, 3_000L), "UNLOCKED");
+
+        ArgumentCaptor<List<Map.Entry<String, PendingTelemetry>>> batch = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Map.Entry<String, PendingTelemetry>>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate, timeout(2_000)).batchUpdate(contains("f_last_update <= ?"), batch.capture(), eq(2), setter.capture());
+        assertThat(batch.getValue()).extracting(Map.Entry::getKey).containsExactlyInAnyOrder("ELEC-000001", "ELEC-000002");
+
+        Map.Entry<String, PendingTelemetry> first = batch.getValue().stream()
+                .filter(e -> e.getKey().equals("ELEC-000001")).findFirst().orElseThrow();
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, first);
+        // Nulo se escribe como NULL y el COALESCE conserva el valor de la BD
+        verify(ps).setObject(1, 4.7, Types.DOUBLE);
+        verify(ps).setObject(3, null, Types.DOUBLE);
+        verify(ps).setString(6, "ELEC-000001");
+        // El mismo timestamp es el nuevo f_last_update y el tope del guard
+        verify(ps).setTimestamp(5, new Timestamp(2_000L));
+        verify(ps).setTimestamp(7, new Timestamp(2_000L));
+    }
+
+    private static BicycleTelemetryDTO telemetry(String id, Double lat, Double lon, Double battery, long timestamp) {
+        BicycleTelemetryDTO dto = new BicycleTelemetryDTO();
+        dto.setIdBicycle(id);
+        dto.setLatitude(lat);
+        dto.setLongitude(lon);
+        dto.setBattery(battery);
+        dto.setTimestamp(timestamp);
+        return dto;
+    }
+}
@@ -1,6 +1,8 @@
 package com.movilidadsostenible.ciudad_service.controllers;
 
+import com.movilidadsostenible.ciudad_service.models.dto.CitySnapshotDTO;
 import com.movilidadsostenible.ciudad_service.models.entity.City;
+import com.movilidadsostenible.ciudad_service.publisher.CityPublisher;
 import com.movilidadsostenible.ciudad_service.services.CityService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,10 +10,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -23,9 +27,11 @@ import java.util.Optional;
 public class CityController {
 
     private final CityService service;
+    private final CityPublisher cityPublisher;
 
-    public CityController(CityService service) {
+    public CityController(CityService service, CityPublisher cityPublisher) {
         this.service = service;
+        this.cityPublisher = cityPublisher;
     }
 
     @GetMapping
@@ -34,6 +40,25 @@ public class CityController {
         return ResponseEntity.ok(service.findAll());
     }
 
+    @GetMapping("/snapshot")
+    @Operation(summary = "Catálogo versionado de ciudades",
+            description = "Devuelve todas las ciudades con una versión calculada sobre el contenido. "
+                    + "Responde con ETag; si If-None-Match coincide responde 304 sin cuerpo.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Catálogo actual",
+                            content = @Content(schema = @Schema(implementation = CitySnapshotDTO.class))),
+                    @ApiResponse(responseCode = "304", description = "Sin cambios desde la versión indicada")
+            })
+    public ResponseEntity<CitySnapshotDTO> snapshot(WebRequest request) {
+        CitySnapshotDTO snapshot = service.snapshot();
+        String etag = "\"" + snapshot.getVersion() + "\"";
+        // checkNotModified acepta validadores débiles y listas y deja el ETag; "*" Spring no lo cuenta en un GET
+        if (request.checkNotModified(etag) || "*".equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(snapshot);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener ciudad por id",
             responses = {
@@ -52,6 +77,7 @@ public class CityController {
     public ResponseEntity<?> create(@Valid @RequestBody City city, BindingResult result) {
         if (result.hasErrors()) return validate(result);
         City saved = service.save(city);
+        cityPublisher.sendCityChangedEvent("CREATED", saved.getIdCity(), saved);
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
@@ -65,7 +91,9 @@ public class CityController {
         if (opt.isEmpty()) return ResponseEntity.notFound().build();
         City db = opt.get();
         db.setCityName(city.getCityName());
-        return ResponseEntity.status(HttpStatus.CREATED).body(service.save(db));
+        City saved = service.save(db);
+        cityPublisher.sendCityChangedEvent("UPDATED", saved.getIdCity(), saved);
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
     @DeleteMapping("/{id}")
@@ -74,6 +102,7 @@ public class CityController {
         Optional<City> opt = service.findById(id);
         if (opt.isEmpty()) return ResponseEntity.notFound().build();
         service.deleteById(id);
+        cityPublisher.sendCityChangedEvent("DELETED", id, null);
         return ResponseEntity.noContent().build();
     }
 
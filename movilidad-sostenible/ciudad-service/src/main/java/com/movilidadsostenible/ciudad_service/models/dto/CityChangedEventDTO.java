@@ -0,0 +1,18 @@
+package com.movilidadsostenible.ciudad_service.models.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento que se publica al crear, actualizar o eliminar una ciudad.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CityChangedEventDTO {
+    private Integer idCity;
+    private String action;
+    private String cityName;
+    private Long timestamp;
+}
@@ -0,0 +1,20 @@
+package com.movilidadsostenible.ciudad_service.models.dto;
+
+import com.movilidadsostenible.ciudad_service.models.entity.City;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Catálogo completo de ciudades. {@code version} se calcula sobre el contenido, así que es la
+ * misma en todas las réplicas mientras el catálogo no cambie.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CitySnapshotDTO {
+    private String version;
+    private List<City> cities;
+}
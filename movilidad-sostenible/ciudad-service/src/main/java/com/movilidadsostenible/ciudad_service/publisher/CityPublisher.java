@@ -0,0 +1,39 @@
+package com.movilidadsostenible.ciudad_service.publisher;
+
+import com.movilidadsostenible.ciudad_service.models.dto.CityChangedEventDTO;
+import com.movilidadsostenible.ciudad_service.models.entity.City;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CityPublisher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CityPublisher.class);
+
+    @Value("${rabbitmq.exchange.city.events}")
+    private String cityEventsExchange;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    public CityPublisher(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    /**
+     * Publica el cambio con routing key {@code city.<action>}. Un fallo no debe tumbar la
+     * petición REST: las cachés remotas se recargan periódicamente.
+     */
+    public void sendCityChangedEvent(String action, Integer idCity, City city) {
+        CityChangedEventDTO event = new CityChangedEventDTO(idCity, action,
+                city != null ? city.getCityName() : null, System.currentTimeMillis());
+        try {
+            rabbitTemplate.convertAndSend(cityEventsExchange, "city." + action.toLowerCase(), event);
+            LOGGER.info("Evento de ciudad enviado -> {}", event);
+        } catch (Exception e) {
+            LOGGER.warn("No fue posible publicar el evento de ciudad {}: {}", event, e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.movilidadsostenible.ciudad_service.services;
 
+import com.movilidadsostenible.ciudad_service.models.dto.CitySnapshotDTO;
 import com.movilidadsostenible.ciudad_service.models.entity.City;
 
 import java.util.List;
@@ -10,5 +11,6 @@ public interface CityService {
     Optional<City> findById(Integer id);
     City save(City city);
     void deleteById(Integer id);
+    CitySnapshotDTO snapshot();
 }
 
@@ -1,10 +1,14 @@
 package com.movilidadsostenible.ciudad_service.services;
 
+import com.movilidadsostenible.ciudad_service.models.dto.CitySnapshotDTO;
 import com.movilidadsostenible.ciudad_service.models.entity.City;
 import com.movilidadsostenible.ciudad_service.repositories.CityRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -35,5 +39,16 @@ public class CityServiceImpl implements CityService {
     public void deleteById(Integer id) {
         repository.deleteById(id);
     }
-}
 
+    @Override
+    public CitySnapshotDTO snapshot() {
+        List<City> cities = new ArrayList<>(repository.findAll());
+        cities.sort(Comparator.comparing(City::getIdCity));
+        // Hash del contenido: igual en todas las réplicas, cambia con cualquier alta, baja o cambio de nombre
+        long hash = 1;
+        for (City city : cities) {
+            hash = 31 * hash + Objects.hash(city.getIdCity(), city.getCityName());
+        }
+        return new CitySnapshotDTO(Long.toHexString(hash) + "-" + cities.size(), cities);
+    }
+}
@@ -0,0 +1,112 @@
+/* ---------------------------------------------------- */
+/*  Migracion 8.1 -> 8.2                                */
+/*  Para bases creadas con version8.1/initdb            */
+/* ---------------------------------------------------- */
+
+-- Historial de telemetria de bicicletas (solo insercion), particionado por dia
+CREATE TABLE bicycle_telemetry
+(
+	k_id_bicycle varchar(11) NOT NULL,	-- Bicicleta que reporto la posicion.
+	f_recorded_at timestamp without time zone NOT NULL,	-- Fecha de la muestra segun la telemetria.
+	n_latitude double precision NULL,
+	n_length double precision NULL,
+	v_battery numeric(5,2) NULL,
+	t_padlock_status varchar(50) NULL
+) PARTITION BY RANGE (f_recorded_at)
+;
+
+CREATE TABLE bicycle_telemetry_default PARTITION OF bicycle_telemetry DEFAULT
+;
+
+CREATE INDEX "IX_bicycle_telemetry_bicycle_time" ON bicycle_telemetry (k_id_bicycle ASC, f_recorded_at ASC)
+;
+
+COMMENT ON TABLE bicycle_telemetry
+	IS 'Historial de posiciones de las bicicletas para reconstruir recorridos. Una particion por dia.'
+;
+
+-- Crea las particiones diarias de hoy y de los proximos dias (lo invoca bicis-service).
+-- Si la particion DEFAULT ya tiene filas del dia (el job llego tarde), Postgres no permite
+-- CREATE ... PARTITION OF: se crea la tabla suelta, se le mueven esas filas y se adjunta.
+-- Un dia que falle no impide crear los siguientes.
+CREATE OR REPLACE FUNCTION ensure_bicycle_telemetry_partitions(p_days_ahead integer)
+RETURNS void
+LANGUAGE plpgsql
+SECURITY DEFINER
+SET search_path = public
+AS $$
+DECLARE
+	d date;
+	part text;
+BEGIN
+	FOR i IN 0..p_days_ahead LOOP
+		d := current_date + i;
+		part := 'bicycle_telemetry_' || to_char(d, 'YYYYMMDD');
+		CONTINUE WHEN to_regclass(part) IS NOT NULL;
+		BEGIN
+			-- Bloquea inserciones en DEFAULT hasta adjuntar, para que no lleguen filas del dia entre medio
+			LOCK TABLE bicycle_telemetry_default IN SHARE ROW EXCLUSIVE MODE;
+			EXECUTE format('CREATE TABLE %I (LIKE bicycle_telemetry INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', part);
+			EXECUTE format('WITH moved AS (DELETE FROM bicycle_telemetry_default WHERE f_recorded_at >= %L AND f_recorded_at < %L RETURNING *) '
+				|| 'INSERT INTO %I SELECT * FROM moved', d, d + 1, part);
+			EXECUTE format('ALTER TABLE bicycle_telemetry ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', part, d, d + 1);
+		EXCEPTION WHEN OTHERS THEN
+			RAISE WARNING 'No fue posible crear la particion %: %', part, SQLERRM;
+		END;
+	END LOOP;
+END;
+$$
+;
+
+SELECT ensure_bicycle_telemetry_partitions(2)
+;
+
+GRANT SELECT, INSERT ON public.bicycle_telemetry TO manager_bicycle;
+GRANT EXECUTE ON FUNCTION ensure_bicycle_telemetry_partitions(integer) TO manager_bicycle;
+
+-- Estado de iluminacion de la estacion (lo escribe estaciones-service solo cuando cambia)
+ALTER TABLE station ADD COLUMN t_lighting_status boolean NOT NULL DEFAULT true
+;
+
+COMMENT ON COLUMN station.t_lighting_status
+	IS 'Ultimo estado reportado de la iluminacion de la estacion'
+;
+
+-- Tipo de bicicleta anclada en el slot, para buscar el primer slot disponible sin LIKE sobre k_id_bicycle
+-- (reescribe la tabla slots: ejecutar en ventana de mantenimiento)
+ALTER TABLE slots ADD COLUMN t_bike_type varchar(10) NULL
+	GENERATED ALWAYS AS (CASE WHEN k_id_bicycle LIKE 'ELEC%' THEN 'ELECTRIC' WHEN k_id_bicycle LIKE 'MECH%' THEN 'MECHANIC' END) STORED
+;
+
+COMMENT ON COLUMN slots.t_bike_type
+	IS 'Tipo de la bicicleta anclada (ELECTRIC o MECHANIC), derivado del prefijo de k_id_bicycle'
+;
+
+CREATE INDEX "IX_slots_locked_station_type" ON slots (k_id_station ASC, t_bike_type ASC, k_id_slot ASC)
+	WHERE t_padlock_status = 'LOCKED'
+;
+
+CREATE INDEX "IX_slots_unlocked_station" ON slots (k_id_station ASC, k_id_slot ASC)
+	WHERE t_padlock_status = 'UNLOCKED'
+;
+
+ANALYZE slots
+;
+
+-- Outbox de estados de candado de bicicletas a propagar desde slots-service hacia bicis-service
+CREATE TABLE bicycle_padlock_outbox
+(
+	k_id_outbox bigserial NOT NULL,	-- Orden de llegada del cambio.
+	k_id_bicycle varchar(11) NOT NULL,	-- Bicicleta a actualizar.
+	t_padlock_status varchar(50) NOT NULL,	-- Estado de candado a aplicar en bicis-service.
+	f_created_at timestamp without time zone NOT NULL DEFAULT now(),
+	CONSTRAINT "PK_bicycle_padlock_outbox" PRIMARY KEY (k_id_outbox)
+)
+;
+
+COMMENT ON TABLE bicycle_padlock_outbox
+	IS 'Cambios de candado de bicicletas escritos junto con el cambio del slot; el relay de slots-service los envia en lote a bicis-service y los borra'
+;
+
+GRANT SELECT, INSERT, DELETE ON public.bicycle_padlock_outbox TO manager_slots;
+GRANT USAGE, SELECT ON SEQUENCE public.bicycle_padlock_outbox_k_id_outbox_seq TO manager_slots;
@@ -1,13 +1,20 @@
 package com.movilidadsostenible.estaciones_service.clients;
 
+import com.movilidadsostenible.estaciones_service.model.dto.CitySnapshotDTO;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 @FeignClient(name = "ciudad-service")
 public interface CiudadClient {
 
     @GetMapping("/{id}")
     ResponseEntity<?> getCityById(@PathVariable("id") Integer id);
+
+    // Un 304 llega como FeignException con status 304
+    @GetMapping("/snapshot")
+    ResponseEntity<CitySnapshotDTO> getSnapshot(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
 }
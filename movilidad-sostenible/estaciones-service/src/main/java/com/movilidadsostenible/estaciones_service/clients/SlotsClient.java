@@ -1,14 +1,24 @@
 package com.movilidadsostenible.estaciones_service.clients;
 
+import com.movilidadsostenible.estaciones_service.model.dto.SlotBulkResultDTO;
 import com.movilidadsostenible.estaciones_service.model.dto.SlotRequestDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.StationSlotSummaryDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 @FeignClient(name = "slots-service")
 public interface SlotsClient {
     @PostMapping("/create")
     ResponseEntity<?> createSlot(@RequestBody SlotRequestDTO slot);
-}
 
+    @PostMapping("/bulk")
+    List<SlotBulkResultDTO> createSlotsBulk(@RequestBody List<SlotRequestDTO> slots);
+
+    // Máximo 1000 estaciones por llamada
+    @PostMapping("/stations/summary")
+    List<StationSlotSummaryDTO> summarizeStations(@RequestBody List<Integer> stationIds);
+}
@@ -33,6 +33,15 @@ public class RabbitConfigStations {
   @Value("${rabbitmq.routing.station.panic.button.key}")
   public String routingJsonKeyStationPanicButtonPublisher;
 
+  @Value("${rabbitmq.exchange.station.events}")
+  public String stationEventsExchangeName;
+
+  @Value("${rabbitmq.exchange.city.events}")
+  public String cityEventsExchangeName;
+
+  @Value("${rabbitmq.exchange.slot.events}")
+  public String slotEventsExchangeName;
+
 
     // spring bean for rabbitmq json queue
     @Bean
@@ -54,6 +63,50 @@ public class RabbitConfigStations {
         return new TopicExchange(jsonExchangeName);
     }
 
+    // exchange de eventos de cambio de estación; cada consumidor enlaza su propia cola
+    @Bean
+    public TopicExchange stationEventsExchange() {
+        return new TopicExchange(stationEventsExchangeName);
+    }
+
+    // eventos de ciudad-service: cola propia por réplica para invalidar la caché de ciudades
+    @Bean
+    public TopicExchange cityEventsExchange() {
+        return new TopicExchange(cityEventsExchangeName);
+    }
+
+    @Bean
+    public Queue cityEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding cityEventsBinding() {
+        return BindingBuilder
+          .bind(cityEventsQueue())
+          .to(cityEventsExchange())
+          .with("city.*");
+    }
+
+    // cambios de slots de slots-service: cola propia por réplica para los anclajes libres
+    @Bean
+    public TopicExchange slotEventsExchange() {
+        return new TopicExchange(slotEventsExchangeName);
+    }
+
+    @Bean
+    public Queue slotEventsQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding slotEventsBinding() {
+        return BindingBuilder
+          .bind(slotEventsQueue())
+          .to(slotEventsExchange())
+          .with("slot.changes");
+    }
+
     // binding between json queue and exchange using routing key
     @Bean
     public Binding jsonBindingMaintenanceStationCctvConsumer() {
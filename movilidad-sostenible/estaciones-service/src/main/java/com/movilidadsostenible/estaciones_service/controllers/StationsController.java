@@ -1,11 +1,18 @@
 package com.movilidadsostenible.estaciones_service.controllers;
 
-import com.movilidadsostenible.estaciones_service.clients.CiudadClient;
 import com.movilidadsostenible.estaciones_service.clients.SlotsClient;
+import com.movilidadsostenible.estaciones_service.model.dto.NearestStationDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.SlotBulkResultDTO;
 import com.movilidadsostenible.estaciones_service.model.dto.SlotRequestDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.StationAvailabilityDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.StationAvailabilitySnapshotDTO;
 import com.movilidadsostenible.estaciones_service.model.entity.Station;
+import com.movilidadsostenible.estaciones_service.publisher.StationPublisher;
 import com.movilidadsostenible.estaciones_service.services.StationsService;
-import feign.FeignException;
+import com.movilidadsostenible.estaciones_service.services.availability.StationAvailabilityStore;
+import com.movilidadsostenible.estaciones_service.services.availability.StationFreeSlots;
+import com.movilidadsostenible.estaciones_service.services.city.CityCache;
+import com.movilidadsostenible.estaciones_service.services.geo.StationSpatialIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,10 +20,12 @@ import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -28,14 +37,28 @@ import java.util.Optional;
 @Tag(name = "Estaciones", description = "CRUD de estaciones y creación automática de slots")
 public class StationsController {
 
+    private static final int MAX_NEAREST = 50;
+    // Slots que se aprovisionan por estación al crearla
+    private static final int SLOTS_PER_STATION = 15;
+
     private final StationsService service;
-    private final CiudadClient ciudadClient;
+    private final CityCache cityCache;
     private final SlotsClient slotsClient;
+    private final StationPublisher stationPublisher;
+    private final StationAvailabilityStore availability;
+    private final StationSpatialIndex spatialIndex;
+    private final StationFreeSlots freeSlots;
 
-    public StationsController(StationsService service, CiudadClient ciudadClient, SlotsClient slotsClient) {
+    public StationsController(StationsService service, CityCache cityCache, SlotsClient slotsClient,
+                              StationPublisher stationPublisher, StationAvailabilityStore availability,
+                              StationSpatialIndex spatialIndex, StationFreeSlots freeSlots) {
         this.service = service;
-        this.ciudadClient = ciudadClient;
+        this.cityCache = cityCache;
         this.slotsClient = slotsClient;
+        this.stationPublisher = stationPublisher;
+        this.availability = availability;
+        this.spatialIndex = spatialIndex;
+        this.freeSlots = freeSlots;
     }
 
     @GetMapping
@@ -66,6 +89,101 @@ public class StationsController {
         return ResponseEntity.of(opt);
     }
 
+    @GetMapping("/availability")
+    @Operation(
+            summary = "Disponibilidad de todas las estaciones",
+            description = "Devuelve la disponibilidad en memoria de todas las estaciones, con la versión de la tabla. "
+                    + "La versión es un hash del contenido, igual en todas las réplicas; se envía como ETag y "
+                    + "si If-None-Match coincide responde 304 sin cuerpo.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Disponibilidad actual",
+                            content = @Content(schema = @Schema(implementation = StationAvailabilitySnapshotDTO.class))),
+                    @ApiResponse(responseCode = "304", description = "Sin cambios desde la versión indicada")
+            }
+    )
+    public ResponseEntity<StationAvailabilitySnapshotDTO> availability(WebRequest request) {
+        StationAvailabilitySnapshotDTO snapshot = availability.snapshot();
+        String etag = etag(snapshot.getVersion());
+        if (notModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(snapshot);
+    }
+
+    @GetMapping("/{id}/availability")
+    @Operation(
+            summary = "Disponibilidad de una estación",
+            description = "Devuelve la disponibilidad en memoria de la estación. El ETag es un hash de sus conteos.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Disponibilidad de la estación",
+                            content = @Content(schema = @Schema(implementation = StationAvailabilityDTO.class))),
+                    @ApiResponse(responseCode = "304", description = "Sin cambios desde la versión indicada"),
+                    @ApiResponse(responseCode = "404", description = "Estación no encontrada")
+            }
+    )
+    public ResponseEntity<?> availabilityById(@PathVariable Integer id, WebRequest request) {
+        Optional<StationAvailabilityDTO> opt = availability.get(id);
+        if (opt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("mensaje", "Estación no encontrada"));
+        }
+        String etag = etag(opt.get().getVersion());
+        if (notModified(request, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(opt.get());
+    }
+
+    @GetMapping("/nearest")
+    @Operation(
+            summary = "Estaciones más cercanas",
+            description = "Devuelve las k estaciones más cercanas al punto, ordenadas por distancia, con su disponibilidad en memoria. "
+                    + "Con `needs` solo se consideran las que tienen bici eléctrica (ELECTRIC), mecánica (MECHANIC) o anclaje libre (FREE_SLOT).",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Estaciones cercanas",
+                            content = @Content(array = @ArraySchema(schema = @Schema(implementation = NearestStationDTO.class)))),
+                    @ApiResponse(responseCode = "400", description = "Coordenadas, k o needs inválidos")
+            }
+    )
+    public ResponseEntity<?> nearest(@RequestParam double lat,
+                                     @RequestParam double lon,
+                                     @RequestParam(defaultValue = "5") int k,
+                                     @RequestParam(required = false) String needs) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "Coordenadas inválidas"));
+        }
+        if (k < 1 || k > MAX_NEAREST) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "k debe estar entre 1 y " + MAX_NEAREST));
+        }
+        java.util.function.IntPredicate accept;
+        if (needs == null || needs.isBlank()) {
+            accept = id -> true;
+        } else {
+            switch (needs.trim().toUpperCase()) {
+                case "ELECTRIC" -> accept = id -> availability.get(id)
+                        .map(StationAvailabilityDTO::getAvailableElectricBikes).map(n -> n > 0).orElse(false);
+                case "MECHANIC" -> accept = id -> availability.get(id)
+                        .map(StationAvailabilityDTO::getAvailableMechanicBikes).map(n -> n > 0).orElse(false);
+                case "FREE_SLOT" -> accept = id -> {
+                    Integer free = freeSlots.get(id);
+                    return free != null && free > 0;
+                };
+                default -> {
+                    return ResponseEntity.badRequest().body(Map.of("mensaje", "needs debe ser ELECTRIC, MECHANIC o FREE_SLOT"));
+                }
+            }
+        }
+        List<NearestStationDTO> result = spatialIndex.nearest(lat, lon, k, accept).stream().map(match -> {
+            StationSpatialIndex.Entry st = match.station();
+            StationAvailabilityDTO a = availability.get(st.idStation()).orElse(null);
+            return new NearestStationDTO(st.idStation(), st.stationName(), st.latitude(), st.longitude(),
+                    match.distanceMeters(),
+                    a != null ? a.getAvailableElectricBikes() : null,
+                    a != null ? a.getAvailableMechanicBikes() : null,
+                    freeSlots.get(st.idStation()));
+        }).toList();
+        return ResponseEntity.ok(result);
+    }
+
     // Nuevo endpoint: obtener solo el campo `type` de la estación por id
     @GetMapping("/{id}/type")
     @Operation(summary = "Obtener tipo de estación por id", description = "Devuelve el campo `type` de la estación indicada por id",
@@ -123,14 +241,11 @@ public class StationsController {
         System.out.println("Creando estación: " + station);
         if (result.hasErrors()) return validate(result);
         try {
-            var resp = ciudadClient.getCityById(station.getIdCity());
-            if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null) {
+            // Caché local; solo va a ciudad-service si la ciudad no está en caché
+            if (!cityCache.exists(station.getIdCity())) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(Map.of("mensaje", "La ciudad especificada no existe"));
             }
-        } catch (FeignException.NotFound nf) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("mensaje", "La ciudad especificada no existe"));
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
                     .body(Map.of(
@@ -139,6 +254,9 @@ public class StationsController {
                     ));
         }
         Station saved = service.save(station);
+        availability.register(saved.getIdStation());
+        spatialIndex.put(saved);
+        stationPublisher.sendStationChangedEvent("CREATED", saved.getIdStation(), saved);
 
         // Prefijos robustos (manejo de nulos y longitud < 3)
         String stationName = saved.getStationName() != null ? saved.getStationName().trim() : "EST";
@@ -151,24 +269,30 @@ public class StationsController {
 
         var slotsCreados = new java.util.ArrayList<Map<String,Object>>();
 
-        for (int i = 1; i <= 15; i++) {
-            String slotId = stationPrefix + "-" + typePrefix + "-" + i;
-            try {
-                SlotRequestDTO slotReq = new SlotRequestDTO();
-
-                slotReq.setIdSlot(slotId);
-                slotReq.setPadlockStatus("UNLOCKED");
-                slotReq.setStationId(saved.getIdStation());
-                slotReq.setBicycleId(null);
-                ResponseEntity<?> slotResp = slotsClient.createSlot(slotReq);
-
+        // Todos los slots de la estación en una sola llamada (un batch en slots-service)
+        List<SlotRequestDTO> slotReqs = new java.util.ArrayList<>(SLOTS_PER_STATION);
+        for (int i = 1; i <= SLOTS_PER_STATION; i++) {
+            SlotRequestDTO slotReq = new SlotRequestDTO();
+            slotReq.setIdSlot(stationPrefix + "-" + typePrefix + "-" + i);
+            slotReq.setPadlockStatus("UNLOCKED");
+            slotReq.setStationId(saved.getIdStation());
+            slotReq.setBicycleId(null);
+            slotReqs.add(slotReq);
+        }
+        try {
+            for (SlotBulkResultDTO slotResult : slotsClient.createSlotsBulk(slotReqs)) {
                 Map<String,Object> info = new HashMap<>();
-                info.put("slotId", slotId);
-                info.put("status", slotResp.getStatusCode().value());
+                info.put("slotId", slotResult.getSlotId());
+                info.put("status", slotResult.getStatus());
+                if (slotResult.getError() != null) {
+                    info.put("error", slotResult.getError());
+                }
                 slotsCreados.add(info);
-            } catch (Exception e) {
+            }
+        } catch (Exception e) {
+            for (SlotRequestDTO slotReq : slotReqs) {
                 Map<String,Object> errorInfo = new HashMap<>();
-                errorInfo.put("slotId", slotId);
+                errorInfo.put("slotId", slotReq.getIdSlot());
                 errorInfo.put("error", e.getMessage());
                 slotsCreados.add(errorInfo);
             }
@@ -199,14 +323,11 @@ public class StationsController {
         Optional<Station> opt = service.findById(id);
         if (opt.isEmpty()) return ResponseEntity.notFound().build();
         try {
-            var resp = ciudadClient.getCityById(station.getIdCity());
-            if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null) {
+            // Caché local; solo va a ciudad-service si la ciudad no está en caché
+            if (!cityCache.exists(station.getIdCity())) {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(Map.of("mensaje", "La ciudad especificada no existe"));
             }
-        } catch (FeignException.NotFound nf) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("mensaje", "La ciudad especificada no existe"));
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
                     .body(Map.of(
@@ -221,7 +342,10 @@ public class StationsController {
         db.setLatitude(station.getLatitude());
         db.setLength(station.getLength());
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(service.save(db));
+        Station saved = service.save(db);
+        spatialIndex.put(saved);
+        stationPublisher.sendStationChangedEvent("UPDATED", saved.getIdStation(), saved);
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
     @DeleteMapping("/{id}")
@@ -237,6 +361,9 @@ public class StationsController {
         Optional<Station> opt = service.findById(id);
         if (opt.isEmpty()) return ResponseEntity.notFound().build();
         service.deleteById(id);
+        availability.remove(id);
+        spatialIndex.remove(id);
+        stationPublisher.sendStationChangedEvent("DELETED", id, null);
         return ResponseEntity.noContent().build();
     }
 
@@ -256,6 +383,18 @@ public class StationsController {
 
 
 
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Si el cliente ya tiene esta versión. checkNotModified acepta validadores débiles y listas y deja
+     * el ETag en la respuesta; "*" (cualquier versión) Spring no lo cuenta en un GET y se mira aparte.
+     */
+    private static boolean notModified(WebRequest request, String etag) {
+        return request.checkNotModified(etag) || "*".equals(request.getHeader(HttpHeaders.IF_NONE_MATCH));
+    }
+
     private ResponseEntity<Map<String, String>> validate(BindingResult result) {
         Map<String, String> errors = new HashMap<>();
         result.getFieldErrors().forEach(err -> errors.put(err.getField(), "El campo " + err.getField() + " " + err.getDefaultMessage()));
@@ -0,0 +1,15 @@
+package com.movilidadsostenible.estaciones_service.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CityDTO {
+    private Integer idCity;
+    private String cityName;
+}
@@ -0,0 +1,18 @@
+package com.movilidadsostenible.estaciones_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Catálogo de ciudades que entrega ciudad-service; la versión sirve de ETag.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CitySnapshotDTO {
+    private String version;
+    private List<CityDTO> cities;
+}
@@ -0,0 +1,24 @@
+package com.movilidadsostenible.estaciones_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estación cercana con su distancia y la disponibilidad en memoria. Los conteos de bicis son
+ * nulos si la estación aún no ha reportado telemetría; {@code freeSlots} (slots UNLOCKED según
+ * slots-service) es nulo hasta leer su resumen.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearestStationDTO {
+    private Integer idStation;
+    private String stationName;
+    private Double latitude;
+    private Double length;
+    private Double distanceMeters;
+    private Integer availableElectricBikes;
+    private Integer availableMechanicBikes;
+    private Integer freeSlots;
+}
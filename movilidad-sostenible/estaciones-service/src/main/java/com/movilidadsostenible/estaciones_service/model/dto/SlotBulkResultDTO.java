@@ -0,0 +1,14 @@
+package com.movilidadsostenible.estaciones_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotBulkResultDTO {
+    private String slotId;
+    private Integer status;
+    private String error;
+}
@@ -0,0 +1,16 @@
+package com.movilidadsostenible.estaciones_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** Lote de cambios de slots publicado por slots-service en {@code slot_events}. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotChangeBatchDTO {
+    private long epoch;
+    private List<SlotChangeEventDTO> events;
+}
@@ -0,0 +1,22 @@
+package com.movilidadsostenible.estaciones_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cambio de estado de un slot. {@code sequence} es consecutiva por estación dentro del
+ * {@code epoch} del lote; un salto indica eventos perdidos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotChangeEventDTO {
+    private Integer stationId;
+    private long sequence;
+    private String slotId;
+    private String before;
+    private String after;
+    private String bicycleId;
+    private long timestamp;
+}
@@ -0,0 +1,20 @@
+package com.movilidadsostenible.estaciones_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Disponibilidad de una estación según su última telemetría. Los conteos son nulos hasta que
+ * llega la primera; {@code version} es un hash de los conteos, el mismo en todas las réplicas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StationAvailabilityDTO {
+    private Integer idStation;
+    private Integer availableElectricBikes;
+    private Integer availableMechanicBikes;
+    private Long updatedAt;
+    private Long version;
+}
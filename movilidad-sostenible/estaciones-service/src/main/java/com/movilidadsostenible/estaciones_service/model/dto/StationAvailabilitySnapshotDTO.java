@@ -0,0 +1,15 @@
+package com.movilidadsostenible.estaciones_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StationAvailabilitySnapshotDTO {
+    private Long version;
+    private List<StationAvailabilityDTO> stations;
+}
@@ -0,0 +1,20 @@
+package com.movilidadsostenible.estaciones_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento de cambio de estación para invalidar las cachés de los demás servicios.
+ * {@code action}: CREATED, UPDATED o DELETED; en DELETED las coordenadas van nulas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StationChangedEventDTO {
+    private Integer idStation;
+    private String action;
+    private Double latitude;
+    private Double length;
+    private Long timestamp;
+}
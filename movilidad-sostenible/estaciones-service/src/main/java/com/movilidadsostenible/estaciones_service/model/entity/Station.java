@@ -36,4 +36,8 @@ public class Station {
 
   @Column(name = "t_cctv_status")
   private Boolean cctvStatus;
+
+  // Solo lo escribe StationStatusWriteBehind a partir de la telemetría
+  @Column(name = "t_lighting_status", insertable = false, updatable = false)
+  private Boolean lightingStatus;
 }
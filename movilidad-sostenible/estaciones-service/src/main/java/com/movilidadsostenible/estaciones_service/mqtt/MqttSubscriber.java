@@ -1,12 +1,19 @@
 package com.movilidadsostenible.estaciones_service.mqtt;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.movilidadsostenible.estaciones_service.model.dto.StationTelemetryDTOAdmin;
 import com.movilidadsostenible.estaciones_service.model.dto.StationTelemetryDTOUser;
-import com.movilidadsostenible.estaciones_service.model.entity.Station;
+import com.movilidadsostenible.estaciones_service.publisher.PanicAlertPublisher;
 import com.movilidadsostenible.estaciones_service.publisher.StationPublisher;
-import com.movilidadsostenible.estaciones_service.services.StationsService;
+import com.movilidadsostenible.estaciones_service.services.availability.StationAvailabilityStore;
+import com.movilidadsostenible.estaciones_service.services.status.StationStatusWriteBehind;
 import com.movilidadsostenible.estaciones_service.services.websocket.TelemetryWebSocketPublisher;
+import com.movilidadsostenible.mqtt.DevicePartitions;
+import com.movilidadsostenible.mqtt.MqttTopics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.eclipse.paho.client.mqttv3.*;
@@ -18,14 +25,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Consume la telemetría de estaciones. Cada tópico tiene su propio cliente MQTT (y por tanto su
+ * propio hilo de entrega), así que un atraso en la telemetría de usuario no retrasa la de
+ * administración. En esta, el hilo de MQTT solo publica el pánico; el resto se procesa en un
+ * hilo aparte para que la telemetría rutinaria nunca quede por delante de una alerta.
+ */
 @Component
-public class MqttSubscriber implements MqttCallbackExtended {
+public class MqttSubscriber {
 
     private static final Logger log = LoggerFactory.getLogger(MqttSubscriber.class);
 
@@ -43,57 +59,57 @@ public class MqttSubscriber implements MqttCallbackExtended {
     private String inputTopicAdmin;
     @Value("${mqtt.qos:1}")
     private int qos;
+    @Value("${stations.telemetry.admin-queue-capacity:10000}")
+    private int adminQueueCapacity;
 
     @Autowired
-    private StationsService repository;
+    private MeterRegistry meterRegistry;
 
     @Autowired
     private StationPublisher stationPublisher;
 
+    @Autowired
+    private PanicAlertPublisher panicAlertPublisher;
+
     @Autowired
     private TelemetryWebSocketPublisher webSocketPublisher;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private MqttClient client;
+    @Autowired
+    private StationAvailabilityStore availability;
+
+    @Autowired
+    private StationStatusWriteBehind statusWriteBehind;
+
+    // Cada réplica recibe todo; lo que debe pasar una vez lo hace la dueña de la estación
+    @Autowired
+    private DevicePartitions partitions;
+
+    // Lectores ligados al tipo: parsean directo del byte[]
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectReader USER_READER = MAPPER.readerFor(StationTelemetryDTOUser.class);
+    private static final ObjectReader ADMIN_READER = MAPPER.readerFor(StationTelemetryDTOAdmin.class);
+
+    private final Lane userLane = new Lane("");
+    private final Lane adminLane = new Lane("-admin");
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
+    // Un solo hilo para conservar el orden por estación; acotada para que nunca frene al hilo de MQTT
+    private ThreadPoolExecutor adminWorker;
+    private Counter adminDropped;
+
     @PostConstruct
     public void start() {
-        scheduler.execute(this::connectAndSubscribeWithRetry);
-    }
-
-    private void connectAndSubscribeWithRetry() {
-        while (true) {
-            try {
-                if (client == null) {
-                    client = new MqttClient(brokerUrl, clientId, new MemoryPersistence());
-                    client.setCallback(this);
-                }
-                MqttConnectOptions opts = new MqttConnectOptions();
-                opts.setAutomaticReconnect(true);
-                opts.setCleanSession(false); // mantener suscripciones
-                if (username != null && !username.isBlank()) {
-                    opts.setUserName(username);
-                }
-                if (password != null && !password.isBlank()) {
-                    opts.setPassword(password.toCharArray());
-                }
-                if (!client.isConnected()) {
-                    log.info("Conectando a MQTT {} como {}...", brokerUrl, clientId);
-                    client.connect(opts);
-                    log.info("Conectado a MQTT");
-                }
-
-                client.subscribe(inputTopicUser, qos);
-                client.subscribe(inputTopicAdmin, qos);
-                log.info("Suscrito a topic {} con QoS {}", inputTopicUser, qos);
-                log.info("Suscrito a topic {} con QoS {}", inputTopicAdmin, qos);
-                return; // éxito
-            } catch (Exception e) {
-                log.warn("Fallo conectando/suscribiendo a MQTT. Reintentando en 5s: {}", e.getMessage());
-                sleep(5);
-            }
-        }
+        adminWorker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(adminQueueCapacity),
+                Thread.ofPlatform().name("station-admin-telemetry").daemon().factory());
+        adminDropped = Counter.builder("station.telemetry.admin.dropped")
+                .description("Telemetría de administración descartada por cola llena").register(meterRegistry);
+        Gauge.builder("station.telemetry.admin.pending", adminWorker, e -> e.getQueue().size())
+                .description("Telemetría de administración en espera").register(meterRegistry);
+        scheduler.execute(() -> {
+            adminLane.connectAndSubscribeWithRetry(inputTopicAdmin);
+            userLane.connectAndSubscribeWithRetry(inputTopicUser);
+        });
     }
 
     private void sleep(int seconds) {
@@ -102,46 +118,112 @@ public class MqttSubscriber implements MqttCallbackExtended {
 
     @PreDestroy
     public void stop() {
+        userLane.disconnect();
+        adminLane.disconnect();
+        scheduler.shutdownNow();
+        adminWorker.shutdown();
         try {
-            if (client != null && client.isConnected()) {
-                client.disconnect();
-            }
-        } catch (Exception e) {
-            log.debug("Error al desconectar MQTT", e);
+            adminWorker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        scheduler.shutdownNow();
     }
 
-    @Override
-    public void connectComplete(boolean reconnect, String serverURI) {
-        log.info("Conexión MQTT completa. reconnect={}, uri={}", reconnect, serverURI);
-        try {
-            if (client != null && client.isConnected() ) {
-                client.subscribe(inputTopicUser, qos);
-                client.subscribe(inputTopicAdmin, qos);
+    /**
+     * Un cliente MQTT con su suscripción; el id de cliente lleva el sufijo del carril. Sin grupo:
+     * cada réplica recibe todos los mensajes del filtro.
+     */
+    private class Lane implements MqttCallbackExtended {
+
+        private final String clientIdSuffix;
+        private MqttClient client;
+        private String topicFilter;
+
+        Lane(String clientIdSuffix) {
+            this.clientIdSuffix = clientIdSuffix;
+        }
+
+        void connectAndSubscribeWithRetry(String topicFilter) {
+            this.topicFilter = topicFilter;
+            while (true) {
+                try {
+                    if (client == null) {
+                        client = new MqttClient(brokerUrl, clientId + clientIdSuffix, new MemoryPersistence());
+                        client.setCallback(this);
+                    }
+                    MqttConnectOptions opts = new MqttConnectOptions();
+                    opts.setAutomaticReconnect(true);
+                    opts.setCleanSession(false); // mantener suscripciones
+                    if (username != null && !username.isBlank()) {
+                        opts.setUserName(username);
+                    }
+                    if (password != null && !password.isBlank()) {
+                        opts.setPassword(password.toCharArray());
+                    }
+                    if (!client.isConnected()) {
+                        log.info("Conectando a MQTT {} como {}...", brokerUrl, clientId + clientIdSuffix);
+                        client.connect(opts);
+                        log.info("Conectado a MQTT");
+                    }
+
+                    client.subscribe(topicFilter, qos);
+                    log.info("Suscrito a topic {} con QoS {}", topicFilter, qos);
+                    return; // éxito
+                } catch (Exception e) {
+                    log.warn("Fallo conectando/suscribiendo a MQTT. Reintentando en 5s: {}", e.getMessage());
+                    sleep(5);
+                }
             }
-        } catch (MqttException e) {
-            log.error("Error re-suscribiendo tras reconexión", e);
         }
-    }
 
-    @Override
-    public void connectionLost(Throwable cause) {
-        log.warn("Conexión MQTT perdida: {}", cause != null ? cause.getMessage() : "");
+        void disconnect() {
+            try {
+                if (client != null && client.isConnected()) {
+                    client.disconnect();
+                }
+            } catch (Exception e) {
+                log.debug("Error al desconectar MQTT", e);
+            }
+        }
+
+        @Override
+        public void connectComplete(boolean reconnect, String serverURI) {
+            log.info("Conexión MQTT completa. reconnect={}, uri={}, cliente={}", reconnect, serverURI, clientId + clientIdSuffix);
+            try {
+                if (client != null && client.isConnected() && topicFilter != null) {
+                    client.subscribe(topicFilter, qos);
+                }
+            } catch (MqttException e) {
+                log.error("Error re-suscribiendo tras reconexión", e);
+            }
+        }
+
+        @Override
+        public void connectionLost(Throwable cause) {
+            log.warn("Conexión MQTT perdida ({}): {}", clientId + clientIdSuffix, cause != null ? cause.getMessage() : "");
+        }
+
+        @Override
+        public void messageArrived(String topic, MqttMessage message) {
+            MqttSubscriber.this.messageArrived(topic, message);
+        }
+
+        @Override
+        public void deliveryComplete(IMqttDeliveryToken token) {
+            // no publicamos desde este componente
+        }
     }
 
-    @Override
-    public void messageArrived(String topic, MqttMessage message) {
-        String payloadStr = new String(message.getPayload(), StandardCharsets.UTF_8);
+    void messageArrived(String topic, MqttMessage message) {
+        long receivedNanos = System.nanoTime();
+        byte[] payload = message.getPayload();
         boolean isUserTopic = MqttTopic.isMatched(inputTopicUser, topic);
-        boolean isAdminTopic = MqttTopic.isMatched(inputTopicAdmin, topic);
-      System.out.println(isUserTopic);
-      System.out.println(isAdminTopic);
+        boolean isAdminTopic = !isUserTopic && MqttTopic.isMatched(inputTopicAdmin, topic);
 
         if (isUserTopic) {
             try {
               Integer idFromTopic = extractStationId(topic);
-              StationTelemetryDTOUser telemetry = objectMapper.readValue(payloadStr, StationTelemetryDTOUser.class);
+              StationTelemetryDTOUser telemetry = USER_READER.readValue(payload);
               if (telemetry.getIdStation() == null) {
                 telemetry.setIdStation(idFromTopic);
               }
@@ -149,12 +231,12 @@ public class MqttSubscriber implements MqttCallbackExtended {
                 telemetry.setTimestamp(System.currentTimeMillis());
               }
               if (telemetry.getIdStation() == null) {
-                log.warn("Mensaje MQTT sin id de estacion. topic={}, payload={}", topic, payloadStr);
+                log.warn("Mensaje MQTT sin id de estacion. topic={}, payload={}", topic, new String(payload, StandardCharsets.UTF_8));
                 return;
               }
-              Optional<Station> opt = repository.findById(telemetry.getIdStation());
-              if (opt.isEmpty()) {
-                log.warn("Estacion {} no existe en BD. Ignorando telemetría.", telemetry.getIdStation());
+              if (!availability.update(telemetry.getIdStation(), telemetry.getAvailableElectricBikes(),
+                      telemetry.getAvailableMechanicBikes(), telemetry.getTimestamp())) {
+                log.warn("Estacion {} no existe. Ignorando telemetría.", telemetry.getIdStation());
                 return;
               }
               webSocketPublisher.sendTelemetryUser(telemetry);
@@ -163,63 +245,90 @@ public class MqttSubscriber implements MqttCallbackExtended {
               log.error("Error procesando mensaje MQTT", e);
             }
         } else if (isAdminTopic) {
-          try {
-            Integer idFromTopic = extractStationId(topic);
-            StationTelemetryDTOAdmin telemetry = objectMapper.readValue(payloadStr, StationTelemetryDTOAdmin.class);
-            if (telemetry.getIdStation() == null) {
-              telemetry.setIdStation(idFromTopic);
+          StationTelemetryDTOAdmin panicTelemetry = null;
+          Integer stationFromTopic = extractStationId(topic);
+          boolean owner = stationFromTopic == null || partitions.owns(stationFromTopic);
+          // Se detecta en el payload crudo: solo el pánico se atiende en el hilo de MQTT
+          if (owner && PanicPayloads.isPanic(payload)) {
+            try {
+              panicTelemetry = readAdmin(topic, payload);
+              panicAlertPublisher.publish(panicTelemetry, receivedNanos);
+            } catch (Exception e) {
+              log.error("Error procesando alerta de pánico", e);
             }
-            if (telemetry.getTimestamp() == null) {
-              telemetry.setTimestamp(System.currentTimeMillis());
+          }
+          StationTelemetryDTOAdmin alreadySent = panicTelemetry;
+          try {
+            adminWorker.execute(() -> processAdmin(topic, payload, owner, alreadySent, receivedNanos));
+          } catch (RejectedExecutionException e) {
+            adminDropped.increment();
+            log.warn("Cola de telemetría de administración llena. Descartando mensaje de {}", topic);
+          }
+        } else {
+            // Mensaje en tópico no esperado
+            log.debug("Mensaje MQTT en tópico no coincidente con filtros. filterUser={}, filterAdmin={}, topic={}", inputTopicUser, inputTopicAdmin, topic);
+        }
+    }
+
+    private StationTelemetryDTOAdmin readAdmin(String topic, byte[] payload) throws IOException {
+        StationTelemetryDTOAdmin telemetry = ADMIN_READER.readValue(payload);
+        if (telemetry.getIdStation() == null) {
+            telemetry.setIdStation(extractStationId(topic));
+        }
+        if (telemetry.getTimestamp() == null) {
+            telemetry.setTimestamp(System.currentTimeMillis());
+        }
+        return telemetry;
+    }
+
+    /**
+     * Procesamiento rutinario de la telemetría de administración, fuera del hilo de MQTT. La
+     * disponibilidad y el WebSocket se actualizan en todas las réplicas; escrituras en BD y avisos
+     * solo en la dueña de la estación ({@code owner}).
+     */
+    private void processAdmin(String topic, byte[] payload, boolean owner, StationTelemetryDTOAdmin alreadySent, long receivedNanos) {
+        try {
+            StationTelemetryDTOAdmin telemetry = alreadySent != null ? alreadySent : readAdmin(topic, payload);
+            if (owner && alreadySent == null && telemetry.isPanicButtonStatus()) {
+                // Formato que la detección rápida no reconoce: sale por el mismo carril, con más demora
+                panicAlertPublisher.publish(telemetry, receivedNanos);
             }
             if (telemetry.getIdStation() == null) {
-              log.warn("Mensaje MQTT sin id de estacion. topic={}, payload={}", topic, payloadStr);
-              return;
+                log.warn("Mensaje MQTT sin id de estacion. topic={}, payload={}", topic, new String(payload, StandardCharsets.UTF_8));
+                return;
             }
-            Optional<Station> opt = repository.findById(telemetry.getIdStation());
-            if (opt.isEmpty()) {
-              log.warn("Estacion {} no existe en BD. Ignorando telemetría.", telemetry.getIdStation());
-              return;
+            if (!availability.update(telemetry.getIdStation(), telemetry.getAvailableElectricBikes(),
+                    telemetry.getAvailableMechanicBikes(), telemetry.getTimestamp())) {
+                log.warn("Estacion {} no existe. Ignorando telemetría.", telemetry.getIdStation());
+                return;
             }
-            Station station = opt.get();
-            station.setCctvStatus(telemetry.isCctvStatus());
-            repository.save(station);
-
             webSocketPublisher.sendTelemetryAdmin(telemetry);
 
-            if(!telemetry.isCctvStatus()){
-              stationPublisher.sendJsonMaintenanceStationCctvMessage(telemetry);
-            }
-            if(!telemetry.isLightingStatus()){
-              stationPublisher.sendJsonMaintenanceStationLightMessage(telemetry);
-            }
-            if(telemetry.isPanicButtonStatus()){
-              stationPublisher.sendJsonStationPanicButtonMessage(telemetry);
+            if (owner) {
+                // Se escribe en el próximo flush; la BD descarta los que no cambiaron
+                statusWriteBehind.record(telemetry.getIdStation(), telemetry.isCctvStatus(), telemetry.isLightingStatus());
+                if (!telemetry.isCctvStatus()) {
+                    stationPublisher.sendJsonMaintenanceStationCctvMessage(telemetry);
+                }
+                if (!telemetry.isLightingStatus()) {
+                    stationPublisher.sendJsonMaintenanceStationLightMessage(telemetry);
+                }
             }
 
-            log.info("Actualizada estacion {} cctvStatus={}", station.getIdStation(), station.getCctvStatus());
-          } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Estado de estacion {} cctvStatus={} lightingStatus={}", telemetry.getIdStation(),
+                        telemetry.isCctvStatus(), telemetry.isLightingStatus());
+            }
+        } catch (Exception e) {
             log.error("Error procesando mensaje MQTT", e);
-          }
-
-
-        } else {
-            // Mensaje en tópico no esperado
-            log.debug("Mensaje MQTT en tópico no coincidente con filtros. filterUser={}, filterAdmin={}, topic={}", inputTopicUser, inputTopicAdmin, topic);
         }
     }
 
-    @Override
-    public void deliveryComplete(IMqttDeliveryToken token) {
-        // no publicamos desde este componente
-    }
-
     private Integer extractStationId(String topic) {
-        // Espera: bikes/{id}/telemetry
-        if (topic == null) return null;
-        String[] parts = topic.split("/");
-        if (parts.length >= 4 && "station".equals(parts[0]) && "telemetry".equals(parts[2])) {
-            try { return Integer.parseInt(parts[1]); } catch (NumberFormatException ignored) {}
+        // Espera: station/{id}/telemetry/{user|admin}
+        if (MqttTopics.segmentEquals(topic, 0, "station") && MqttTopics.segmentEquals(topic, 2, "telemetry")
+                && (MqttTopics.segmentEquals(topic, 3, "user") || MqttTopics.segmentEquals(topic, 3, "admin"))) {
+            try { return Integer.parseInt(MqttTopics.segment(topic, 1)); } catch (NumberFormatException ignored) {}
         }
         return null;
     }
@@ -0,0 +1,54 @@
+package com.movilidadsostenible.estaciones_service.mqtt;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Detección del botón de pánico sobre el payload crudo, antes de parsear el JSON, para que la
+ * alerta salga sin esperar el resto del procesamiento. Busca {@code "panicButtonStatus"} seguido
+ * de {@code true}; cualquier otra forma se trata como no pánico y sigue el camino normal.
+ */
+final class PanicPayloads {
+
+    private static final byte[] KEY = "\"panicButtonStatus\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+
+    private PanicPayloads() {
+    }
+
+    static boolean isPanic(byte[] payload) {
+        int at = indexOf(payload, KEY, 0);
+        while (at >= 0) {
+            int i = skipWhitespace(payload, at + KEY.length);
+            // Solo cuenta como clave si le siguen ':' y el valor; si no, era un valor de texto
+            if (i < payload.length && payload[i] == ':') {
+                i = skipWhitespace(payload, i + 1);
+                return startsWith(payload, i, TRUE);
+            }
+            at = indexOf(payload, KEY, at + 1);
+        }
+        return false;
+    }
+
+    private static int skipWhitespace(byte[] payload, int from) {
+        int i = from;
+        while (i < payload.length && (payload[i] == ' ' || payload[i] == '\t' || payload[i] == '\n' || payload[i] == '\r')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean startsWith(byte[] payload, int from, byte[] expected) {
+        if (from + expected.length > payload.length) return false;
+        for (int j = 0; j < expected.length; j++) {
+            if (payload[from + j] != expected[j]) return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] payload, byte[] needle, int from) {
+        for (int i = from; i <= payload.length - needle.length; i++) {
+            if (startsWith(payload, i, needle)) return i;
+        }
+        return -1;
+    }
+}
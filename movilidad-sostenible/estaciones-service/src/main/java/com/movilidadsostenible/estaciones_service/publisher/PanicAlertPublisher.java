@@ -0,0 +1,136 @@
+package com.movilidadsostenible.estaciones_service.publisher;
+
+import com.movilidadsostenible.estaciones_service.model.dto.StationTelemetryDTOAdmin;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carril prioritario para las alertas de pánico. Usa su propia conexión a RabbitMQ con publisher
+ * confirms, así que no comparte canales con la telemetría de mantenimiento, y solo devuelve true
+ * cuando el broker confirmó la alerta. Mide el tiempo desde que llegó el mensaje MQTT hasta la
+ * confirmación ({@code station.panic.publish.latency}).
+ */
+@Service
+public class PanicAlertPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(PanicAlertPublisher.class);
+
+    @Value("${spring.rabbitmq.host:localhost}")
+    private String host;
+    @Value("${spring.rabbitmq.port:5672}")
+    private int port;
+    @Value("${spring.rabbitmq.username:guest}")
+    private String username;
+    @Value("${spring.rabbitmq.password:guest}")
+    private String password;
+    @Value("${rabbitmq.exchange.name}")
+    private String exchange;
+    @Value("${rabbitmq.routing.station.panic.button.key}")
+    private String routingKey;
+    @Value("${stations.panic.confirm-timeout-ms:2000}")
+    private long confirmTimeoutMs;
+    @Value("${stations.panic.max-attempts:3}")
+    private int maxAttempts;
+
+    private final MessageConverter messageConverter;
+    private final MeterRegistry meterRegistry;
+    private final TopicExchange panicExchange;
+    private final Queue panicQueue;
+    private final Binding panicBinding;
+
+    private CachingConnectionFactory connectionFactory;
+    private RabbitTemplate rabbitTemplate;
+    private Timer latencyTimer;
+    private Counter failedCounter;
+
+    public PanicAlertPublisher(MessageConverter messageConverter, MeterRegistry meterRegistry,
+                               @Qualifier("jsonExchange") TopicExchange panicExchange,
+                               @Qualifier("jsonQueueStationPanicButtonConsumer") Queue panicQueue,
+                               @Qualifier("jsonBindingStationPanicButtonConsumer") Binding panicBinding) {
+        this.messageConverter = messageConverter;
+        this.meterRegistry = meterRegistry;
+        this.panicExchange = panicExchange;
+        this.panicQueue = panicQueue;
+        this.panicBinding = panicBinding;
+    }
+
+    @PostConstruct
+    public void start() {
+        connectionFactory = new CachingConnectionFactory(host, port);
+        connectionFactory.setUsername(username);
+        connectionFactory.setPassword(password);
+        connectionFactory.setConnectionNameStrategy(cf -> "estaciones-service-panic");
+        connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.SIMPLE);
+
+        // La conexión propia no pasa por el RabbitAdmin del contexto: declara lo que necesita al conectar
+        RabbitAdmin admin = new RabbitAdmin(connectionFactory);
+        connectionFactory.addConnectionListener(connection -> {
+            admin.declareExchange(panicExchange);
+            admin.declareQueue(panicQueue);
+            admin.declareBinding(panicBinding);
+        });
+
+        rabbitTemplate = new RabbitTemplate(connectionFactory);
+        rabbitTemplate.setMessageConverter(messageConverter);
+
+        latencyTimer = Timer.builder("station.panic.publish.latency")
+                .description("Tiempo desde la llegada del mensaje MQTT hasta la confirmación del broker")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        failedCounter = Counter.builder("station.panic.publish.failed")
+                .description("Alertas de pánico que no se pudieron confirmar").register(meterRegistry);
+    }
+
+    /**
+     * Publica la alerta y espera la confirmación del broker, reintentando hasta
+     * {@code stations.panic.max-attempts} veces.
+     *
+     * @param receivedNanos {@link System#nanoTime()} al recibir el mensaje MQTT
+     */
+    public boolean publish(StationTelemetryDTOAdmin telemetry, long receivedNanos) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                rabbitTemplate.invoke(ops -> {
+                    ops.convertAndSend(exchange, routingKey, telemetry);
+                    ops.waitForConfirmsOrDie(confirmTimeoutMs);
+                    return null;
+                });
+                long elapsed = System.nanoTime() - receivedNanos;
+                latencyTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                log.info("Alerta de pánico confirmada para estación {} en {} ms", telemetry.getIdStation(),
+                        TimeUnit.NANOSECONDS.toMillis(elapsed));
+                return true;
+            } catch (Exception e) {
+                log.warn("Intento {} de publicar la alerta de pánico de la estación {} falló: {}",
+                        attempt, telemetry.getIdStation(), e.getMessage());
+            }
+        }
+        failedCounter.increment();
+        log.error("No fue posible confirmar la alerta de pánico de la estación {}", telemetry.getIdStation());
+        return false;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.movilidadsostenible.estaciones_service.publisher;
 
+import com.movilidadsostenible.estaciones_service.model.dto.StationChangedEventDTO;
 import com.movilidadsostenible.estaciones_service.model.dto.StationTelemetryDTOAdmin;
+import com.movilidadsostenible.estaciones_service.model.entity.Station;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -19,8 +21,8 @@ public class StationPublisher {
   @Value("${rabbitmq.routing.maintenance.station.light.key}")
   private String jsonMaintenanceStationLightRoutingKey;
 
-  @Value("${rabbitmq.routing.station.panic.button.key}")
-  private String jsonStationPanicButtonRoutingKey;
+  @Value("${rabbitmq.exchange.station.events}")
+  private String stationEventsExchange;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(StationPublisher.class);
 
@@ -31,17 +33,29 @@ public class StationPublisher {
     }
 
     public void sendJsonMaintenanceStationCctvMessage(StationTelemetryDTOAdmin stationTelemetryDTOAdmin) {
-      LOGGER.info(String.format("JSON Message sent -> %s", stationTelemetryDTOAdmin.toString()));
+      LOGGER.info("JSON Message sent -> {}", stationTelemetryDTOAdmin);
       rabbitTemplate.convertAndSend(jsonExchange, jsonMaintenanceStationCctvRoutingKey, stationTelemetryDTOAdmin);
     }
 
     public void sendJsonMaintenanceStationLightMessage(StationTelemetryDTOAdmin stationTelemetryDTOAdmin) {
-      LOGGER.info(String.format("JSON Message sent -> %s", stationTelemetryDTOAdmin.toString()));
+      LOGGER.info("JSON Message sent -> {}", stationTelemetryDTOAdmin);
       rabbitTemplate.convertAndSend(jsonExchange, jsonMaintenanceStationLightRoutingKey, stationTelemetryDTOAdmin);
     }
 
-    public void sendJsonStationPanicButtonMessage(StationTelemetryDTOAdmin stationTelemetryDTOAdmin) {
-      LOGGER.info(String.format("JSON Message sent -> %s", stationTelemetryDTOAdmin.toString()));
-      rabbitTemplate.convertAndSend(jsonExchange, jsonStationPanicButtonRoutingKey, stationTelemetryDTOAdmin);
+    /**
+     * Publica el cambio con routing key {@code station.<action>}. Un fallo no debe tumbar la
+     * petición REST: las cachés remotas se recargan periódicamente.
+     */
+    public void sendStationChangedEvent(String action, Integer idStation, Station station) {
+      StationChangedEventDTO event = new StationChangedEventDTO(idStation, action,
+              station != null ? station.getLatitude() : null,
+              station != null ? station.getLength() : null,
+              System.currentTimeMillis());
+      try {
+        rabbitTemplate.convertAndSend(stationEventsExchange, "station." + action.toLowerCase(), event);
+        LOGGER.info("Evento de estación enviado -> {}", event);
+      } catch (Exception e) {
+        LOGGER.warn("No fue posible publicar el evento de estación {}: {}", event, e.getMessage());
+      }
     }
 }
@@ -0,0 +1,195 @@
+package com.movilidadsostenible.estaciones_service.services.availability;
+
+import com.movilidadsostenible.estaciones_service.model.dto.StationAvailabilityDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.StationAvailabilitySnapshotDTO;
+import com.movilidadsostenible.estaciones_service.model.entity.Station;
+import com.movilidadsostenible.estaciones_service.services.StationsService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tabla en memoria de disponibilidad por estación, sembrada desde {@code station} y actualizada
+ * con la telemetría MQTT. También responde las validaciones de existencia del camino de
+ * telemetría, así que ese camino no consulta Postgres una vez cargada.
+ * Las versiones (de cada estación y de la tabla) son un hash de los conteos y no un contador
+ * local: detrás del balanceador cualquier réplica con el mismo contenido da el mismo ETag. Para
+ * eso cada réplica tiene la tabla completa: todas reciben toda la telemetría de estaciones.
+ */
+@Component
+public class StationAvailabilityStore {
+
+    private static final Logger log = LoggerFactory.getLogger(StationAvailabilityStore.class);
+
+    @Value("${stations.availability.reseed-interval-ms:60000}")
+    private long reseedIntervalMs;
+
+    private final StationsService stationsService;
+    private final Map<Integer, StationAvailabilityDTO> table = new ConcurrentHashMap<>();
+    // Cambios locales: solo sirve para saber si la foto en caché sigue vigente
+    private final AtomicLong changes = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("station-availability").daemon().factory());
+
+    private volatile boolean loaded;
+    private volatile CachedSnapshot lastSnapshot;
+
+    public StationAvailabilityStore(StationsService stationsService) {
+        this.stationsService = stationsService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduler.execute(this::loadWithRetry);
+    }
+
+    private void loadWithRetry() {
+        try {
+            reseed();
+            loaded = true;
+            log.info("Tabla de disponibilidad cargada: {} estaciones", table.size());
+            if (reseedIntervalMs > 0) {
+                scheduler.scheduleWithFixedDelay(this::reseedSafely, reseedIntervalMs, reseedIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible cargar la tabla de disponibilidad. Reintentando en 30s: {}", e.getMessage());
+            scheduler.schedule(this::loadWithRetry, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    private void reseedSafely() {
+        try {
+            reseed();
+        } catch (Exception e) {
+            log.warn("No fue posible resincronizar la tabla de disponibilidad: {}", e.getMessage());
+        }
+    }
+
+    /** Agrega las estaciones nuevas y quita las eliminadas; los conteos existentes se conservan. */
+    void reseed() {
+        Set<Integer> ids = new HashSet<>();
+        for (Station station : stationsService.findAll()) {
+            ids.add(station.getIdStation());
+            register(station.getIdStation());
+        }
+        new ArrayList<>(table.keySet()).stream().filter(id -> !ids.contains(id)).forEach(this::remove);
+    }
+
+    public void register(Integer idStation) {
+        table.computeIfAbsent(idStation, id -> {
+            changes.incrementAndGet();
+            return new StationAvailabilityDTO(id, null, null, null, contentVersion(id, null, null));
+        });
+    }
+
+    public void remove(Integer idStation) {
+        if (table.remove(idStation) != null) {
+            changes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Existencia de la estación. Mientras la tabla no esté cargada consulta la BD y registra la estación.
+     */
+    public boolean exists(Integer idStation) {
+        if (table.containsKey(idStation)) {
+            return true;
+        }
+        if (loaded) {
+            return false;
+        }
+        if (stationsService.findById(idStation).isPresent()) {
+            register(idStation);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Aplica los conteos de una telemetría. Devuelve false si la estación no existe.
+     */
+    public boolean update(Integer idStation, Integer electric, Integer mechanic, long timestamp) {
+        if (!exists(idStation)) {
+            return false;
+        }
+        table.computeIfPresent(idStation, (id, current) -> {
+            if (Objects.equals(current.getAvailableElectricBikes(), electric)
+                    && Objects.equals(current.getAvailableMechanicBikes(), mechanic)) {
+                return current;
+            }
+            changes.incrementAndGet();
+            return new StationAvailabilityDTO(id, electric, mechanic, timestamp, contentVersion(id, electric, mechanic));
+        });
+        return true;
+    }
+
+    public long version() {
+        return snapshot().getVersion();
+    }
+
+    public Optional<StationAvailabilityDTO> get(Integer idStation) {
+        return Optional.ofNullable(table.get(idStation));
+    }
+
+    /** Foto de toda la tabla; se reutiliza mientras no haya cambios locales. */
+    public StationAvailabilitySnapshotDTO snapshot() {
+        CachedSnapshot cached = lastSnapshot;
+        long current = changes.get();
+        if (cached != null && cached.changes() == current) {
+            return cached.snapshot();
+        }
+        // El contador se lee antes de recorrer: un cambio durante el recorrido invalida esta foto
+        List<StationAvailabilityDTO> stations = new ArrayList<>(table.values());
+        stations.sort(Comparator.comparing(StationAvailabilityDTO::getIdStation));
+        long tableVersion = 0;
+        for (StationAvailabilityDTO station : stations) {
+            tableVersion = mix(tableVersion * 31 + station.getVersion());
+        }
+        StationAvailabilitySnapshotDTO snapshot = new StationAvailabilitySnapshotDTO(tableVersion, stations);
+        lastSnapshot = new CachedSnapshot(current, snapshot);
+        return snapshot;
+    }
+
+    // Depende solo del contenido, igual en todas las réplicas; la hora de la telemetría no entra
+    static long contentVersion(Integer idStation, Integer electric, Integer mechanic) {
+        long h = mix(idStation);
+        h = mix(h * 31 + (electric == null ? -1 : electric));
+        return mix(h * 31 + (mechanic == null ? -1 : mechanic));
+    }
+
+    // Finalizador de 64 bits de MurmurHash3: reparte los bits para que las colisiones sean improbables
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private record CachedSnapshot(long changes, StationAvailabilitySnapshotDTO snapshot) {
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
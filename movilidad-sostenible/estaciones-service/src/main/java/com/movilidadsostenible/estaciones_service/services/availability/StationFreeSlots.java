@@ -0,0 +1,159 @@
+package com.movilidadsostenible.estaciones_service.services.availability;
+
+import com.movilidadsostenible.estaciones_service.clients.SlotsClient;
+import com.movilidadsostenible.estaciones_service.model.dto.SlotChangeBatchDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.SlotChangeEventDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.StationSlotSummaryDTO;
+import com.movilidadsostenible.estaciones_service.model.entity.Station;
+import com.movilidadsostenible.estaciones_service.services.StationsService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Anclajes libres por estación: los slots UNLOCKED según slots-service, sin contar los
+ * reservados, en error ni en mantenimiento. Se carga con el resumen por lotes
+ * ({@code POST /stations/summary}) y se mantiene al día con los eventos de {@code slot_events}.
+ * Un salto de secuencia o un cambio de epoch vuelve a leer el resumen de esa estación; la recarga
+ * completa cada {@code stations.slots.refresh-interval-ms} corrige lo que haya quedado desfasado.
+ */
+@Component
+public class StationFreeSlots {
+
+    private static final Logger log = LoggerFactory.getLogger(StationFreeSlots.class);
+
+    private static final String UNLOCKED = "UNLOCKED";
+    // Límite de estaciones por llamada al resumen de slots-service
+    private static final int SUMMARY_CHUNK = 1000;
+
+    @Value("${stations.slots.refresh-interval-ms:60000}")
+    private long refreshIntervalMs;
+
+    private final SlotsClient slotsClient;
+    private final StationsService stationsService;
+    private final Map<Integer, Counts> counts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("station-free-slots").daemon().factory());
+
+    public StationFreeSlots(SlotsClient slotsClient, StationsService stationsService) {
+        this.slotsClient = slotsClient;
+        this.stationsService = stationsService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (refreshIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::refreshAllSafely, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Anclajes libres de la estación; nulo si aún no se conoce. */
+    public Integer get(Integer idStation) {
+        Counts current = counts.get(idStation);
+        return current != null && current.unlocked() >= 0 ? current.unlocked() : null;
+    }
+
+    private void refreshAllSafely() {
+        try {
+            Set<Integer> ids = new HashSet<>();
+            for (Station station : stationsService.findAll()) {
+                ids.add(station.getIdStation());
+            }
+            refresh(ids);
+            counts.keySet().removeIf(id -> !ids.contains(id));
+        } catch (Exception e) {
+            log.warn("No fue posible leer el resumen de slots: {}", e.getMessage());
+        }
+    }
+
+    /** Lee el resumen de las estaciones y fija sus conteos; la secuencia de eventos se conserva. */
+    void refresh(Set<Integer> stationIds) {
+        List<Integer> ids = new ArrayList<>(stationIds);
+        for (int from = 0; from < ids.size(); from += SUMMARY_CHUNK) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + SUMMARY_CHUNK, ids.size()));
+            for (StationSlotSummaryDTO summary : slotsClient.summarizeStations(chunk)) {
+                counts.compute(summary.getStationId(), (id, current) -> current == null
+                        ? new Counts(summary.getUnlocked(), 0, 0)
+                        : new Counts(summary.getUnlocked(), current.epoch(), current.sequence()));
+            }
+        }
+    }
+
+    private void refreshSafely(Set<Integer> stationIds) {
+        try {
+            refresh(stationIds);
+        } catch (Exception e) {
+            log.warn("No fue posible releer el resumen de slots de {} estaciones: {}", stationIds.size(), e.getMessage());
+        }
+    }
+
+    @RabbitListener(queues = "#{slotEventsQueue.name}")
+    public void onSlotChanges(SlotChangeBatchDTO batch) {
+        if (batch.getEvents() == null) {
+            return;
+        }
+        Set<Integer> stale = new LinkedHashSet<>();
+        for (SlotChangeEventDTO event : batch.getEvents()) {
+            if (event.getStationId() != null && !apply(batch.getEpoch(), event)) {
+                stale.add(event.getStationId());
+            }
+        }
+        if (!stale.isEmpty()) {
+            refreshSafely(stale);
+        }
+    }
+
+    /**
+     * Aplica el evento si sigue a la última secuencia vista. Devuelve false si hay un hueco (o la
+     * estación no se conocía): se adopta su secuencia y el llamador debe releer el resumen.
+     */
+    boolean apply(long epoch, SlotChangeEventDTO event) {
+        boolean[] inOrder = {true};
+        counts.compute(event.getStationId(), (id, current) -> {
+            if (current != null && current.epoch() == epoch && event.getSequence() <= current.sequence()) {
+                return current; // repetido
+            }
+            if (current == null || current.epoch() != epoch || event.getSequence() != current.sequence() + 1) {
+                inOrder[0] = false;
+                return new Counts(current != null ? current.unlocked() : -1, epoch, event.getSequence());
+            }
+            int unlocked = current.unlocked();
+            if (unlocked < 0) {
+                return new Counts(-1, epoch, event.getSequence());
+            }
+            if (UNLOCKED.equals(event.getBefore())) {
+                unlocked--;
+            }
+            if (UNLOCKED.equals(event.getAfter())) {
+                unlocked++;
+            }
+            return new Counts(Math.max(0, unlocked), epoch, event.getSequence());
+        });
+        return inOrder[0];
+    }
+
+    // unlocked = -1 mientras no se haya leído el resumen de la estación
+    private record Counts(int unlocked, long epoch, long sequence) {
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,162 @@
+package com.movilidadsostenible.estaciones_service.services.city;
+
+import com.movilidadsostenible.estaciones_service.clients.CiudadClient;
+import com.movilidadsostenible.estaciones_service.model.dto.CityChangedEventDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.CityDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.CitySnapshotDTO;
+import feign.FeignException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copia local del catálogo de ciudades para validar las estaciones sin llamar a ciudad-service.
+ * Se carga con {@code GET /snapshot}, se invalida con los eventos de ciudad-service y cada
+ * {@code cities.cache.refresh-interval-ms} se revalida con la versión (ETag) por si se perdió
+ * algún evento. Solo una ciudad que no está en caché se consulta por Feign.
+ */
+@Component
+public class CityCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CityCache.class);
+
+    @Value("${cities.cache.refresh-interval-ms:300000}")
+    private long refreshIntervalMs;
+
+    private final CiudadClient ciudadClient;
+    private final Map<Integer, CityDTO> cities = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("city-cache").daemon().factory());
+
+    private volatile String version;
+    // Ids que cambiaron mientras corría una recarga; la recarga no los pisa con datos viejos
+    private volatile Set<Integer> changedDuringReload;
+
+    public CityCache(CiudadClient ciudadClient) {
+        this.ciudadClient = ciudadClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduler.execute(this::loadWithRetry);
+    }
+
+    private void loadWithRetry() {
+        try {
+            reload();
+            log.info("Caché de ciudades cargada: {} ciudades (versión {})", cities.size(), version);
+            if (refreshIntervalMs > 0) {
+                scheduler.scheduleWithFixedDelay(this::reloadSafely, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible cargar la caché de ciudades. Reintentando en 30s: {}", e.getMessage());
+            scheduler.schedule(this::loadWithRetry, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    private void reloadSafely() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.warn("No fue posible recargar la caché de ciudades: {}", e.getMessage());
+        }
+    }
+
+    void reload() {
+        Set<Integer> changed = ConcurrentHashMap.newKeySet();
+        changedDuringReload = changed;
+        try {
+            CitySnapshotDTO snapshot;
+            try {
+                ResponseEntity<CitySnapshotDTO> resp = ciudadClient.getSnapshot(version != null ? "\"" + version + "\"" : null);
+                snapshot = resp.getBody();
+            } catch (FeignException e) {
+                if (e.status() == 304) {
+                    return;
+                }
+                throw e;
+            }
+            if (snapshot == null || snapshot.getCities() == null) {
+                return;
+            }
+            Set<Integer> seen = new HashSet<>();
+            for (CityDTO city : snapshot.getCities()) {
+                seen.add(city.getIdCity());
+                if (!changed.contains(city.getIdCity())) {
+                    cities.put(city.getIdCity(), city);
+                }
+            }
+            cities.keySet().removeIf(id -> !seen.contains(id) && !changed.contains(id));
+            version = snapshot.getVersion();
+        } finally {
+            changedDuringReload = null;
+        }
+    }
+
+    /**
+     * Existencia de la ciudad. Un fallo al consultar ciudad-service en un miss se propaga para
+     * que el llamador decida (502).
+     */
+    public boolean exists(Integer idCity) {
+        if (idCity == null) {
+            return false;
+        }
+        if (cities.containsKey(idCity)) {
+            return true;
+        }
+        try {
+            ResponseEntity<?> resp = ciudadClient.getCityById(idCity);
+            if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null) {
+                return false;
+            }
+            // Solo se necesita la existencia; el nombre llega con el próximo snapshot o evento
+            cities.putIfAbsent(idCity, new CityDTO(idCity, null));
+            return true;
+        } catch (FeignException.NotFound e) {
+            return false;
+        }
+    }
+
+    @RabbitListener(queues = "#{cityEventsQueue.name}")
+    public void onCityChanged(CityChangedEventDTO event) {
+        Integer id = event.getIdCity();
+        if (id == null) {
+            return;
+        }
+        Set<Integer> changed = changedDuringReload;
+        if (changed != null) {
+            changed.add(id);
+        }
+        if ("DELETED".equals(event.getAction())) {
+            cities.remove(id);
+        } else {
+            cities.put(id, new CityDTO(id, event.getCityName()));
+        }
+        // La próxima revalidación trae el snapshot completo y su nueva versión
+        version = null;
+        log.debug("Ciudad {} invalidada en caché ({})", id, event.getAction());
+    }
+
+    public int size() {
+        return cities.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
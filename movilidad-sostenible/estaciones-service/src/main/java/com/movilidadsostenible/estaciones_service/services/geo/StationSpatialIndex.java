@@ -0,0 +1,249 @@
+package com.movilidadsostenible.estaciones_service.services.geo;
+
+import com.movilidadsostenible.estaciones_service.model.entity.Station;
+import com.movilidadsostenible.estaciones_service.services.StationsService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Índice espacial de estaciones en celdas fijas de {@code stations.geo.cell-degrees} grados.
+ * Create/update/delete lo mantienen al día estación por estación y cada
+ * {@code stations.geo.reseed-interval-ms} se resincroniza con la BD por los cambios hechos en
+ * otras réplicas. La búsqueda recorre anillos de celdas alrededor del punto y para cuando el
+ * siguiente anillo ya no puede tener nada más cerca que los k encontrados.
+ */
+@Component
+public class StationSpatialIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(StationSpatialIndex.class);
+    private static final double EARTH_RADIUS_METERS = 6_371_000d;
+    private static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180d;
+
+    @Value("${stations.geo.reseed-interval-ms:60000}")
+    private long reseedIntervalMs;
+
+    private final double cellDegrees;
+    private final StationsService stationsService;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Integer>> cells = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("station-geo-index").daemon().factory());
+
+    // Extensión de las celdas ocupadas; solo crece, acota la búsqueda cuando el filtro descarta todo
+    private volatile int minCellX = Integer.MAX_VALUE;
+    private volatile int maxCellX = Integer.MIN_VALUE;
+    private volatile int minCellY = Integer.MAX_VALUE;
+    private volatile int maxCellY = Integer.MIN_VALUE;
+
+    public StationSpatialIndex(StationsService stationsService,
+                               @Value("${stations.geo.cell-degrees:0.01}") double cellDegrees) {
+        this.stationsService = stationsService;
+        this.cellDegrees = cellDegrees;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduler.execute(this::loadWithRetry);
+    }
+
+    private void loadWithRetry() {
+        try {
+            reseed();
+            log.info("Índice espacial de estaciones cargado: {} estaciones", entries.size());
+            if (reseedIntervalMs > 0) {
+                scheduler.scheduleWithFixedDelay(this::reseedSafely, reseedIntervalMs, reseedIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible cargar el índice espacial. Reintentando en 30s: {}", e.getMessage());
+            scheduler.schedule(this::loadWithRetry, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    private void reseedSafely() {
+        try {
+            reseed();
+        } catch (Exception e) {
+            log.warn("No fue posible resincronizar el índice espacial: {}", e.getMessage());
+        }
+    }
+
+    void reseed() {
+        Set<Integer> ids = new HashSet<>();
+        for (Station station : stationsService.findAll()) {
+            ids.add(station.getIdStation());
+            put(station);
+        }
+        new ArrayList<>(entries.keySet()).stream().filter(id -> !ids.contains(id)).forEach(this::remove);
+    }
+
+    /** Agrega o mueve la estación; sin coordenadas se quita del índice. */
+    public void put(Station station) {
+        if (station.getLatitude() == null || station.getLength() == null) {
+            remove(station.getIdStation());
+            return;
+        }
+        int cx = cell(station.getLength());
+        int cy = cell(station.getLatitude());
+        Entry entry = new Entry(station.getIdStation(), station.getStationName(),
+                station.getLatitude(), station.getLength(), key(cx, cy));
+        Entry previous = entries.put(entry.idStation(), entry);
+        if (previous != null && previous.cellKey() != entry.cellKey()) {
+            removeFromCell(previous);
+        }
+        cells.computeIfAbsent(entry.cellKey(), k -> ConcurrentHashMap.newKeySet()).add(entry.idStation());
+        extend(cx, cy);
+    }
+
+    public void remove(Integer idStation) {
+        Entry previous = entries.remove(idStation);
+        if (previous != null) {
+            removeFromCell(previous);
+        }
+    }
+
+    private void removeFromCell(Entry entry) {
+        cells.computeIfPresent(entry.cellKey(), (k, ids) -> {
+            ids.remove(entry.idStation());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private synchronized void extend(int cx, int cy) {
+        if (cx < minCellX) minCellX = cx;
+        if (cx > maxCellX) maxCellX = cx;
+        if (cy < minCellY) minCellY = cy;
+        if (cy > maxCellY) maxCellY = cy;
+    }
+
+    /**
+     * Las k estaciones más cercanas que cumplen {@code accept}, ordenadas por distancia.
+     * Si el punto cae fuera de la extensión ocupada, o los anillos ya cubren más celdas que
+     * estaciones hay (cerca de los polos la cota por anillo tiende a 0 y no corta), se recorren
+     * todas las estaciones: nunca cuesta más que un recorrido lineal.
+     */
+    public List<Match> nearest(double lat, double lon, int k, IntPredicate accept) {
+        PriorityQueue<Match> best = new PriorityQueue<>(Comparator.comparingDouble(Match::distanceMeters).reversed());
+        if (k <= 0 || entries.isEmpty()) {
+            return List.of();
+        }
+        int cx = cell(lon);
+        int cy = cell(lat);
+        if (cx < minCellX || cx > maxCellX || cy < minCellY || cy > maxCellY) {
+            return scanAll(lat, lon, k, accept);
+        }
+        int maxRing = Math.max(Math.max(Math.abs(cx - minCellX), Math.abs(maxCellX - cx)),
+                Math.max(Math.abs(cy - minCellY), Math.abs(maxCellY - cy)));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            long side = 2L * ring + 1;
+            if (side * side > entries.size()) {
+                return scanAll(lat, lon, k, accept);
+            }
+            for (int dx = -ring; dx <= ring; dx++) {
+                boolean edge = Math.abs(dx) == ring;
+                for (int dy = -ring; dy <= ring; dy += edge ? 1 : 2 * ring) {
+                    scanCell(key(cx + dx, cy + dy), lat, lon, k, accept, best);
+                }
+            }
+            // Lo más cerca que puede estar una estación del anillo siguiente
+            if (best.size() == k && best.peek().distanceMeters() <= ring * minCellMeters(lat, ring)) {
+                break;
+            }
+        }
+        return sorted(best);
+    }
+
+    private List<Match> scanAll(double lat, double lon, int k, IntPredicate accept) {
+        PriorityQueue<Match> best = new PriorityQueue<>(Comparator.comparingDouble(Match::distanceMeters).reversed());
+        for (Entry entry : entries.values()) {
+            offer(entry, lat, lon, k, accept, best);
+        }
+        return sorted(best);
+    }
+
+    private static List<Match> sorted(PriorityQueue<Match> best) {
+        List<Match> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Match::distanceMeters));
+        return result;
+    }
+
+    private void scanCell(long cellKey, double lat, double lon, int k, IntPredicate accept, PriorityQueue<Match> best) {
+        Set<Integer> ids = cells.get(cellKey);
+        if (ids == null) {
+            return;
+        }
+        for (Integer id : ids) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                offer(entry, lat, lon, k, accept, best);
+            }
+        }
+    }
+
+    private static void offer(Entry entry, double lat, double lon, int k, IntPredicate accept, PriorityQueue<Match> best) {
+        if (!accept.test(entry.idStation())) {
+            return;
+        }
+        double distance = haversineMeters(lat, lon, entry.latitude(), entry.longitude());
+        if (best.size() < k) {
+            best.add(new Match(entry, distance));
+        } else if (distance < best.peek().distanceMeters()) {
+            best.poll();
+            best.add(new Match(entry, distance));
+        }
+    }
+
+    private double minCellMeters(double lat, int ring) {
+        // El ancho de la celda se estrecha hacia los polos: se usa la latitud más alta que alcanza el anillo
+        double maxLat = Math.min(Math.abs(lat) + (ring + 1) * cellDegrees, 90d);
+        return cellDegrees * METERS_PER_DEGREE * Math.cos(Math.toRadians(maxLat));
+    }
+
+    private int cell(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public record Entry(Integer idStation, String stationName, double latitude, double longitude, long cellKey) {
+    }
+
+    public record Match(Entry station, double distanceMeters) {
+    }
+}
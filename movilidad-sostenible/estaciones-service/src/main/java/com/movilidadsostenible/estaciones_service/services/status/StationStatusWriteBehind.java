@@ -0,0 +1,130 @@
+package com.movilidadsostenible.estaciones_service.services.status;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escritura diferida del estado de CCTV e iluminación de las estaciones.
+ * Se guarda el último estado reportado por estación y cada {@code stations.status.flush-interval-ms}
+ * las estaciones pendientes se escriben en un único batch JDBC. La comparación con lo ya escrito la
+ * hace la BD ({@code IS DISTINCT FROM}): al cambiar las réplicas la estación puede pasar a otra
+ * dueña, que pudo haber cambiado la fila, así que un recuerdo local de lo escrito no sirve. Con telemetría estable el
+ * UPDATE no toca ninguna fila.
+ */
+@Service
+public class StationStatusWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(StationStatusWriteBehind.class);
+
+    private static final String UPDATE_SQL = """
+            UPDATE station
+               SET t_cctv_status = ?,
+                   t_lighting_status = ?
+             WHERE k_id_station = ?
+               AND (t_cctv_status, t_lighting_status) IS DISTINCT FROM (?, ?)
+            """;
+
+    @Value("${stations.status.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+    @Value("${stations.status.batch-size:500}")
+    private int batchSize;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Integer, StationStatus> dirty = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("station-status-write-behind").daemon().factory());
+
+    public StationStatusWriteBehind(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Registra el estado reportado; entre dos flushes solo queda el último de cada estación. */
+    public void record(int idStation, boolean cctvStatus, boolean lightingStatus) {
+        dirty.put(idStation, new StationStatus(cctvStatus, lightingStatus));
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error escribiendo estado de estaciones en BD", e);
+        }
+    }
+
+    synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Integer, StationStatus>> batch = new ArrayList<>(Math.min(dirty.size(), batchSize));
+        for (Integer id : dirty.keySet()) {
+            StationStatus pending = dirty.remove(id);
+            if (pending == null) {
+                continue;
+            }
+            batch.add(Map.entry(id, pending));
+            if (batch.size() >= batchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<Map.Entry<Integer, StationStatus>> batch) {
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, entry) -> {
+                ps.setBoolean(1, entry.getValue().cctvStatus());
+                ps.setBoolean(2, entry.getValue().lightingStatus());
+                ps.setInt(3, entry.getKey());
+                ps.setBoolean(4, entry.getValue().cctvStatus());
+                ps.setBoolean(5, entry.getValue().lightingStatus());
+            });
+        } catch (RuntimeException e) {
+            // Se reintenta en el próximo flush salvo que ya haya llegado un estado más reciente
+            batch.forEach(entry -> dirty.putIfAbsent(entry.getKey(), entry.getValue()));
+            throw e;
+        }
+        log.debug("Flush de estado de estaciones: {} estaciones escritas", batch.size());
+    }
+
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("No fue posible escribir el estado pendiente de las estaciones al detener el servicio", e);
+        }
+    }
+
+    record StationStatus(boolean cctvStatus, boolean lightingStatus) {
+    }
+}
@@ -18,7 +18,6 @@ public class TelemetryWebSocketPublisher {
 
       // Ejemplo de topic por bicicleta:
       String topic = "/topic/station.update/user";
-      System.out.println("Sending telemetry to topic: " + topic);
       messagingTemplate.convertAndSend(topic, telemetry);
     }
 
@@ -26,7 +25,6 @@ public class TelemetryWebSocketPublisher {
 
       // Ejemplo de topic por bicicleta:
       String topic = "/topic/station.update/admin";
-      System.out.println("Sending telemetry to topic: " + topic);
       messagingTemplate.convertAndSend(topic, telemetry);
     }
 }
@@ -0,0 +1,28 @@
+package com.movilidadsostenible.estaciones_service.mqtt;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PanicPayloadsTest {
+
+    @Test
+    void detectsPanicOnlyWhenTheFieldIsTrue() {
+        assertThat(PanicPayloads.isPanic(bytes("{\"idStation\":1,\"panicButtonStatus\":true}"))).isTrue();
+        assertThat(PanicPayloads.isPanic(bytes("{ \"panicButtonStatus\" :\n true, \"cctvStatus\":false }"))).isTrue();
+        assertThat(PanicPayloads.isPanic(bytes("{\"idStation\":1,\"panicButtonStatus\":false}"))).isFalse();
+        assertThat(PanicPayloads.isPanic(bytes("{\"idStation\":1,\"cctvStatus\":true}"))).isFalse();
+    }
+
+    @Test
+    void ignoresTheKeyNameWhenItAppearsAsAValue() {
+        assertThat(PanicPayloads.isPanic(bytes("{\"note\":\"panicButtonStatus\",\"panicButtonStatus\":true}"))).isTrue();
+        assertThat(PanicPayloads.isPanic(bytes("{\"note\":\"panicButtonStatus\",\"other\":true}"))).isFalse();
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
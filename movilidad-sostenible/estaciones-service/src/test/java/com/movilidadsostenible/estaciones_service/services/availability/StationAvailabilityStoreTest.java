@@ -0,0 +1,71 @@
+package com.movilidadsostenible.estaciones_service.services.availability;
+
+import com.movilidadsostenible.estaciones_service.model.dto.StationAvailabilityDTO;
+import com.movilidadsostenible.estaciones_service.model.entity.Station;
+import com.movilidadsostenible.estaciones_service.services.StationsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StationAvailabilityStoreTest {
+
+    private final StationsService stationsService = mock(StationsService.class);
+    private final StationAvailabilityStore store = new StationAvailabilityStore(stationsService);
+
+    @Test
+    void versionFollowsTheCountsNotTheOrderOfUpdates() {
+        when(stationsService.findAll()).thenReturn(List.of(station(1), station(2)));
+        store.reseed();
+        ReflectionTestUtils.setField(store, "loaded", true);
+        long seeded = store.version();
+
+        assertThat(store.update(1, 3, 4, 1_000L)).isTrue();
+        long afterChange = store.version();
+        assertThat(store.update(1, 3, 4, 2_000L)).isTrue();
+
+        assertThat(afterChange).isNotEqualTo(seeded);
+        assertThat(store.version()).isEqualTo(afterChange);
+        // Otra réplica que llegó a los mismos conteos por otro camino da el mismo ETag
+        StationAvailabilityStore other = new StationAvailabilityStore(stationsService);
+        other.reseed();
+        other.update(1, 9, 9, 500L);
+        other.update(1, 3, 4, 5_000L);
+        assertThat(other.version()).isEqualTo(afterChange);
+        StationAvailabilityDTO one = store.get(1).orElseThrow();
+        assertThat(one.getAvailableElectricBikes()).isEqualTo(3);
+        assertThat(one.getUpdatedAt()).isEqualTo(1_000L);
+        assertThat(store.snapshot().getStations()).hasSize(2);
+        assertThat(store.snapshot()).isSameAs(store.snapshot());
+
+        assertThat(store.update(99, 1, 1, 3_000L)).isFalse();
+        verify(stationsService, never()).findById(any());
+    }
+
+    @Test
+    void reseedDropsDeletedStationsAndKeepsCounts() {
+        when(stationsService.findAll()).thenReturn(List.of(station(1), station(2)));
+        store.reseed();
+        store.update(1, 5, 0, 1_000L);
+
+        when(stationsService.findAll()).thenReturn(List.of(station(1), station(3)));
+        store.reseed();
+
+        assertThat(store.get(2)).isEmpty();
+        assertThat(store.get(3)).isPresent();
+        assertThat(store.get(1).orElseThrow().getAvailableElectricBikes()).isEqualTo(5);
+    }
+
+    private static Station station(int id) {
+        Station s = new Station();
+        s.setIdStation(id);
+        return s;
+    }
+}
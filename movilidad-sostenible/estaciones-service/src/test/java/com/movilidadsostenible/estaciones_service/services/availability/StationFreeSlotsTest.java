@@ -0,0 +1,54 @@
+package com.movilidadsostenible.estaciones_service.services.availability;
+
+import com.movilidadsostenible.estaciones_service.clients.SlotsClient;
+import com.movilidadsostenible.estaciones_service.model.dto.SlotChangeBatchDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.SlotChangeEventDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.StationSlotSummaryDTO;
+import com.movilidadsostenible.estaciones_service.services.StationsService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StationFreeSlotsTest {
+
+    private final SlotsClient slotsClient = mock(SlotsClient.class);
+    private final StationFreeSlots freeSlots = new StationFreeSlots(slotsClient, mock(StationsService.class));
+
+    @Test
+    void countsOnlyUnlockedSlotsAndFollowsConsecutiveEvents() {
+        // 15 slots: 3 con bici, 2 reservados, 1 en error, 1 en mantenimiento; libres solo los 8 UNLOCKED
+        when(slotsClient.summarizeStations(List.of(1))).thenReturn(List.of(
+                new StationSlotSummaryDTO(1, 15, 3, 8, 2, 1, 1, 2, 1)));
+        freeSlots.refresh(Set.of(1));
+        assertThat(freeSlots.get(1)).isEqualTo(8);
+
+        // El primer evento fija la secuencia y pide releer el resumen
+        assertThat(freeSlots.apply(7L, event(1, 5, "LOCKED", "UNLOCKED"))).isFalse();
+        assertThat(freeSlots.apply(7L, event(1, 6, "UNLOCKED", "RESERVED"))).isTrue();
+        assertThat(freeSlots.apply(7L, event(1, 7, "RESERVED", "MAINTENANCE"))).isTrue();
+        assertThat(freeSlots.apply(7L, event(1, 7, "RESERVED", "MAINTENANCE"))).isTrue();
+        assertThat(freeSlots.get(1)).isEqualTo(7);
+
+        // Hueco de secuencia: se relee el resumen de la estación
+        when(slotsClient.summarizeStations(List.of(1))).thenReturn(List.of(
+                new StationSlotSummaryDTO(1, 15, 4, 6, 3, 1, 1, 3, 1)));
+        freeSlots.onSlotChanges(new SlotChangeBatchDTO(7L, List.of(event(1, 10, "UNLOCKED", "LOCKED"))));
+        assertThat(freeSlots.get(1)).isEqualTo(6);
+        assertThat(freeSlots.apply(7L, event(1, 11, "LOCKED", "UNLOCKED"))).isTrue();
+        assertThat(freeSlots.get(1)).isEqualTo(7);
+
+        assertThat(freeSlots.get(2)).isNull();
+        verify(slotsClient, times(2)).summarizeStations(List.of(1));
+    }
+
+    private static SlotChangeEventDTO event(int station, long sequence, String before, String after) {
+        return new SlotChangeEventDTO(station, sequence, "S-" + sequence, before, after, null, 0L);
+    }
+}
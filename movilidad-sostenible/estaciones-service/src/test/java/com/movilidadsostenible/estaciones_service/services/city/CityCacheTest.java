@@ -0,0 +1,50 @@
+package com.movilidadsostenible.estaciones_service.services.city;
+
+import com.movilidadsostenible.estaciones_service.clients.CiudadClient;
+import com.movilidadsostenible.estaciones_service.model.dto.CityChangedEventDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.CityDTO;
+import com.movilidadsostenible.estaciones_service.model.dto.CitySnapshotDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CityCacheTest {
+
+    private final CiudadClient client = mock(CiudadClient.class);
+    private final CityCache cache = new CityCache(client);
+
+    @Test
+    void validatesFromTheSnapshotAndAppliesEventsWithoutCallingCiudadService() {
+        when(client.getSnapshot(null)).thenReturn(ResponseEntity.ok(
+                new CitySnapshotDTO("v1", List.of(new CityDTO(1, "Bogotá"), new CityDTO(2, "Medellín")))));
+        cache.reload();
+
+        assertThat(cache.exists(1)).isTrue();
+
+        cache.onCityChanged(new CityChangedEventDTO(3, "CREATED", "Cali", 0L));
+        cache.onCityChanged(new CityChangedEventDTO(2, "DELETED", null, 0L));
+        assertThat(cache.exists(3)).isTrue();
+        assertThat(cache.size()).isEqualTo(2);
+        verify(client, never()).getCityById(anyInt());
+    }
+
+    @Test
+    void asksCiudadServiceOnlyOnceForACityMissingFromTheCache() {
+        doReturn(ResponseEntity.ok(new CityDTO(7, "Pasto"))).when(client).getCityById(7);
+
+        assertThat(cache.exists(7)).isTrue();
+        assertThat(cache.exists(7)).isTrue();
+
+        verify(client, times(1)).getCityById(7);
+    }
+}
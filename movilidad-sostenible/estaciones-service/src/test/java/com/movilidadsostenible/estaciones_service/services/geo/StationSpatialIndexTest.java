@@ -0,0 +1,93 @@
+package com.movilidadsostenible.estaciones_service.services.geo;
+
+import com.movilidadsostenible.estaciones_service.model.entity.Station;
+import com.movilidadsostenible.estaciones_service.services.StationsService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.mock;
+
+class StationSpatialIndexTest {
+
+    private final StationSpatialIndex index = new StationSpatialIndex(mock(StationsService.class), 0.01);
+
+    @Test
+    void matchesBruteForceWithFilterAndFollowsMovesAndDeletes() {
+        Random random = new Random(42);
+        List<Station> stations = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            Station s = station(i, 4.5 + random.nextDouble() * 0.3, -74.2 + random.nextDouble() * 0.2);
+            stations.add(s);
+            index.put(s);
+        }
+        double lat = 4.63, lon = -74.08;
+
+        List<Integer> expected = stations.stream()
+                .filter(s -> s.getIdStation() % 3 == 0)
+                .sorted(Comparator.comparingDouble(s -> StationSpatialIndex.haversineMeters(lat, lon, s.getLatitude(), s.getLength())))
+                .limit(7)
+                .map(Station::getIdStation)
+                .toList();
+        assertThat(index.nearest(lat, lon, 7, id -> id % 3 == 0))
+                .extracting(m -> m.station().idStation())
+                .containsExactlyElementsOf(expected);
+
+        index.remove(expected.get(0));
+        index.put(station(999, lat, lon));
+        assertThat(index.nearest(lat, lon, 1, id -> true).get(0).station().idStation()).isEqualTo(999);
+        assertThat(index.nearest(lat, lon, 7, id -> id % 3 == 0))
+                .extracting(m -> m.station().idStation())
+                .doesNotContain(expected.get(0));
+
+        index.put(station(999, 4.9, -74.3));
+        assertThat(index.nearest(lat, lon, 1, id -> true).get(0).station().idStation()).isNotEqualTo(999);
+    }
+
+    @Test
+    void returnsWhatExistsWhenTheFilterRejectsMostStations() {
+        index.put(station(1, 4.60, -74.07));
+        index.put(station(2, 6.25, -75.56));
+
+        assertThat(index.nearest(4.60, -74.07, 5, id -> id == 2))
+                .extracting(m -> m.station().idStation())
+                .containsExactly(2);
+        assertThat(index.nearest(4.60, -74.07, 5, id -> false)).isEmpty();
+    }
+
+    @Test
+    void farQueriesFallBackToALinearScan() {
+        Random random = new Random(7);
+        List<Station> stations = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            Station s = station(i, 4.5 + random.nextDouble() * 0.3, -74.2 + random.nextDouble() * 0.2);
+            stations.add(s);
+            index.put(s);
+        }
+        // Cerca del polo la cota por anillo es ~0: sin el recorrido lineal barría toda la extensión
+        List<Integer> expected = stations.stream()
+                .sorted(Comparator.comparingDouble(s -> StationSpatialIndex.haversineMeters(89.9, -74.1, s.getLatitude(), s.getLength())))
+                .limit(5)
+                .map(Station::getIdStation)
+                .toList();
+        assertTimeoutPreemptively(Duration.ofMillis(500), () ->
+                assertThat(index.nearest(89.9, -74.1, 5, id -> true))
+                        .extracting(m -> m.station().idStation())
+                        .containsExactlyElementsOf(expected));
+    }
+
+    private static Station station(int id, double lat, double lon) {
+        Station s = new Station();
+        s.setIdStation(id);
+        s.setStationName("EST-" + id);
+        s.setLatitude(lat);
+        s.setLength(lon);
+        return s;
+    }
+}
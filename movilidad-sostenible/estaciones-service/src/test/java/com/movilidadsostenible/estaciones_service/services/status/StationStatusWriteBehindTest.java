@@ -0,0 +1,55 @@
+package com.movilidadsostenible.estaciones_service.services.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class StationStatusWriteBehindTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StationStatusWriteBehind writeBehind =
+            new StationStatusWriteBehind(jdbcTemplate);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void coalescesPerStationAndLetsTheDatabaseSkipUnchangedRows() {
+        ReflectionTestUtils.setField(writeBehind, "batchSize", 500);
+
+        writeBehind.record(1, true, true);
+        writeBehind.record(1, false, true);
+        writeBehind.record(2, true, true);
+        assertThat(writeBehind.pendingCount()).isEqualTo(2);
+        writeBehind.flush();
+        assertThat(writeBehind.pendingCount()).isZero();
+
+        // Sin memoria local de lo escrito: otra réplica pudo cambiar la fila, decide el IS DISTINCT FROM
+        writeBehind.record(1, false, true);
+        writeBehind.flush();
+
+        verify(jdbcTemplate).batchUpdate(contains("IS DISTINCT FROM"), argThat((List<?> batch) -> batch.size() == 2),
+                eq(2), any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate).batchUpdate(contains("IS DISTINCT FROM"), argThat((List<?> batch) -> batch.size() == 1),
+                eq(1), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void doesNothingWithoutPendingChanges() {
+        writeBehind.flush();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+}
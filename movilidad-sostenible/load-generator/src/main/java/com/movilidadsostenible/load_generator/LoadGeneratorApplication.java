@@ -0,0 +1,14 @@
+package com.movilidadsostenible.load_generator;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class LoadGeneratorApplication {
+
+	public static void main(String[] args) {
+		// Los clientes MQTT y WebSocket dejan hilos vivos: se cierra el contexto y la JVM al terminar la corrida
+		System.exit(SpringApplication.exit(SpringApplication.run(LoadGeneratorApplication.class, args)));
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.movilidadsostenible.load_generator;
+
+import com.movilidadsostenible.load_generator.fleet.FleetCatalog;
+import com.movilidadsostenible.load_generator.fleet.SimulatedBike;
+import com.movilidadsostenible.load_generator.mqtt.LoadPublisher;
+import com.movilidadsostenible.load_generator.probe.DbCommitProbe;
+import com.movilidadsostenible.load_generator.probe.WebSocketLatencyProbe;
+import com.movilidadsostenible.load_generator.stats.LatencyStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corrida completa: arma la flota, conecta las sondas, publica durante {@code loadgen.duration-seconds}
+ * y reporta tasas y percentiles por intervalo y para toda la ventana medida.
+ */
+@Component
+public class LoadGeneratorRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadGeneratorRunner.class);
+
+    @Value("${loadgen.duration-seconds:120}")
+    private long durationSeconds;
+    @Value("${loadgen.warmup-seconds:15}")
+    private long warmupSeconds;
+    @Value("${loadgen.report-interval-seconds:10}")
+    private long reportIntervalSeconds;
+    @Value("${loadgen.probe.sample-bikes:100}")
+    private int sampleBikes;
+    @Value("${loadgen.probe.websocket-enabled:true}")
+    private boolean websocketProbeEnabled;
+    @Value("${loadgen.probe.db-enabled:true}")
+    private boolean dbProbeEnabled;
+
+    private final FleetCatalog fleet;
+    private final LoadPublisher publisher;
+    private final WebSocketLatencyProbe websocketProbe;
+    private final DbCommitProbe dbProbe;
+    private final LatencyStats stats;
+
+    public LoadGeneratorRunner(FleetCatalog fleet, LoadPublisher publisher, WebSocketLatencyProbe websocketProbe,
+                               DbCommitProbe dbProbe, LatencyStats stats) {
+        this.fleet = fleet;
+        this.publisher = publisher;
+        this.websocketProbe = websocketProbe;
+        this.dbProbe = dbProbe;
+        this.stats = stats;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        fleet.load();
+        List<SimulatedBike> sample = new ArrayList<>(fleet.getBikes());
+        Collections.shuffle(sample);
+        sample = sample.subList(0, Math.min(sampleBikes, sample.size()));
+
+        if (websocketProbeEnabled) {
+            websocketProbe.connect(sample.stream().map(SimulatedBike::getIdBicycle).toList());
+        }
+        publisher.start(fleet.getBikes(), fleet.getStationIds());
+        if (dbProbeEnabled) {
+            dbProbe.start(sample);
+        }
+
+        try {
+            log.info("Calentamiento de {} s", warmupSeconds);
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            stats.reset();
+
+            long reportMs = TimeUnit.SECONDS.toMillis(reportIntervalSeconds);
+            long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(durationSeconds);
+            long last = System.currentTimeMillis();
+            while (System.currentTimeMillis() < end) {
+                TimeUnit.MILLISECONDS.sleep(Math.min(reportMs, end - System.currentTimeMillis()));
+                long now = System.currentTimeMillis();
+                log.info("--- Intervalo de {} ms ---", now - last);
+                stats.report(now - last);
+                last = now;
+            }
+        } finally {
+            publisher.stop();
+            dbProbe.stop();
+            websocketProbe.disconnect();
+        }
+
+        stats.summary();
+        if (dbProbeEnabled) {
+            dbProbe.logServiceMetrics();
+        }
+    }
+}
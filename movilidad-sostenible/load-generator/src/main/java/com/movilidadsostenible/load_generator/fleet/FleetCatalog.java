@@ -0,0 +1,150 @@
+package com.movilidadsostenible.load_generator.fleet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Arma la flota simulada. Con {@code loadgen.fleet.source=api} usa las bicis y estaciones registradas
+ * en bicis-service y estaciones-service, que son las únicas que esos servicios procesan de punta a punta.
+ */
+@Component
+public class FleetCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(FleetCatalog.class);
+
+    // Centro de Bogotá, mismo rango que usan los simuladores de mosquitto/ y frontend/
+    private static final double CENTER_LAT = 4.65;
+    private static final double CENTER_LON = -74.08;
+    private static final double SPREAD_DEGREES = 0.1;
+
+    @Value("${loadgen.fleet.source:api}")
+    private String source;
+    @Value("${loadgen.bikes.count:5000}")
+    private int bikeCount;
+    @Value("${loadgen.stations.count:200}")
+    private int stationCount;
+    @Value("${loadgen.services.bicis-url}")
+    private String bicisUrl;
+    @Value("${loadgen.services.estaciones-url}")
+    private String estacionesUrl;
+
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Getter
+    private List<SimulatedBike> bikes = List.of();
+    @Getter
+    private List<Integer> stationIds = List.of();
+
+    public FleetCatalog(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public void load() {
+        if ("api".equalsIgnoreCase(source)) {
+            bikes = loadBikes();
+            stationIds = loadStations();
+        }
+        if (bikes.isEmpty()) {
+            log.warn("Usando {} bicis sintéticas: bicis-service las descartará por desconocidas", bikeCount);
+            bikes = syntheticBikes();
+        }
+        if (stationIds.isEmpty()) {
+            log.warn("Usando {} estaciones sintéticas: estaciones-service las descartará por desconocidas", stationCount);
+            stationIds = new ArrayList<>();
+            for (int i = 1; i <= stationCount; i++) {
+                stationIds.add(i);
+            }
+        }
+        log.info("Flota simulada: {} bicis, {} estaciones", bikes.size(), stationIds.size());
+    }
+
+    private List<SimulatedBike> loadBikes() {
+        List<SimulatedBike> result = new ArrayList<>();
+        JsonNode list = fetch(bicisUrl + "/");
+        if (list == null) {
+            return result;
+        }
+        for (JsonNode b : list) {
+            if (result.size() >= bikeCount) {
+                break;
+            }
+            boolean electric = "ELECTRIC".equals(b.path("model").asText());
+            double lat = b.path("latitude").asDouble(0);
+            double lon = b.path("length").asDouble(0);
+            if (lat == 0 && lon == 0) {
+                lat = randomAround(CENTER_LAT);
+                lon = randomAround(CENTER_LON);
+            }
+            double battery = b.path("battery").asDouble(0) > 0 ? b.path("battery").asDouble() : 100;
+            result.add(new SimulatedBike(b.path("idBicycle").asText(), electric, lat, lon, battery));
+        }
+        if (result.size() < bikeCount) {
+            log.warn("bicis-service solo tiene {} bicis de las {} pedidas", result.size(), bikeCount);
+        }
+        return result;
+    }
+
+    private List<Integer> loadStations() {
+        List<Integer> result = new ArrayList<>();
+        JsonNode list = fetch(estacionesUrl + "/");
+        if (list == null) {
+            return result;
+        }
+        for (JsonNode s : list) {
+            if (result.size() >= stationCount) {
+                break;
+            }
+            result.add(s.path("idStation").asInt());
+        }
+        return result;
+    }
+
+    private List<SimulatedBike> syntheticBikes() {
+        List<SimulatedBike> result = new ArrayList<>(bikeCount);
+        for (int i = 0; i < bikeCount; i++) {
+            boolean electric = i % 2 == 0;
+            String id = String.format("%s-%06d", electric ? "ELEC" : "MECH", i);
+            result.add(new SimulatedBike(id, electric, randomAround(CENTER_LAT), randomAround(CENTER_LON),
+                    ThreadLocalRandom.current().nextDouble(20, 100)));
+        }
+        return result;
+    }
+
+    private JsonNode fetch(String url) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).GET().build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                log.warn("{} respondió {}", url, response.statusCode());
+                return null;
+            }
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            log.warn("No fue posible consultar {}: {}", url, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static double randomAround(double center) {
+        return center + (ThreadLocalRandom.current().nextDouble() - 0.5) * SPREAD_DEGREES;
+    }
+}
@@ -0,0 +1,41 @@
+package com.movilidadsostenible.load_generator.fleet;
+
+import lombok.Getter;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Estado de una bici simulada. Solo la muta el hilo que publica; {@code lastTimestamp} lo leen las sondas.
+ */
+@Getter
+public class SimulatedBike {
+
+    // ~5 m por muestra
+    private static final double STEP_DEGREES = 0.00005;
+
+    private final String idBicycle;
+    private final boolean electric;
+    private double latitude;
+    private double longitude;
+    private double battery;
+    private volatile long lastTimestamp;
+
+    public SimulatedBike(String idBicycle, boolean electric, double latitude, double longitude, double battery) {
+        this.idBicycle = idBicycle;
+        this.electric = electric;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.battery = electric ? battery : 0;
+    }
+
+    /** Avanza un paso aleatorio; las eléctricas gastan batería y se recargan al vaciarse. */
+    public void advance(long timestamp) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        latitude += (random.nextDouble() - 0.5) * 2 * STEP_DEGREES;
+        longitude += (random.nextDouble() - 0.5) * 2 * STEP_DEGREES;
+        if (electric) {
+            battery = battery <= 1 ? 100 : battery - random.nextDouble(0.1);
+        }
+        lastTimestamp = timestamp;
+    }
+}
@@ -0,0 +1,65 @@
+package com.movilidadsostenible.load_generator.mqtt;
+
+import com.hivemq.embedded.EmbeddedHiveMQ;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broker HiveMQ CE dentro del proceso del generador, para que la corrida no dependa de la
+ * configuración del mosquitto de despliegue. Soporta suscripciones {@code $share/...}.
+ */
+@Component
+@ConditionalOnProperty(name = "loadgen.embedded-broker.enabled", havingValue = "true")
+public class EmbeddedMqttBroker {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedMqttBroker.class);
+
+    @Value("${loadgen.embedded-broker.port:1883}")
+    private int port;
+
+    private EmbeddedHiveMQ broker;
+
+    @PostConstruct
+    public void start() throws Exception {
+        Path home = Files.createTempDirectory("loadgen-hivemq");
+        Path config = Files.createDirectories(home.resolve("conf"));
+        Files.writeString(config.resolve("config.xml"), """
+                <hivemq>
+                    <listeners>
+                        <tcp-listener>
+                            <port>%d</port>
+                            <bind-address>0.0.0.0</bind-address>
+                        </tcp-listener>
+                    </listeners>
+                    <mqtt>
+                        <queued-messages>
+                            <max-queue-size>100000</max-queue-size>
+                        </queued-messages>
+                    </mqtt>
+                </hivemq>
+                """.formatted(port));
+        broker = EmbeddedHiveMQ.builder()
+                .withConfigurationFolder(config)
+                .withDataFolder(Files.createDirectories(home.resolve("data")))
+                .withExtensionsFolder(Files.createDirectories(home.resolve("extensions")))
+                .build();
+        broker.start().get(60, TimeUnit.SECONDS);
+        log.info("Broker MQTT embebido escuchando en el puerto {}", port);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (broker != null) {
+            broker.stop().join();
+        }
+    }
+}
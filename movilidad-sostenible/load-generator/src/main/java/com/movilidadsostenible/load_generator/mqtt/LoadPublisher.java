@@ -0,0 +1,200 @@
+package com.movilidadsostenible.load_generator.mqtt;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.movilidadsostenible.load_generator.fleet.SimulatedBike;
+import com.movilidadsostenible.load_generator.stats.LatencyStats;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publica telemetría de bicis y estaciones y fines de viaje a tasa constante. Cada 10 ms se
+ * publica lo que corresponde según el tiempo transcurrido, así que un tick atrasado se recupera
+ * en el siguiente en lugar de bajar la tasa.
+ */
+@Component
+public class LoadPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadPublisher.class);
+    private static final long TICK_MS = 10;
+
+    private static final ObjectWriter BIKE_WRITER = new ObjectMapper().writerFor(BikeTelemetry.class);
+    private static final ObjectWriter STATION_USER_WRITER = new ObjectMapper().writerFor(StationTelemetryUser.class);
+    private static final ObjectWriter STATION_ADMIN_WRITER = new ObjectMapper().writerFor(StationTelemetryAdmin.class);
+    private static final ObjectWriter END_TRAVEL_WRITER = new ObjectMapper().writerFor(EndTravel.class);
+
+    @Value("${loadgen.mqtt.broker-url}")
+    private String brokerUrl;
+    @Value("${loadgen.mqtt.qos:1}")
+    private int qos;
+    @Value("${loadgen.mqtt.clients:4}")
+    private int clientCount;
+    @Value("${loadgen.mqtt.max-in-flight:10000}")
+    private int maxInFlight;
+    @Value("${loadgen.bikes.telemetry-rate:2000}")
+    private double bikeRate;
+    @Value("${loadgen.stations.telemetry-rate:100}")
+    private double stationRate;
+    @Value("${loadgen.stations.admin-ratio:0.1}")
+    private double stationAdminRatio;
+    @Value("${loadgen.trips.end-rate:0}")
+    private double tripEndRate;
+
+    private final LatencyStats stats;
+    private final List<MqttAsyncClient> clients = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("loadgen-publisher").factory());
+
+    private List<SimulatedBike> bikes;
+    private List<Integer> stationIds;
+    private long startNanos;
+    private long bikesSent;
+    private long stationsSent;
+    private long tripsSent;
+    private int nextClient;
+    private volatile boolean stopping;
+
+    public LoadPublisher(LatencyStats stats) {
+        this.stats = stats;
+    }
+
+    public void start(List<SimulatedBike> bikes, List<Integer> stationIds) throws MqttException {
+        this.bikes = bikes;
+        this.stationIds = stationIds;
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setCleanSession(true);
+        options.setAutomaticReconnect(true);
+        options.setMaxInflight(maxInFlight);
+        for (int i = 0; i < clientCount; i++) {
+            MqttAsyncClient client = new MqttAsyncClient(brokerUrl, "loadgen-" + i + "-" + System.nanoTime(),
+                    new MemoryPersistence());
+            client.connect(options).waitForCompletion(10_000);
+            clients.add(client);
+        }
+        log.info("Publicando a {}: {} msg/s de bicis, {} msg/s de estaciones, {} fines de viaje/s",
+                brokerUrl, bikeRate, stationRate, tripEndRate);
+        startNanos = System.nanoTime();
+        scheduler.scheduleAtFixedRate(this::tick, 0, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        try {
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+            for (long due = (long) (bikeRate * elapsedSeconds); bikesSent < due && !stopping; bikesSent++) {
+                publishBike(bikes.get((int) (bikesSent % bikes.size())));
+            }
+            for (long due = (long) (stationRate * elapsedSeconds); stationsSent < due && !stopping; stationsSent++) {
+                publishStation(stationIds.get((int) (stationsSent % stationIds.size())));
+            }
+            for (long due = (long) (tripEndRate * elapsedSeconds); tripsSent < due && !stopping; tripsSent++) {
+                publishTripEnd(bikes.get(ThreadLocalRandom.current().nextInt(bikes.size())));
+            }
+        } catch (Exception e) {
+            log.error("Error en el ciclo de publicación", e);
+        }
+    }
+
+    private void publishBike(SimulatedBike bike) throws Exception {
+        long now = System.currentTimeMillis();
+        bike.advance(now);
+        BikeTelemetry payload = new BikeTelemetry(bike.getIdBicycle(), "UNLOCKED", bike.getLatitude(),
+                bike.getLongitude(), bike.isElectric() ? bike.getBattery() : null, now);
+        publish("bikes/" + bike.getIdBicycle() + "/telemetry", BIKE_WRITER.writeValueAsBytes(payload), "mqtt.bicis");
+    }
+
+    private void publishStation(int idStation) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        int electric = random.nextInt(8);
+        int mechanic = random.nextInt(8);
+        if (random.nextDouble() < stationAdminRatio) {
+            StationTelemetryAdmin payload = new StationTelemetryAdmin(idStation, electric, mechanic, true, false, true, now);
+            publish("station/" + idStation + "/telemetry/admin", STATION_ADMIN_WRITER.writeValueAsBytes(payload),
+                    "mqtt.estaciones.admin");
+        } else {
+            StationTelemetryUser payload = new StationTelemetryUser(idStation, electric, mechanic, now);
+            publish("station/" + idStation + "/telemetry/user", STATION_USER_WRITER.writeValueAsBytes(payload),
+                    "mqtt.estaciones.user");
+        }
+    }
+
+    private void publishTripEnd(SimulatedBike bike) throws Exception {
+        int idStation = stationIds.get(ThreadLocalRandom.current().nextInt(stationIds.size()));
+        EndTravel payload = new EndTravel(bike.getLatitude(), bike.getLongitude(),
+                bike.isElectric() ? bike.getBattery() : null, System.currentTimeMillis());
+        publish("travel/" + idStation + "-1/" + bike.getIdBicycle() + "/end", END_TRAVEL_WRITER.writeValueAsBytes(payload),
+                "mqtt.viaje");
+    }
+
+    private void publish(String topic, byte[] payload, String counter) {
+        MqttAsyncClient client = clients.get(nextClient++ % clients.size());
+        long start = System.nanoTime();
+        try {
+            client.publish(topic, payload, qos, false, null, new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    stats.record("mqtt.ack", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable e) {
+                    stats.count("mqtt.fallidos");
+                }
+            });
+            stats.count(counter);
+        } catch (MqttException e) {
+            // Ventana de mensajes en vuelo llena o cliente reconectando: el broker no da abasto
+            stats.count("mqtt.rechazados");
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        stopping = true;
+        scheduler.shutdown();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        long backlog = (long) (bikeRate * (System.nanoTime() - startNanos) / 1e9) - bikesSent;
+        if (backlog > bikeRate) {
+            // Más de un segundo de atraso: la tasa medida la limita el generador, no los servicios
+            log.warn("El generador quedó {} mensajes de bicis atrasado respecto a la tasa pedida", backlog);
+        }
+        for (MqttAsyncClient client : clients) {
+            try {
+                client.disconnect(5_000).waitForCompletion(6_000);
+                client.close();
+            } catch (MqttException e) {
+                log.warn("Error cerrando cliente MQTT: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Mismos campos que los DTO que decodifican los servicios
+
+    record BikeTelemetry(String idBicycle, String padlockStatus, Double latitude, Double longitude, Double battery,
+                         long timestamp) {
+    }
+
+    record StationTelemetryUser(int idStation, int availableElectricBikes, int availableMechanicBikes, long timestamp) {
+    }
+
+    record StationTelemetryAdmin(int idStation, int availableElectricBikes, int availableMechanicBikes,
+                                 boolean cctvStatus, boolean panicButtonStatus, boolean lightingStatus, long timestamp) {
+    }
+
+    record EndTravel(double latitudeBicycle, double longitudeBicycle, Double batteryBicycle, long endTravelTimestamp) {
+    }
+}
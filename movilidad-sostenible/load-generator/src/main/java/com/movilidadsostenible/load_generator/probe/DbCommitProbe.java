@@ -0,0 +1,132 @@
+package com.movilidadsostenible.load_generator.probe;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.movilidadsostenible.load_generator.fleet.SimulatedBike;
+import com.movilidadsostenible.load_generator.stats.LatencyStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el tiempo hasta que una muestra publicada queda confirmada en {@code bicycle_telemetry}:
+ * toma la última muestra de una bici de la muestra y consulta {@code GET /{id}/track} de
+ * bicis-service hasta que aparece. Una sonda a la vez para no sumar carga de lectura a la BD.
+ */
+@Component
+public class DbCommitProbe {
+
+    private static final Logger log = LoggerFactory.getLogger(DbCommitProbe.class);
+    private static final long POLL_MS = 50;
+    private static final List<String> BICIS_METRICS = List.of(
+            "bicycle.telemetry.writebehind.rows",
+            "bicycle.telemetry.writebehind.pending",
+            "bicycle.telemetry.history.written",
+            "bicycle.telemetry.history.dropped",
+            "bicycle.telemetry.history.pending");
+
+    @Value("${loadgen.services.bicis-url}")
+    private String bicisUrl;
+    @Value("${loadgen.probe.db-interval-ms:1000}")
+    private long intervalMs;
+    @Value("${loadgen.probe.db-timeout-ms:30000}")
+    private long timeoutMs;
+    @Value("${loadgen.probe.db-zone:America/Bogota}")
+    private ZoneId zone;
+
+    private final LatencyStats stats;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("loadgen-db-probe").daemon().factory());
+
+    public DbCommitProbe(LatencyStats stats, ObjectMapper objectMapper) {
+        this.stats = stats;
+        this.objectMapper = objectMapper;
+    }
+
+    public void start(List<SimulatedBike> sample) {
+        scheduler.scheduleWithFixedDelay(() -> probe(sample), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void probe(List<SimulatedBike> sample) {
+        SimulatedBike bike = sample.get(ThreadLocalRandom.current().nextInt(sample.size()));
+        long timestamp = bike.getLastTimestamp();
+        if (timestamp == 0) {
+            return;
+        }
+        try {
+            // bicis-service interpreta from/to en su zona horaria
+            LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), zone);
+            URI uri = URI.create(bicisUrl + "/" + bike.getIdBicycle() + "/track?from=" + at.minusSeconds(1)
+                    + "&to=" + at.plusSeconds(1));
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(10)).GET().build();
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (System.currentTimeMillis() < deadline) {
+                if (contains(httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()), timestamp)) {
+                    stats.record("db.bicis.historial", System.currentTimeMillis() - timestamp);
+                    return;
+                }
+                Thread.sleep(POLL_MS);
+            }
+            stats.count("db.bicis.historial.timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Error en la sonda de BD: {}", e.toString());
+        }
+    }
+
+    private boolean contains(HttpResponse<byte[]> response, long timestamp) throws IOException {
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        for (JsonNode point : objectMapper.readTree(response.body())) {
+            if (point.path("timestamp").asLong() == timestamp) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /** Métricas de escritura de bicis-service (actuator), para ver si la BD quedó con pendientes. */
+    public void logServiceMetrics() {
+        for (String metric : BICIS_METRICS) {
+            try {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(bicisUrl + "/actuator/metrics/" + metric))
+                        .timeout(Duration.ofSeconds(5)).GET().build();
+                HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() == 200) {
+                    JsonNode value = objectMapper.readTree(response.body()).path("measurements").path(0).path("value");
+                    log.info("  bicis-service {}: {}", metric, value.asDouble());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("No fue posible leer la métrica {}: {}", metric, e.toString());
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.movilidadsostenible.load_generator.probe;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.movilidadsostenible.load_generator.stats.LatencyStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Se suscribe por STOMP a los tópicos que alimentan el mapa y mide cuánto tarda el push desde que
+ * se publicó la muestra por MQTT (campo {@code timestamp} del payload). En bicis-service incluye
+ * la espera de la conflación, que es lo que ve un cliente real.
+ */
+@Component
+public class WebSocketLatencyProbe {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketLatencyProbe.class);
+
+    @Value("${loadgen.services.bicis-url}")
+    private String bicisUrl;
+    @Value("${loadgen.services.estaciones-url}")
+    private String estacionesUrl;
+
+    private final LatencyStats stats;
+    private final WebSocketStompClient stompClient;
+    private final List<StompSession> sessions = new ArrayList<>();
+
+    public WebSocketLatencyProbe(LatencyStats stats) {
+        this.stats = stats;
+        this.stompClient = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        this.stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    public void connect(List<String> sampleBikeIds) {
+        List<String> bikeTopics = new ArrayList<>();
+        sampleBikeIds.forEach(id -> bikeTopics.add("/topic/bicycle.location/" + id));
+        subscribe(bicisUrl + "/ws", bikeTopics, "ws.bicis");
+        subscribe(estacionesUrl + "/ws", List.of("/topic/station.update/user"), "ws.estaciones");
+    }
+
+    private void subscribe(String url, List<String> topics, String stage) {
+        try {
+            StompSession session = stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+            }).get(10, TimeUnit.SECONDS);
+            StompFrameHandler handler = new LatencyFrameHandler(stage);
+            topics.forEach(topic -> session.subscribe(topic, handler));
+            sessions.add(session);
+            log.info("Sonda WebSocket conectada a {} ({} tópicos)", url, topics.size());
+        } catch (Exception e) {
+            log.warn("No fue posible conectar la sonda WebSocket a {}: {}", url, e.getMessage());
+        }
+    }
+
+    public void disconnect() {
+        sessions.forEach(StompSession::disconnect);
+        stompClient.stop();
+    }
+
+    private class LatencyFrameHandler implements StompFrameHandler {
+
+        private final String stage;
+
+        LatencyFrameHandler(String stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        @NonNull
+        public Type getPayloadType(@NonNull StompHeaders headers) {
+            return JsonNode.class;
+        }
+
+        @Override
+        public void handleFrame(@NonNull StompHeaders headers, Object payload) {
+            long timestamp = ((JsonNode) payload).path("timestamp").asLong(0);
+            if (timestamp > 0) {
+                stats.record(stage, System.currentTimeMillis() - timestamp);
+            }
+        }
+    }
+}
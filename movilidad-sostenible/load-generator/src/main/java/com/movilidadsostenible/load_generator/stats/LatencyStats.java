@@ -0,0 +1,88 @@
+package com.movilidadsostenible.load_generator.stats;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores y latencias por etapa. Cada {@link #report} imprime el intervalo transcurrido y lo
+ * acumula en el total de la corrida; {@link #reset} descarta lo medido durante el calentamiento.
+ */
+@Component
+public class LatencyStats {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyStats.class);
+    private static final long MAX_LATENCY_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> countersAtLastReport = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> countersAtWindowStart = new ConcurrentHashMap<>();
+    private final Map<String, Recorder> recorders = new ConcurrentSkipListMap<>();
+    private final Map<String, Histogram> totals = new ConcurrentSkipListMap<>();
+    private volatile long windowStart = System.nanoTime();
+    private volatile long lastReport = windowStart;
+
+    public void count(String name) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).increment();
+    }
+
+    /** Registra una latencia en ms; los valores negativos (relojes desfasados) cuentan como 0. */
+    public void record(String stage, long latencyMs) {
+        recorders.computeIfAbsent(stage, k -> new Recorder(MAX_LATENCY_MS, 3))
+                .recordValue(Math.min(Math.max(latencyMs, 0), MAX_LATENCY_MS));
+    }
+
+    public synchronized void reset() {
+        counters.forEach((name, adder) -> {
+            countersAtLastReport.put(name, adder.sum());
+            countersAtWindowStart.put(name, adder.sum());
+        });
+        recorders.values().forEach(Recorder::getIntervalHistogram);
+        totals.clear();
+        windowStart = System.nanoTime();
+        lastReport = windowStart;
+    }
+
+    public synchronized void report(long intervalMs) {
+        double seconds = intervalMs / 1000.0;
+        counters.forEach((name, adder) -> {
+            long now = adder.sum();
+            long previous = countersAtLastReport.getOrDefault(name, 0L);
+            countersAtLastReport.put(name, now);
+            log.info("  {}: {} msg/s", name, String.format("%.0f", (now - previous) / seconds));
+        });
+        recorders.forEach((stage, recorder) -> {
+            Histogram interval = recorder.getIntervalHistogram();
+            totals.computeIfAbsent(stage, k -> new Histogram(MAX_LATENCY_MS, 3)).add(interval);
+            log.info("  {}", describe(stage, interval));
+        });
+        lastReport = System.nanoTime();
+    }
+
+    /** Resumen de toda la ventana de medición; llamar después del último {@link #report}. */
+    public synchronized void summary() {
+        double seconds = (lastReport - windowStart) / 1e9;
+        log.info("===== Resultado ({} s medidos) =====", String.format("%.1f", seconds));
+        countersAtLastReport.forEach((name, atLastReport) -> {
+            long total = atLastReport - countersAtWindowStart.getOrDefault(name, 0L);
+            log.info("  {}: {} mensajes, {} msg/s", name, total, String.format("%.0f", total / seconds));
+        });
+        totals.forEach((stage, histogram) -> log.info("  {}", describe(stage, histogram)));
+    }
+
+    private static String describe(String stage, Histogram h) {
+        if (h.getTotalCount() == 0) {
+            return stage + ": sin muestras";
+        }
+        return String.format("%s: n=%d p50=%d ms p95=%d ms p99=%d ms max=%d ms", stage, h.getTotalCount(),
+                h.getValueAtPercentile(50), h.getValueAtPercentile(95), h.getValueAtPercentile(99), h.getMaxValue());
+    }
+}
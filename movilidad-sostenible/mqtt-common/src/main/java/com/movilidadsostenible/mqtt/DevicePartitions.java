@@ -0,0 +1,105 @@
+package com.movilidadsostenible.mqtt;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Reparto de dispositivos (bicicletas, estaciones) entre las réplicas de un servicio por hashing
+ * de rendezvous. Cada réplica se suscribe sin grupo y recibe todos los mensajes MQTT, así sus
+ * vistas locales (flota en memoria, disponibilidad, WebSocket) ven el flujo completo y en orden;
+ * lo que debe ocurrir una sola vez (escrituras en BD, alertas, cobros) lo hace solo la réplica
+ * dueña del dispositivo, siempre la misma mientras no cambie la lista de réplicas. Cuando entra o
+ * sale una réplica solo cambian de dueño los dispositivos que le tocan a ella.
+ *
+ * <p>La lista de réplicas llega del registro de servicios con algunos segundos de retraso: justo
+ * después de un cambio, dos réplicas pueden creerse dueñas de un mismo dispositivo (o ninguna).
+ * Por eso las escrituras que dependen del dueño siguen protegidas contra filas viejas en la BD.
+ */
+public class DevicePartitions {
+
+    private final String self;
+    private volatile Members members;
+
+    public DevicePartitions(String self) {
+        this.self = self;
+        this.members = Members.of(self, new TreeSet<>(java.util.List.of(self)));
+    }
+
+    public String self() {
+        return self;
+    }
+
+    public int memberCount() {
+        return members.hashes.length;
+    }
+
+    /** true si esta réplica es la dueña del dispositivo; un id nulo se procesa localmente. */
+    public boolean owns(String deviceId) {
+        return deviceId == null || owns(deviceId.hashCode());
+    }
+
+    public boolean owns(long deviceKey) {
+        Members current = members;
+        if (current.hashes.length == 1) {
+            return true;
+        }
+        long key = mix(deviceKey);
+        int owner = 0;
+        long best = mix(current.hashes[0] ^ key);
+        for (int i = 1; i < current.hashes.length; i++) {
+            long score = mix(current.hashes[i] ^ key);
+            if (Long.compareUnsigned(score, best) > 0) {
+                best = score;
+                owner = i;
+            }
+        }
+        return owner == current.selfIndex;
+    }
+
+    /**
+     * Reemplaza la lista de réplicas; la propia se agrega si el registro todavía no la tiene.
+     * Devuelve true si la lista cambió.
+     */
+    public boolean updateMembers(Collection<String> instanceIds) {
+        TreeSet<String> ids = new TreeSet<>(instanceIds);
+        ids.add(self);
+        Members next = Members.of(self, ids);
+        if (Arrays.equals(next.ids, members.ids)) {
+            return false;
+        }
+        members = next;
+        return true;
+    }
+
+    // Finalizador de 64 bits de MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // FNV-1a de 64 bits: String.hashCode tiene solo 32 bits y choca con facilidad entre ids parecidos
+    private static long hash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private record Members(String[] ids, long[] hashes, int selfIndex) {
+        static Members of(String self, TreeSet<String> sorted) {
+            String[] ids = sorted.toArray(String[]::new);
+            long[] hashes = new long[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                hashes[i] = hash(ids[i]);
+            }
+            return new Members(ids, hashes, Arrays.binarySearch(ids, self));
+        }
+    }
+}
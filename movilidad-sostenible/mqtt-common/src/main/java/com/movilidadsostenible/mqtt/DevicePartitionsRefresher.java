@@ -0,0 +1,63 @@
+package com.movilidadsostenible.mqtt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actualiza cada {@code mqtt.partitions.refresh-interval-ms} las réplicas de {@link DevicePartitions}
+ * con las instancias que el registro de servicios tiene del propio servicio. Si el registro no
+ * responde se conserva la última lista conocida.
+ */
+public class DevicePartitionsRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(DevicePartitionsRefresher.class);
+
+    private final DevicePartitions partitions;
+    private final DiscoveryClient discoveryClient;
+    private final String serviceId;
+    private final long refreshIntervalMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("mqtt-partitions").daemon().factory());
+
+    public DevicePartitionsRefresher(DevicePartitions partitions, DiscoveryClient discoveryClient,
+                                     String serviceId, long refreshIntervalMs) {
+        this.partitions = partitions;
+        this.discoveryClient = discoveryClient;
+        this.serviceId = serviceId;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::refreshSafely, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    void refresh() {
+        List<String> ids = discoveryClient.getInstances(serviceId).stream()
+                .map(ServiceInstance::getInstanceId)
+                .filter(id -> id != null && !id.isBlank())
+                .toList();
+        if (partitions.updateMembers(ids)) {
+            log.info("Réplicas de {} para el reparto de dispositivos MQTT: {} (esta: {})",
+                    serviceId, partitions.memberCount(), partitions.self());
+        }
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("No fue posible consultar las réplicas de {}; se conserva la lista anterior: {}", serviceId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.movilidadsostenible.mqtt;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.util.UUID;
+
+/**
+ * Registra {@link DevicePartitions} con la identidad de la instancia en el registro de servicios.
+ * Con {@code mqtt.partitions.enabled=false} la réplica se considera sola y es dueña de todos los
+ * dispositivos: solo sirve para una instancia.
+ */
+@AutoConfiguration(afterName = "org.springframework.cloud.client.discovery.composite.CompositeDiscoveryClientAutoConfiguration")
+public class MqttPartitionsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public DevicePartitions devicePartitions(ObjectProvider<Registration> registration, Environment environment) {
+        Registration self = registration.getIfAvailable();
+        return new DevicePartitions(self != null && self.getInstanceId() != null
+                ? self.getInstanceId()
+                : environment.getProperty("spring.application.name", "app") + ":" + UUID.randomUUID());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(DiscoveryClient.class)
+    @ConditionalOnProperty(name = "mqtt.partitions.enabled", havingValue = "true", matchIfMissing = true)
+    public DevicePartitionsRefresher devicePartitionsRefresher(DevicePartitions partitions, DiscoveryClient discoveryClient,
+                                                               Environment environment) {
+        return new DevicePartitionsRefresher(partitions, discoveryClient,
+                environment.getProperty("spring.application.name", "app"),
+                environment.getProperty("mqtt.partitions.refresh-interval-ms", Long.class, 5000L));
+    }
+}
@@ -0,0 +1,39 @@
+package com.movilidadsostenible.mqtt;
+
+/**
+ * Lectura de segmentos de un tópico MQTT con indexOf, sin split ni regex, para no crear
+ * arreglos ni cadenas intermedias por mensaje.
+ */
+public final class MqttTopics {
+
+    private MqttTopics() {
+    }
+
+    // Segmento index (desde 0) del tópico, o null si no existe
+    public static String segment(String topic, int index) {
+        int start = segmentStart(topic, index);
+        if (start < 0) return null;
+        int end = topic.indexOf('/', start);
+        return topic.substring(start, end < 0 ? topic.length() : end);
+    }
+
+    // true si el segmento index es exactamente expected
+    public static boolean segmentEquals(String topic, int index, String expected) {
+        int start = segmentStart(topic, index);
+        if (start < 0) return false;
+        int end = start + expected.length();
+        return topic.regionMatches(start, expected, 0, expected.length())
+                && (end == topic.length() || topic.charAt(end) == '/');
+    }
+
+    private static int segmentStart(String topic, int index) {
+        if (topic == null) return -1;
+        int start = 0;
+        for (int i = 0; i < index; i++) {
+            int slash = topic.indexOf('/', start);
+            if (slash < 0) return -1;
+            start = slash + 1;
+        }
+        return start;
+    }
+}
@@ -0,0 +1,59 @@
+package com.movilidadsostenible.mqtt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DevicePartitionsTest {
+
+    private static final List<String> REPLICAS = List.of("host-a:bicis-service:8003", "host-b:bicis-service:8003",
+            "host-c:bicis-service:8003");
+
+    @Test
+    void everyDeviceHasExactlyOneOwnerAndFewMoveWhenAReplicaLeaves() {
+        List<DevicePartitions> replicas = new ArrayList<>();
+        for (String id : REPLICAS) {
+            DevicePartitions partitions = new DevicePartitions(id);
+            assertThat(partitions.updateMembers(REPLICAS)).isTrue();
+            replicas.add(partitions);
+        }
+        int[] owned = new int[REPLICAS.size()];
+        int moved = 0;
+        DevicePartitions survivor = new DevicePartitions(REPLICAS.get(0));
+        survivor.updateMembers(REPLICAS.subList(0, 2));
+        for (int bike = 0; bike < 3000; bike++) {
+            String id = "ELEC-" + bike;
+            int owners = 0;
+            for (int r = 0; r < replicas.size(); r++) {
+                if (replicas.get(r).owns(id)) {
+                    owners++;
+                    owned[r]++;
+                }
+            }
+            assertThat(owners).isEqualTo(1);
+            if (replicas.get(0).owns(id) && !survivor.owns(id)) {
+                moved++;
+            }
+        }
+
+        for (int count : owned) {
+            assertThat(count).isBetween(800, 1200);
+        }
+        // Al salir host-c, host-a conserva todo lo suyo
+        assertThat(moved).isZero();
+        assertThat(survivor.updateMembers(List.of(REPLICAS.get(1), REPLICAS.get(0)))).isFalse();
+    }
+
+    @Test
+    void aLoneReplicaOwnsEverything() {
+        DevicePartitions partitions = new DevicePartitions("solo");
+        partitions.updateMembers(List.of());
+
+        assertThat(partitions.memberCount()).isEqualTo(1);
+        assertThat(partitions.owns("ELEC-1")).isTrue();
+        assertThat(partitions.owns(42)).isTrue();
+    }
+}
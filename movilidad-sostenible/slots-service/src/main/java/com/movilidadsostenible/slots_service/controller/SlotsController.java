@@ -2,14 +2,24 @@ package com.movilidadsostenible.slots_service.controller;
 
 import com.movilidadsostenible.slots_service.clients.BicycleClient;
 import com.movilidadsostenible.slots_service.model.dto.BicycleTelemetryEndTravelDTO;
+import com.movilidadsostenible.slots_service.model.dto.SlotBulkResultDTO;
+import com.movilidadsostenible.slots_service.model.dto.SlotEventReplayDTO;
+import com.movilidadsostenible.slots_service.model.dto.StationSlotSummaryDTO;
+import com.movilidadsostenible.slots_service.model.dto.TripSlotReservationDTO;
 import com.movilidadsostenible.slots_service.model.entity.Slot;
 import com.movilidadsostenible.slots_service.service.SlotsService;
+import com.movilidadsostenible.slots_service.service.events.SlotEventStream;
+import com.movilidadsostenible.slots_service.service.inventory.SlotInventoryUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -25,13 +35,17 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Slots", description = "Operaciones para gestionar slots de estación")
 public class SlotsController {
 
+    private static final int MAX_SUMMARY_STATIONS = 1000;
+
     @Autowired
     private BicycleClient bicycleClient;
 
     private final SlotsService service;
+    private final SlotEventStream eventStream;
 
-    public SlotsController(SlotsService service) {
+    public SlotsController(SlotsService service, SlotEventStream eventStream) {
         this.service = service;
+        this.eventStream = eventStream;
     }
 
     @PostMapping("/create")
@@ -54,6 +68,34 @@ public class SlotsController {
         return ResponseEntity.created(URI.create("/api/v1/slots/" + created.getIdSlot())).body(created);
     }
 
+    @PostMapping("/bulk")
+    @Operation(
+            summary = "Crear slots en lote",
+            description = "Inserta todos los slots en un único batch y una sola transacción. Devuelve el resultado por slot: 201 creado, 409 ya existía, 400 inválido."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resultado por slot",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = SlotBulkResultDTO.class)))),
+            @ApiResponse(responseCode = "400", description = "Lista vacía o una estación/bicicleta referenciada no existe", content = @Content)
+    })
+    public ResponseEntity<?> createBulk(
+            @RequestBody(description = "Slots a crear", required = true,
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = Slot.class))))
+            @org.springframework.web.bind.annotation.RequestBody List<Slot> slots
+    ) {
+        if (slots == null || slots.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "La lista de slots está vacía"));
+        }
+        try {
+            return ResponseEntity.ok(service.createAll(slots));
+        } catch (DataIntegrityViolationException ex) {
+            // Se revierte todo el lote
+            return ResponseEntity.badRequest().body(Map.of(
+                    "mensaje", "La estación o bicicleta referenciada no existe",
+                    "detalle", ex.getMostSpecificCause().getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener slot por ID")
     @ApiResponses(value = {
@@ -76,6 +118,67 @@ public class SlotsController {
         return service.findAll();
     }
 
+    @GetMapping("/stations/{stationId}/summary")
+    @Operation(summary = "Resumen de slots de una estación",
+            description = "Cuenta los slots de la estación por estado del candado y las bicicletas disponibles por tipo, sin descargar los slots.")
+    @ApiResponse(responseCode = "200", description = "Resumen de la estación",
+            content = @Content(schema = @Schema(implementation = StationSlotSummaryDTO.class)))
+    public StationSlotSummaryDTO getStationSummary(
+            @Parameter(description = "Identificador de la estación", example = "1")
+            @PathVariable Integer stationId
+    ) {
+        return service.summarizeStations(List.of(stationId)).get(0);
+    }
+
+    @PostMapping("/stations/summary")
+    @Operation(summary = "Resumen de slots de varias estaciones",
+            description = "Igual que el resumen por estación, para una lista de estaciones en una sola consulta. Las estaciones sin slots aparecen con conteos en cero.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resumen por estación, en el orden pedido",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = StationSlotSummaryDTO.class)))),
+            @ApiResponse(responseCode = "400", description = "Lista vacía, con nulos o con más de " + MAX_SUMMARY_STATIONS + " estaciones", content = @Content)
+    })
+    public ResponseEntity<?> getStationsSummary(
+            @RequestBody(description = "Identificadores de las estaciones", required = true,
+                    content = @Content(array = @ArraySchema(schema = @Schema(type = "integer", example = "1"))))
+            @org.springframework.web.bind.annotation.RequestBody List<Integer> stationIds
+    ) {
+        if (stationIds == null || stationIds.isEmpty() || stationIds.contains(null)) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "La lista de estaciones está vacía o tiene valores nulos"));
+        }
+        if (stationIds.size() > MAX_SUMMARY_STATIONS) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "Máximo " + MAX_SUMMARY_STATIONS + " estaciones por solicitud"));
+        }
+        return ResponseEntity.ok(service.summarizeStations(stationIds));
+    }
+
+    @GetMapping("/stations/{stationId}/events")
+    @Operation(summary = "Cambios de slots de una estación desde una secuencia",
+            description = "Devuelve los cambios de estado de la estación con secuencia mayor a fromSequence, para ponerse al día tras un reinicio o un hueco en slot_events. "
+                    + "Responde 410 si el epoch no coincide o los cambios ya no están en la ventana; en ese caso se debe volver a leer el resumen.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cambios posteriores a la secuencia",
+                    content = @Content(schema = @Schema(implementation = SlotEventReplayDTO.class))),
+            @ApiResponse(responseCode = "410", description = "Ya no es posible reconstruir los cambios pedidos", content = @Content)
+    })
+    public ResponseEntity<?> replayStationEvents(
+            @Parameter(description = "Identificador de la estación", example = "1")
+            @PathVariable Integer stationId,
+            @Parameter(description = "Última secuencia aplicada por el consumidor", example = "0")
+            @RequestParam(defaultValue = "0") long fromSequence,
+            @Parameter(description = "Epoch de los eventos que tiene el consumidor")
+            @RequestParam(required = false) Long epoch
+    ) {
+        if (fromSequence < 0) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "fromSequence no puede ser negativo"));
+        }
+        return eventStream.replay(stationId, fromSequence, epoch)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(410).body(Map.of(
+                        "mensaje", "Los cambios pedidos ya no están disponibles; vuelva a leer el resumen de la estación",
+                        "epoch", eventStream.epoch())));
+    }
+
     @PutMapping("/{id}/padlock-status")
     @Operation(summary = "Actualizar estado del candado",
             description = "Actualiza el estado del candado del slot (por ejemplo, LOCKED o UNLOCKED)")
@@ -110,7 +213,7 @@ public class SlotsController {
     // reservar primer slot disponible (LOCKED -> RESERVED) devolviendo con bicicleta MECHANIC (bicycleId = "MECH-******) slotId y bicycleId en texto plano
     @PostMapping("/stations/{stationId}/reserve-mechanic")
     @Operation(summary = "Reservar el primer slot LOCKED (bicicleta mecánica)",
-            description = "Devuelve el primer slot con estado LOCKED de la estación indicada y lo cambia a RESERVED. La respuesta incluye slotId y bicycleId concatenados por '|', por ejemplo: EST-TIP-01|MECH-123456.")
+            description = "Devuelve el primer slot con estado LOCKED de la estación indicada y lo cambia a RESERVED. La respuesta incluye slotId y bicycleId concatenados por '|', por ejemplo: EST-TIP-01|MECH-123456. La bicicleta pasa a RESERVED en bicis-service de forma asíncrona.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "ID del slot y bicycleId",
                     content = @Content(mediaType = "text/plain", schema = @Schema(type = "string", example = "EST-TIP-01|MECH-123456"))),
@@ -122,14 +225,8 @@ public class SlotsController {
     ) {
         try {
             Slot reserved = service.reserveFirstAvailableSlotMechanicBicy(stationId);
-            String payload = reserved.getIdSlot() + "|" + reserved.getBicycleId();
-            try {
-                bicycleClient.updatePadlockStatus(reserved.getBicycleId(), "RESERVED");
-            } catch (Exception feignEx) {
-                return ResponseEntity.status(502)
-                        .body("BICIS_SERVICE_ERROR: " + feignEx.getMessage());
-            }
-            return ResponseEntity.ok(payload);
+            // La bicicleta pasa a RESERVED en bicis-service vía outbox, fuera de la respuesta
+            return ResponseEntity.ok(reserved.getIdSlot() + "|" + reserved.getBicycleId());
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body("NO_SLOT_AVAILABLE");
         }
@@ -138,7 +235,7 @@ public class SlotsController {
     // reservar primer slot disponible (LOCKED -> RESERVED) devolviendo con bicicleta ELECTRIC (bicycleId = "ELEC-******) slotId y bicycleId en texto plano
     @PostMapping("/stations/{stationId}/reserve-electric")
     @Operation(summary = "Reservar el primer slot LOCKED (bicicleta eléctrica)",
-            description = "Devuelve el ID del primer slot con estado LOCKED de la estación indicada y cambia su estado a RESERVED. La respuesta incluye slotId y bicycleId concatenados por '|', por ejemplo: EST-TIP-01|ELEC-123456.")
+            description = "Devuelve el ID del primer slot con estado LOCKED de la estación indicada y cambia su estado a RESERVED. La respuesta incluye slotId y bicycleId concatenados por '|', por ejemplo: EST-TIP-01|ELEC-123456. La bicicleta pasa a RESERVED en bicis-service de forma asíncrona.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "ID del slot y bicycleId",
                     content = @Content(mediaType = "text/plain", schema = @Schema(type = "string", example = "EST-TIP-01|ELEC-123456"))),
@@ -150,14 +247,8 @@ public class SlotsController {
     ) {
         try {
             Slot reserved = service.reserveFirstAvailableSlotElectricBicy(stationId);
-            String payload = reserved.getIdSlot() + "|" + reserved.getBicycleId();
-            try {
-                bicycleClient.updatePadlockStatus(reserved.getBicycleId(), "RESERVED");
-            } catch (Exception feignEx) {
-                return ResponseEntity.status(502)
-                        .body("BICIS_SERVICE_ERROR: " + feignEx.getMessage());
-            }
-            return ResponseEntity.ok(payload);
+            // La bicicleta pasa a RESERVED en bicis-service vía outbox, fuera de la respuesta
+            return ResponseEntity.ok(reserved.getIdSlot() + "|" + reserved.getBicycleId());
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body("NO_SLOT_AVAILABLE");
         }
@@ -184,6 +275,34 @@ public class SlotsController {
         }
     }
 
+    // reservar en una sola llamada el slot de salida (con bicicleta) y el anclaje de llegada
+    @PostMapping("/stations/{stationStartId}/reserve-trip")
+    @Operation(summary = "Reservar salida y llegada de un viaje",
+            description = "En una sola transacción reserva el primer slot LOCKED con bicicleta del tipo indicado en la estación de salida y el primer slot UNLOCKED de la estación de llegada. Si cualquiera de los dos no está disponible no se reserva ninguno. La bicicleta pasa a RESERVED en bicis-service de forma asíncrona.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Slots reservados",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TripSlotReservationDTO.class))),
+            @ApiResponse(responseCode = "400", description = "bikeType inválido o no hay slots disponibles; no se reservó nada", content = @Content)
+    })
+    public ResponseEntity<?> reserveTrip(
+            @Parameter(description = "Estación de salida", example = "1")
+            @PathVariable Integer stationStartId,
+            @Parameter(description = "Estación de llegada", example = "2")
+            @RequestParam Integer stationEndId,
+            @Parameter(description = "Tipo de bicicleta: ELECTRIC o MECHANIC", example = "ELECTRIC")
+            @RequestParam String bikeType
+    ) {
+        String type = bikeType.trim().toUpperCase(Locale.ROOT);
+        if (!"ELECTRIC".equals(type) && !"MECHANIC".equals(type)) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", "bikeType inválido: debe ser ELECTRIC o MECHANIC"));
+        }
+        try {
+            return ResponseEntity.ok(service.reserveTrip(stationStartId, stationEndId, type));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("mensaje", ex.getMessage()));
+        }
+    }
+
     // Bloquear slot asignando bicicleta (padlockStatus -> LOCKED)
     @PostMapping("/{slotId}/lock")
     @Operation(summary = "Bloquear un slot asignando una bicicleta",
@@ -201,7 +320,6 @@ public class SlotsController {
     ) {
       try {
         Slot locked = service.lockSlotWithBicycle(slotId, bicycleId);
-        bicycleClient.updatePadlockStatus(bicycleId, "LOCKED");
         return ResponseEntity.ok(locked.getIdSlot());
       } catch (IllegalArgumentException ex) {
         return ResponseEntity.notFound().build();
@@ -225,7 +343,6 @@ public class SlotsController {
     ) {
       try {
         Slot locked = service.unlockSlotWithBicycle(slotId, bicycleId);
-        bicycleClient.updatePadlockStatus(bicycleId, "UNLOCKED");
         return ResponseEntity.ok(locked.getIdSlot());
       } catch (IllegalArgumentException ex) {
         return ResponseEntity.notFound().build();
@@ -235,7 +352,7 @@ public class SlotsController {
     // PUT: Bloquear un slot por ID (LOCKED) y actualizar la bicicleta asociada
     @PutMapping("/{slotId}/lock")
     @Operation(summary = "Bloquear slot por ID",
-            description = "Cambia el estado del candado del slot a LOCKED y, si hay bicicleta asociada, actualiza su padlockStatus a LOCKED en bicis-service.")
+            description = "Cambia el estado del candado del slot a LOCKED y, si hay bicicleta asociada, actualiza su padlockStatus a LOCKED en bicis-service de forma asíncrona.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Slot bloqueado",
                     content = @Content(mediaType = "text/plain", schema = @Schema(type = "string", example = "S-001|ELEC-123456"))),
@@ -245,24 +362,14 @@ public class SlotsController {
             @Parameter(description = "Identificador del slot", example = "S-001")
             @PathVariable String slotId
     ) {
-        // Obtener slot
-        Slot slot = service.findById(slotId).orElse(null);
-        if (slot == null) {
+        // Cambiar estado del slot a LOCKED; la bicicleta asociada se actualiza vía outbox
+        Slot slot;
+        try {
+            slot = service.lockSlot(slotId);
+        } catch (IllegalArgumentException ex) {
             return ResponseEntity.notFound().build();
         }
-        // Cambiar estado del slot a LOCKED
-        slot = service.updatePadlockStatus(slotId, "LOCKED");
-
-        // Intentar actualizar la bicicleta asociada
         String bicycleId = slot.getBicycleId();
-        if (bicycleId != null && !bicycleId.isEmpty()) {
-            try {
-                bicycleClient.updatePadlockStatus(bicycleId, "LOCKED");
-            } catch (Exception feignEx) {
-                return ResponseEntity.status(502)
-                        .body("BICIS_SERVICE_ERROR: " + feignEx.getMessage());
-            }
-        }
         String payload = slot.getIdSlot() + (bicycleId != null ? ("|" + bicycleId) : "");
         return ResponseEntity.ok(payload);
     }
@@ -321,4 +428,9 @@ public class SlotsController {
         }
     }
 
+    // Reservas y cambios de estado mientras el inventario termina de cargar tras un reinicio
+    @ExceptionHandler(SlotInventoryUnavailableException.class)
+    public ResponseEntity<Map<String, String>> inventoryUnavailable(SlotInventoryUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("mensaje", ex.getMessage()));
+    }
 }
@@ -0,0 +1,17 @@
+package com.movilidadsostenible.slots_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** Respuesta de bicis-service a una actualización masiva de candados. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BicyclePadlockBulkResultDTO {
+    private int updated;
+    private List<String> notFound;
+    private List<String> invalid;
+}
@@ -0,0 +1,13 @@
+package com.movilidadsostenible.slots_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BicyclePadlockUpdateDTO {
+    private String idBicycle;
+    private String padlockStatus;
+}
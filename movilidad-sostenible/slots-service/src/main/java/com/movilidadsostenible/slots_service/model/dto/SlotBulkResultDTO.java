@@ -0,0 +1,18 @@
+package com.movilidadsostenible.slots_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado de un slot dentro de una creación masiva: 201 si se insertó, 409 si el id ya
+ * existía y 400 si el slot es inválido.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotBulkResultDTO {
+    private String slotId;
+    private Integer status;
+    private String error;
+}
@@ -0,0 +1,16 @@
+package com.movilidadsostenible.slots_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** Lote de cambios publicado en {@code slot_events}, en orden de secuencia por estación. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotChangeBatchDTO {
+    private long epoch;
+    private List<SlotChangeEventDTO> events;
+}
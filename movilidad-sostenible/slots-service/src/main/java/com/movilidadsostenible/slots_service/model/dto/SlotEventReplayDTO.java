@@ -0,0 +1,18 @@
+package com.movilidadsostenible.slots_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** Cambios de una estación posteriores a la secuencia pedida. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlotEventReplayDTO {
+    private long epoch;
+    private Integer stationId;
+    private long lastSequence;
+    private List<SlotChangeEventDTO> events;
+}
@@ -0,0 +1,24 @@
+package com.movilidadsostenible.slots_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Conteo de slots de una estación por estado del candado. Las bicicletas disponibles son los
+ * slots LOCKED con bicicleta anclada, separados por tipo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StationSlotSummaryDTO {
+    private Integer stationId;
+    private int total;
+    private int locked;
+    private int unlocked;
+    private int reserved;
+    private int error;
+    private int maintenance;
+    private int availableElectricBikes;
+    private int availableMechanicBikes;
+}
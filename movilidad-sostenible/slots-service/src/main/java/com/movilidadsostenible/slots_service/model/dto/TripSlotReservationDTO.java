@@ -0,0 +1,17 @@
+package com.movilidadsostenible.slots_service.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reserva de un viaje: el slot de salida con su bicicleta y el anclaje de llegada.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripSlotReservationDTO {
+    private String slotStartId;
+    private String bicycleId;
+    private String slotEndId;
+}
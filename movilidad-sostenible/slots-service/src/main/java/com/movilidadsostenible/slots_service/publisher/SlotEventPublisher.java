@@ -0,0 +1,45 @@
+package com.movilidadsostenible.slots_service.publisher;
+
+import com.movilidadsostenible.slots_service.model.dto.SlotChangeBatchDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public class SlotEventPublisher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlotEventPublisher.class);
+
+    @Value("${rabbitmq.exchange.slot.events}")
+    private String slotEventsExchange;
+
+    @Value("${rabbitmq.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+
+    private final RabbitTemplate rabbitTemplate;
+
+    public SlotEventPublisher(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    /**
+     * Publica el lote con routing key {@code slot.changes} y espera la confirmación del broker
+     * (publisher confirms). Devuelve false si no se pudo enviar o no se confirmó a tiempo.
+     */
+    public boolean sendSlotChanges(SlotChangeBatchDTO batch) {
+        try {
+            rabbitTemplate.invoke(ops -> {
+                ops.convertAndSend(slotEventsExchange, "slot.changes", batch);
+                ops.waitForConfirmsOrDie(confirmTimeoutMs);
+                return null;
+            });
+            LOGGER.debug("Lote de cambios de slots enviado: {} eventos", batch.getEvents().size());
+            return true;
+        } catch (Exception e) {
+            LOGGER.warn("No fue posible publicar {} cambios de slots: {}", batch.getEvents().size(), e.getMessage());
+            return false;
+        }
+    }
+}
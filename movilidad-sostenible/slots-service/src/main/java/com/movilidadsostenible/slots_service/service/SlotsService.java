@@ -1,18 +1,27 @@
 package com.movilidadsostenible.slots_service.service;
 
+import com.movilidadsostenible.slots_service.model.dto.SlotBulkResultDTO;
+import com.movilidadsostenible.slots_service.model.dto.StationSlotSummaryDTO;
+import com.movilidadsostenible.slots_service.model.dto.TripSlotReservationDTO;
 import com.movilidadsostenible.slots_service.model.entity.Slot;
 import java.util.List;
 import java.util.Optional;
 
 public interface SlotsService {
   Slot create(Slot slot);
+  List<SlotBulkResultDTO> createAll(List<Slot> slots);
   Optional<Slot> findById(String id);
   List<Slot> findAll();
+  List<StationSlotSummaryDTO> summarizeStations(List<Integer> stationIds);
   Slot updatePadlockStatus(String id, String padlockStatus);
+  // LOCKED y, si hay bicicleta anclada, también para la bicicleta (vía outbox)
+  Slot lockSlot(String slotId);
   void delete(String id);
 
   Slot reserveFirstAvailableSlotElectricBicy(Integer stationId);
   Slot reserveFirstAvailableSlotMechanicBicy(Integer stationId);
   Slot reserveFirstUnlockedSlot(Integer stationId);
+  // Salida (bicicleta ELECTRIC o MECHANIC) y llegada (UNLOCKED) en una sola transacción: ambas o ninguna
+  TripSlotReservationDTO reserveTrip(Integer stationStartId, Integer stationEndId, String bikeType);
   Slot lockSlotWithBicycle(String slotId, String bicycleId);
   Slot unlockSlotWithBicycle(String slotId, String bicycleId);}
@@ -0,0 +1,192 @@
+package com.movilidadsostenible.slots_service.service.events;
+
+import com.movilidadsostenible.slots_service.model.dto.SlotChangeBatchDTO;
+import com.movilidadsostenible.slots_service.model.dto.SlotChangeEventDTO;
+import com.movilidadsostenible.slots_service.model.dto.SlotEventReplayDTO;
+import com.movilidadsostenible.slots_service.model.entity.Slot;
+import com.movilidadsostenible.slots_service.publisher.SlotEventPublisher;
+import com.movilidadsostenible.slots_service.service.inventory.SlotTransitionListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Flujo de cambios de estado de slots. Cada cambio recibe una secuencia consecutiva por
+ * estación y se guarda en una ventana de los últimos {@code slots.events.replay-window} cambios
+ * de la estación; cada {@code slots.events.batch-interval-ms} los cambios nuevos se publican en un
+ * solo mensaje. Un consumidor que detecta un salto de secuencia, o que reinicia, se pone al día con
+ * {@link #replay}; si la ventana ya no alcanza (o cambió el epoch) debe volver a leer el resumen.
+ * Si el broker no responde, la cola de salida guarda a lo sumo {@code slots.events.max-pending}
+ * cambios y descarta los más viejos: el salto de secuencia lleva a los consumidores al replay.
+ */
+@Component
+public class SlotEventStream implements SlotTransitionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotEventStream.class);
+
+    @Value("${slots.events.batch-interval-ms:100}")
+    private long batchIntervalMs;
+    @Value("${slots.events.batch-size:500}")
+    private int batchSize;
+    @Value("${slots.events.replay-window:256}")
+    private int replayWindow;
+    @Value("${slots.events.max-pending:100000}")
+    private int maxPending;
+
+    // Las secuencias viven en memoria: cambian de epoch con cada arranque
+    private final long epoch = System.currentTimeMillis();
+    private final SlotEventPublisher publisher;
+    private final Map<Integer, StationLog> logs = new ConcurrentHashMap<>();
+    private final Queue<SlotChangeEventDTO> outgoing = new ConcurrentLinkedQueue<>();
+    // size() de la cola recorre toda la lista: el tamaño se lleva aparte
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("slot-events").daemon().factory());
+
+    // Lote que falló al publicarse; se reintenta antes de tomar eventos nuevos para no desordenar
+    private List<SlotChangeEventDTO> unsent;
+
+    @Autowired
+    public SlotEventStream(SlotEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    SlotEventStream(SlotEventPublisher publisher, int batchSize, int replayWindow, int maxPending) {
+        this(publisher);
+        this.batchSize = batchSize;
+        this.replayWindow = replayWindow;
+        this.maxPending = maxPending;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::publishSafely, batchIntervalMs, batchIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    @Override
+    public void onTransition(Integer stationId, String slotId, String before, Supplier<Slot> after) {
+        StationLog station = logs.computeIfAbsent(stationId, id -> new StationLog());
+        synchronized (station) {
+            Slot current = after.get();
+            SlotChangeEventDTO event = new SlotChangeEventDTO(stationId, ++station.sequence, slotId, before,
+                    current.getPadlockStatus(), current.getBicycleId(), System.currentTimeMillis());
+            station.recent.addLast(event);
+            if (station.recent.size() > replayWindow) {
+                station.recent.removeFirst();
+            }
+            // Se encola dentro del candado: la cola conserva el orden de secuencia de cada estación
+            outgoing.add(event);
+        }
+        if (pending.incrementAndGet() > maxPending && outgoing.poll() != null) {
+            pending.decrementAndGet();
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Cambios de la estación con secuencia mayor a {@code fromSequence}. Vacío si el consumidor
+     * viene de otro epoch o si los cambios que le faltan ya salieron de la ventana.
+     */
+    public Optional<SlotEventReplayDTO> replay(Integer stationId, long fromSequence, Long fromEpoch) {
+        if (fromEpoch != null && fromEpoch != epoch) {
+            return Optional.empty();
+        }
+        StationLog station = logs.get(stationId);
+        if (station == null) {
+            return fromSequence == 0
+                    ? Optional.of(new SlotEventReplayDTO(epoch, stationId, 0, List.of()))
+                    : Optional.empty();
+        }
+        synchronized (station) {
+            if (fromSequence > station.sequence) {
+                return Optional.empty();
+            }
+            SlotChangeEventDTO oldest = station.recent.peekFirst();
+            if (fromSequence < station.sequence && (oldest == null || oldest.getSequence() > fromSequence + 1)) {
+                return Optional.empty();
+            }
+            List<SlotChangeEventDTO> events = new ArrayList<>();
+            for (SlotChangeEventDTO event : station.recent) {
+                if (event.getSequence() > fromSequence) {
+                    events.add(event);
+                }
+            }
+            return Optional.of(new SlotEventReplayDTO(epoch, stationId, station.sequence, events));
+        }
+    }
+
+    private void publishSafely() {
+        try {
+            publishPending();
+        } catch (Exception e) {
+            log.error("Error publicando cambios de slots", e);
+        }
+    }
+
+    synchronized void publishPending() {
+        long droppedNow = dropped.getAndSet(0);
+        if (droppedNow > 0) {
+            log.warn("Cola de cambios de slots llena: se descartaron {} cambios; los consumidores se ponen al día con replay", droppedNow);
+        }
+        while (true) {
+            List<SlotChangeEventDTO> batch = unsent;
+            if (batch == null) {
+                batch = new ArrayList<>(batchSize);
+                SlotChangeEventDTO event;
+                while (batch.size() < batchSize && (event = outgoing.poll()) != null) {
+                    pending.decrementAndGet();
+                    batch.add(event);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+            }
+            if (!publisher.sendSlotChanges(new SlotChangeBatchDTO(epoch, batch))) {
+                // Se reintenta en el próximo ciclo; los consumidores pueden cubrir el hueco con replay
+                unsent = batch;
+                return;
+            }
+            unsent = null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            publishPending();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class StationLog {
+        long sequence;
+        final ArrayDeque<SlotChangeEventDTO> recent = new ArrayDeque<>();
+    }
+}
@@ -1,92 +1,385 @@
 package com.movilidadsostenible.slots_service.service.impl;
 
+import com.movilidadsostenible.slots_service.model.dto.SlotBulkResultDTO;
+import com.movilidadsostenible.slots_service.model.dto.StationSlotSummaryDTO;
+import com.movilidadsostenible.slots_service.model.dto.TripSlotReservationDTO;
 import com.movilidadsostenible.slots_service.model.entity.Slot;
 import com.movilidadsostenible.slots_service.repository.SlotsRepository;
 import com.movilidadsostenible.slots_service.service.SlotsService;
+import com.movilidadsostenible.slots_service.service.inventory.SlotInventory;
+import com.movilidadsostenible.slots_service.service.inventory.SlotInventoryUnavailableException;
+import com.movilidadsostenible.slots_service.service.inventory.SlotState;
+import com.movilidadsostenible.slots_service.service.inventory.SlotTransitionListener;
+import com.movilidadsostenible.slots_service.service.outbox.BicyclePadlockOutbox;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Sin {@code @Transactional} de clase: el camino del inventario no abre transacción ni toma una
+ * conexión del pool. Solo el camino de BD corre en transacción ({@link TransactionTemplate}).
+ */
 @Service
-@Transactional
 public class SlotsServiceImpl implements SlotsService {
 
+    private static final Set<String> PADLOCK_STATUSES = Set.of("LOCKED", "UNLOCKED", "ERROR", "MAINTENANCE", "RESERVED");
+
+    // Los ids repetidos no abortan el batch: quedan con 0 filas y se reportan como 409
+    private static final String INSERT_SQL = """
+            INSERT INTO slots (k_id_slot, t_padlock_status, k_id_station, k_id_bicycle)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (k_id_slot) DO NOTHING
+            """;
+
+    /*
+     * Reserva en una sola sentencia: la subconsulta bloquea el primer slot libre y salta los que
+     * otra transacción ya tiene bloqueados, así dos reservas concurrentes nunca toman el mismo slot.
+     * Los filtros coinciden con los índices parciales IX_slots_locked_station_type e
+     * IX_slots_unlocked_station, que ya vienen ordenados por k_id_slot.
+     */
+    private static final String RESERVE_WITH_BICYCLE_SQL = """
+            UPDATE slots SET t_padlock_status = 'RESERVED'
+             WHERE k_id_slot = (
+                   SELECT k_id_slot FROM slots
+                    WHERE k_id_station = ?
+                      AND t_padlock_status = 'LOCKED'
+                      AND t_bike_type = ?
+                    ORDER BY k_id_slot
+                    LIMIT 1
+                      FOR UPDATE SKIP LOCKED)
+            RETURNING k_id_slot, t_padlock_status, k_id_station, k_id_bicycle
+            """;
+
+    private static final String RESERVE_UNLOCKED_SQL = """
+            UPDATE slots SET t_padlock_status = 'RESERVED'
+             WHERE k_id_slot = (
+                   SELECT k_id_slot FROM slots
+                    WHERE k_id_station = ?
+                      AND t_padlock_status = 'UNLOCKED'
+                    ORDER BY k_id_slot
+                    LIMIT 1
+                      FOR UPDATE SKIP LOCKED)
+            RETURNING k_id_slot, t_padlock_status, k_id_station, k_id_bicycle
+            """;
+
+    // Una sola pasada por los slots de las estaciones pedidas (usa IXFK_Slots_station)
+    private static final String SUMMARY_SQL = """
+            SELECT k_id_station, t_padlock_status, t_bike_type, count(*) AS total
+              FROM slots
+             WHERE k_id_station = ANY (?)
+             GROUP BY k_id_station, t_padlock_status, t_bike_type
+            """;
+
+    private static final RowMapper<Slot> SLOT_ROW_MAPPER = (rs, rowNum) -> {
+        Slot slot = new Slot();
+        slot.setIdSlot(rs.getString("k_id_slot"));
+        slot.setPadlockStatus(rs.getString("t_padlock_status"));
+        slot.setStationId(rs.getInt("k_id_station"));
+        slot.setBicycleId(rs.getString("k_id_bicycle"));
+        return slot;
+    };
+
     private final SlotsRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    // Con el inventario cargado, lecturas y cambios de estado no pasan por la BD (ver SlotInventory)
+    private final SlotInventory inventory;
+    // Flujo de cambios de estado; el inventario lo alimenta solo, aquí solo el camino de BD
+    private final SlotTransitionListener transitions;
+    // Cambios de candado para bicis-service, en la misma transacción que el slot
+    private final BicyclePadlockOutbox outbox;
+    private final TransactionTemplate transactionTemplate;
 
-    public SlotsServiceImpl(SlotsRepository repository) {
+    public SlotsServiceImpl(SlotsRepository repository, JdbcTemplate jdbcTemplate, SlotInventory inventory,
+                            SlotTransitionListener transitions, BicyclePadlockOutbox outbox,
+                            TransactionTemplate transactionTemplate) {
         this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventory = inventory;
+        this.transitions = transitions;
+        this.outbox = outbox;
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Override
+    @Transactional
     public Slot create(Slot slot) {
-        return repository.save(slot);
+        Slot saved = repository.save(slot);
+        afterCommit(() -> inventory.applyCommitted(saved));
+        return saved;
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
+    public List<SlotBulkResultDTO> createAll(List<Slot> slots) {
+        List<SlotBulkResultDTO> results = new ArrayList<>(slots.size());
+        List<Slot> valid = new ArrayList<>(slots.size());
+        List<SlotBulkResultDTO> pending = new ArrayList<>(slots.size());
+        Set<String> seen = new HashSet<>();
+        for (Slot slot : slots) {
+            String error = validate(slot);
+            if (error == null && !seen.add(slot.getIdSlot())) {
+                error = "Slot repetido en la solicitud";
+            }
+            SlotBulkResultDTO result = new SlotBulkResultDTO(slot != null ? slot.getIdSlot() : null,
+                    error == null ? 201 : 400, error);
+            results.add(result);
+            if (error == null) {
+                valid.add(slot);
+                pending.add(result);
+            }
+        }
+        if (valid.isEmpty()) {
+            return results;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, valid, valid.size(), (ps, slot) -> {
+            ps.setString(1, slot.getIdSlot());
+            ps.setString(2, slot.getPadlockStatus() != null ? slot.getPadlockStatus() : "UNLOCKED");
+            ps.setInt(3, slot.getStationId());
+            ps.setString(4, slot.getBicycleId());
+        });
+        for (int i = 0; i < pending.size(); i++) {
+            // SUCCESS_NO_INFO (-2) cuenta como insertado
+            if (counts[0][i] == 0) {
+                pending.get(i).setStatus(409);
+                pending.get(i).setError("El slot ya existe");
+            } else {
+                Slot inserted = valid.get(i);
+                if (inserted.getPadlockStatus() == null) {
+                    inserted.setPadlockStatus("UNLOCKED");
+                }
+                afterCommit(() -> inventory.applyCommitted(inserted));
+            }
+        }
+        return results;
+    }
+
+    private static String validate(Slot slot) {
+        if (slot == null || slot.getIdSlot() == null || slot.getIdSlot().isBlank()) {
+            return "El id del slot es obligatorio";
+        }
+        if (slot.getStationId() == null) {
+            return "La estación del slot es obligatoria";
+        }
+        if (slot.getPadlockStatus() != null && !PADLOCK_STATUSES.contains(slot.getPadlockStatus())) {
+            return "Estado de candado inválido: " + slot.getPadlockStatus();
+        }
+        return null;
+    }
+
+    // Las lecturas no abren transacción: el repositorio usa la suya solo si se llega a la BD
+    @Override
     public Optional<Slot> findById(String id) {
+        if (inventory.isReady()) {
+            return inventory.find(id);
+        }
         return repository.findById(id);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<Slot> findAll() {
+        if (inventory.isReady()) {
+            return inventory.findAll();
+        }
         return repository.findAll();
     }
 
+    @Override
+    public List<StationSlotSummaryDTO> summarizeStations(List<Integer> stationIds) {
+        boolean fromInventory = inventory.isReady();
+        Map<Integer, int[]> counts = new LinkedHashMap<>();
+        for (Integer stationId : new LinkedHashSet<>(stationIds)) {
+            counts.put(stationId, fromInventory ? inventory.countByState(stationId) : new int[SlotState.values().length]);
+        }
+        if (!fromInventory && !counts.isEmpty()) {
+            jdbcTemplate.query(SUMMARY_SQL, rs -> {
+                SlotState state = SlotState.ofBikeType(rs.getString("t_padlock_status"), rs.getString("t_bike_type"));
+                counts.get(rs.getInt("k_id_station"))[state.ordinal()] += rs.getInt("total");
+            }, (Object) counts.keySet().toArray(Integer[]::new));
+        }
+        List<StationSlotSummaryDTO> summaries = new ArrayList<>(counts.size());
+        counts.forEach((stationId, byState) -> summaries.add(toSummary(stationId, byState)));
+        return summaries;
+    }
+
+    private static StationSlotSummaryDTO toSummary(Integer stationId, int[] byState) {
+        int electric = byState[SlotState.LOCKED_ELECTRIC.ordinal()];
+        int mechanic = byState[SlotState.LOCKED_MECHANIC.ordinal()];
+        int total = 0;
+        for (int count : byState) {
+            total += count;
+        }
+        return new StationSlotSummaryDTO(stationId, total,
+                electric + mechanic + byState[SlotState.LOCKED_OTHER.ordinal()],
+                byState[SlotState.UNLOCKED.ordinal()],
+                byState[SlotState.RESERVED.ordinal()],
+                byState[SlotState.ERROR.ordinal()],
+                byState[SlotState.MAINTENANCE.ordinal()],
+                electric, mechanic);
+    }
+
     @Override
     public Slot updatePadlockStatus(String id, String padlockStatus) {
-        Slot slot = repository.findById(id).orElseThrow(() -> new IllegalArgumentException("Slot no encontrado: " + id));
-        slot.setPadlockStatus(padlockStatus);
-        return repository.save(slot);
+        return changePadlockStatus(id, padlockStatus, false);
     }
 
     @Override
+    public Slot lockSlot(String slotId) {
+        return changePadlockStatus(slotId, "LOCKED", true);
+    }
+
+    private Slot changePadlockStatus(String id, String padlockStatus, boolean propagate) {
+        if (usesInventory()) {
+            return inventory.updatePadlockStatus(id, padlockStatus, propagate);
+        }
+        return transactionTemplate.execute(status -> {
+            Slot slot = repository.findById(id).orElseThrow(() -> new IllegalArgumentException("Slot no encontrado: " + id));
+            String before = slot.getPadlockStatus();
+            slot.setPadlockStatus(padlockStatus);
+            if (propagate) {
+                outbox.record(slot.getBicycleId(), padlockStatus);
+            }
+            return committed(before, repository.save(slot));
+        });
+    }
+
+    @Override
+    @Transactional
     public void delete(String id) {
         repository.deleteById(id);
+        afterCommit(() -> inventory.remove(id));
     }
 
     @Override
     public Slot reserveFirstAvailableSlotElectricBicy(Integer stationId) {
-        Slot slot = repository.findFirstAvailableSlotByPrefix(stationId, "LOCKED", "ELEC")
+        return reserveFirst(SlotState.LOCKED_ELECTRIC, RESERVE_WITH_BICYCLE_SQL, stationId, "ELECTRIC")
                 .orElseThrow(() -> new IllegalArgumentException("No hay bicicletas electricas disponibles en la estación: " + stationId));
-        slot.setPadlockStatus("RESERVED");
-        return repository.save(slot);
     }
 
     @Override
     public Slot reserveFirstAvailableSlotMechanicBicy(Integer stationId) {
-        Slot slot = repository.findFirstAvailableSlotByPrefix(stationId, "LOCKED", "MECH")
-                .orElseThrow(() -> new IllegalArgumentException("No hay bicicletas electricas disponibles en la estación: " + stationId));
-        slot.setPadlockStatus("RESERVED");
-        return repository.save(slot);
+        return reserveFirst(SlotState.LOCKED_MECHANIC, RESERVE_WITH_BICYCLE_SQL, stationId, "MECHANIC")
+                .orElseThrow(() -> new IllegalArgumentException("No hay bicicletas mecanicas disponibles en la estación: " + stationId));
     }
 
     @Override
     public Slot reserveFirstUnlockedSlot(Integer stationId) {
-        Slot slot = repository.findFirstByStationIdAndPadlockStatusOrderByIdSlotAsc(stationId, "UNLOCKED")
+        return reserveFirst(SlotState.UNLOCKED, RESERVE_UNLOCKED_SQL, stationId)
                 .orElseThrow(() -> new IllegalArgumentException("No hay slots UNLOCKED disponibles en la estación: " + stationId));
-        slot.setPadlockStatus("RESERVED");
-        return repository.save(slot);
+    }
+
+    @Override
+    public TripSlotReservationDTO reserveTrip(Integer stationStartId, Integer stationEndId, String bikeType) {
+        SlotState from = SlotState.ofBikeType("LOCKED", bikeType);
+        if (usesInventory()) {
+            Slot[] trip = inventory.reserveTrip(stationStartId, from, stationEndId);
+            return new TripSlotReservationDTO(trip[0].getIdSlot(), trip[0].getBicycleId(), trip[1].getIdSlot());
+        }
+        return transactionTemplate.execute(status -> {
+            Slot start = reserveInDatabase(from, RESERVE_WITH_BICYCLE_SQL, stationStartId, bikeType)
+                    .orElseThrow(() -> new IllegalArgumentException("No hay bicicletas disponibles en la estación: " + stationStartId));
+            // Si no hay anclaje, la excepción revierte también la reserva de salida y su fila del outbox
+            Slot end = reserveInDatabase(SlotState.UNLOCKED, RESERVE_UNLOCKED_SQL, stationEndId)
+                    .orElseThrow(() -> new IllegalArgumentException("No hay slots UNLOCKED disponibles en la estación: " + stationEndId));
+            return new TripSlotReservationDTO(start.getIdSlot(), start.getBicycleId(), end.getIdSlot());
+        });
+    }
+
+    /** Reserva con CAS en memoria; con el inventario desactivado, con SKIP LOCKED en BD. */
+    private Optional<Slot> reserveFirst(SlotState from, String sql, Object... args) {
+        if (usesInventory()) {
+            return inventory.reserve((Integer) args[0], from);
+        }
+        return transactionTemplate.execute(status -> reserveInDatabase(from, sql, args));
+    }
+
+    private Optional<Slot> reserveInDatabase(SlotState from, String sql, Object... args) {
+        List<Slot> reserved = jdbcTemplate.query(sql, SLOT_ROW_MAPPER, args);
+        String before = from == SlotState.UNLOCKED ? "UNLOCKED" : "LOCKED";
+        return reserved.stream().findFirst().map(slot -> {
+            outbox.record(slot.getBicycleId(), "RESERVED");
+            return committed(before, slot);
+        });
     }
 
     @Override
     public Slot lockSlotWithBicycle(String slotId, String bicycleId) {
-        Slot slot = repository.findById(slotId)
-                .orElseThrow(() -> new IllegalArgumentException("Slot no encontrado: " + slotId));
-        slot.setBicycleId(bicycleId);
-        slot.setPadlockStatus("LOCKED");
-        return repository.save(slot);
+        if (usesInventory()) {
+            return inventory.lock(slotId, bicycleId);
+        }
+        return transactionTemplate.execute(status -> {
+            Slot slot = repository.findById(slotId)
+                    .orElseThrow(() -> new IllegalArgumentException("Slot no encontrado: " + slotId));
+            String before = slot.getPadlockStatus();
+            slot.setBicycleId(bicycleId);
+            slot.setPadlockStatus("LOCKED");
+            outbox.record(bicycleId, "LOCKED");
+            return committed(before, repository.save(slot));
+        });
     }
 
     @Override
     public Slot unlockSlotWithBicycle(String slotId, String bicycleId) {
-      Slot slot = repository.findById(slotId)
-        .orElseThrow(() -> new IllegalArgumentException("Slot no encontrado: " + slotId));
-      slot.setBicycleId(null);
-      slot.setPadlockStatus("UNLOCKED");
-      return repository.save(slot);
+      if (usesInventory()) {
+        return inventory.unlock(slotId, bicycleId);
+      }
+      return transactionTemplate.execute(status -> {
+        Slot slot = repository.findById(slotId)
+          .orElseThrow(() -> new IllegalArgumentException("Slot no encontrado: " + slotId));
+        String before = slot.getPadlockStatus();
+        slot.setBicycleId(null);
+        slot.setPadlockStatus("UNLOCKED");
+        outbox.record(bicycleId, "UNLOCKED");
+        return committed(before, repository.save(slot));
+      });
+    }
+
+    /**
+     * Los cambios de estado van al inventario si está activo. Mientras carga se rechazan: el diario
+     * puede tener reservas que la BD aún no tiene y por BD se volverían a entregar.
+     */
+    private boolean usesInventory() {
+        if (inventory.isReady()) {
+            return true;
+        }
+        if (inventory.isEnabled()) {
+            throw new SlotInventoryUnavailableException();
+        }
+        return false;
+    }
+
+    // Cambio de estado por el camino de BD: se refleja en el inventario y en el flujo al confirmar
+    private Slot committed(String before, Slot saved) {
+        afterCommit(() -> {
+            inventory.applyCommitted(saved);
+            transitions.onTransition(saved.getStationId(), saved.getIdSlot(), before, () -> saved);
+        });
+        return saved;
+    }
+
+    // El inventario solo ve lo que la BD confirmó
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -0,0 +1,486 @@
+package com.movilidadsostenible.slots_service.service.inventory;
+
+import com.movilidadsostenible.slots_service.model.entity.Slot;
+import com.movilidadsostenible.slots_service.service.outbox.BicyclePadlockOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Inventario de slots en memoria, fuente de verdad de las reservas mientras está cargado.
+ * Cada slot guarda estado y bicicleta juntos en un {@link AtomicReference}; reservar es recorrer
+ * los slots de la estación y hacer CAS al primero en el estado buscado, sin candados ni BD en el camino.
+ * Cada cambio queda en {@link SlotJournal}, y en disco, antes de responder (los force() de
+ * peticiones concurrentes se agrupan en uno) y se escribe en {@code slots}
+ * cada {@code slots.inventory.flush-interval-ms} en un batch. Al arrancar se reconstruye desde
+ * la BD más lo que el diario tenga sin escribir, y eso se escribe en BD antes de que arranque el
+ * servidor web. Mientras no esté cargado, los cambios de estado se rechazan
+ * ({@link SlotInventoryUnavailableException}): por BD podría reservarse de nuevo un slot que el
+ * diario ya tenía reservado.
+ *
+ * <p>Supone una sola instancia de slots-service, por eso viene desactivado
+ * ({@code slots.inventory.enabled=false}) y las reservas van por el UPDATE ... SKIP LOCKED. Solo
+ * debe activarse donde el despliegue garantiza una réplica (p. ej. {@code container_name} en compose).
+ */
+@Component
+public class SlotInventory implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotInventory.class);
+
+    private static final String SELECT_SQL = """
+            SELECT k_id_slot, t_padlock_status, k_id_station, k_id_bicycle FROM slots
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE slots
+               SET t_padlock_status = ?,
+                   k_id_bicycle = ?
+             WHERE k_id_slot = ?
+            """;
+
+    @Value("${slots.inventory.enabled:false}")
+    private boolean enabled;
+    @Value("${slots.inventory.journal-dir:data/slots-journal}")
+    private Path journalDir;
+    @Value("${slots.inventory.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SlotTransitionListener transitions;
+    private final BicyclePadlockOutbox outbox;
+    private final Map<String, SlotCell> cells = new ConcurrentHashMap<>();
+    private final Map<Integer, StationSlots> stations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("slot-inventory").daemon().factory());
+
+    // Cambios hechos por el camino de BD mientras se cargaba el inventario; se aplican al terminar
+    private final Map<String, Slot> changedDuringLoad = new LinkedHashMap<>();
+    private final Object loadLock = new Object();
+
+    private volatile boolean ready;
+    private volatile boolean running;
+    private SlotJournal journal;
+
+    @Autowired
+    public SlotInventory(JdbcTemplate jdbcTemplate, SlotTransitionListener transitions, BicyclePadlockOutbox outbox) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transitions = transitions;
+        this.outbox = outbox;
+    }
+
+    // Para pruebas: habilitado y sin planificador
+    SlotInventory(JdbcTemplate jdbcTemplate, Path journalDir, long flushIntervalMs) {
+        this(jdbcTemplate, SlotTransitionListener.NONE, new BicyclePadlockOutbox(jdbcTemplate));
+        this.enabled = true;
+        this.journalDir = journalDir;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /** Antes que el servidor web: no se atiende ninguna reserva sin haber aplicado el diario. */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (enabled) {
+            loadWithRetry();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void loadWithRetry() {
+        try {
+            load();
+        } catch (Exception e) {
+            log.warn("No fue posible cargar el inventario de slots. Reintentando en 30s: {}", e.getMessage());
+            scheduler.schedule(this::loadWithRetry, 30, TimeUnit.SECONDS);
+            return;
+        }
+        // Lo recuperado del diario llega a la BD antes de atender peticiones; si falla, lo reintenta el flush periódico
+        flushSafely();
+        scheduler.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void load() {
+        if (journal == null) {
+            journal = new SlotJournal(journalDir);
+        }
+        SlotJournal.Replay replayed = journal.replay();
+        List<Slot> rows = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> {
+            Slot slot = new Slot();
+            slot.setIdSlot(rs.getString("k_id_slot"));
+            slot.setPadlockStatus(rs.getString("t_padlock_status"));
+            slot.setStationId(rs.getInt("k_id_station"));
+            slot.setBicycleId(rs.getString("k_id_bicycle"));
+            return slot;
+        });
+        synchronized (loadLock) {
+            for (Slot row : rows) {
+                // El diario es más nuevo que la BD: lo que quedó sin escribir gana
+                Slot pending = replayed.slots().get(row.getIdSlot());
+                if (pending != null) {
+                    row.setPadlockStatus(pending.getPadlockStatus());
+                    row.setBicycleId(pending.getBicycleId());
+                }
+                register(row);
+            }
+            changedDuringLoad.values().forEach(this::applyLoaded);
+            changedDuringLoad.clear();
+            ready = true;
+        }
+        // Lo recuperado del diario se vuelve a escribir en BD con el próximo flush
+        Set<String> recovered = new java.util.HashSet<>(replayed.slots().keySet());
+        recovered.retainAll(cells.keySet());
+        journal.requeue(new SlotJournal.Pending(recovered, replayed.bicycles()));
+        log.info("Inventario de slots cargado: {} slots en {} estaciones ({} slots y {} bicicletas recuperados del diario)",
+                cells.size(), stations.size(), recovered.size(), replayed.bicycles().size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ---- Reservas (camino caliente) ----
+
+    public Optional<Slot> reserve(Integer stationId, SlotState from) {
+        Claim claim = claim(stationId, from);
+        if (claim == null) {
+            return Optional.empty();
+        }
+        journal.awaitDurable(journalReservation(claim));
+        return Optional.of(published(claim.cell(), from));
+    }
+
+    /**
+     * Reserva el slot de salida ({@code startFrom}) y un anclaje UNLOCKED en la estación de llegada.
+     * Si no hay anclaje se devuelve la salida a su estado anterior antes de escribir el diario o
+     * publicar el cambio, así que para fuera es todo o nada. Devuelve [salida, llegada].
+     */
+    public Slot[] reserveTrip(Integer startStationId, SlotState startFrom, Integer endStationId) {
+        Claim start = claim(startStationId, startFrom);
+        if (start == null) {
+            throw new IllegalArgumentException("No hay bicicletas disponibles en la estación: " + startStationId);
+        }
+        Claim end = claim(endStationId, SlotState.UNLOCKED);
+        if (end == null) {
+            // Solo si nadie la cambió entretanto (lock/unlock administrativos usan getAndSet)
+            start.cell().current.compareAndSet(start.reserved(), start.before());
+            throw new IllegalArgumentException("No hay slots UNLOCKED disponibles en la estación: " + endStationId);
+        }
+        // Un solo force() cubre las dos líneas
+        journalReservation(start);
+        journal.awaitDurable(journalReservation(end));
+        return new Slot[]{published(start.cell(), startFrom), published(end.cell(), SlotState.UNLOCKED)};
+    }
+
+    private Claim claim(Integer stationId, SlotState from) {
+        StationSlots station = stations.get(stationId);
+        if (station == null) {
+            return null;
+        }
+        for (SlotCell cell : station.cells) {
+            CellState before = cell.current.get();
+            if (before.state() == from) {
+                CellState reserved = new CellState(SlotState.RESERVED, before.bicycleId());
+                if (cell.current.compareAndSet(before, reserved)) {
+                    return new Claim(cell, before, reserved);
+                }
+            }
+        }
+        return null;
+    }
+
+    private long journalReservation(Claim claim) {
+        // La bicicleta anclada (si hay) queda reservada junto con el slot; es la que el CAS vio
+        String bicycleId = claim.before().bicycleId();
+        return journal.append(claim.cell()::toSlot, bicycleId, bicycleId != null ? "RESERVED" : null);
+    }
+
+    // Solo después de que el diario esté en disco: el flujo nunca anuncia un cambio que podría perderse
+    private Slot published(SlotCell cell, SlotState from) {
+        transitions.onTransition(cell.stationId, cell.idSlot, from.padlockStatus(), cell::toSlot);
+        return cell.toSlot();
+    }
+
+    // ---- Otros cambios de estado ----
+
+    public Slot lock(String slotId, String bicycleId) {
+        SlotCell cell = require(slotId);
+        CellState before = cell.current.getAndSet(new CellState(SlotState.of("LOCKED", bicycleId), bicycleId));
+        return changed(cell, before.state(), bicycleId, "LOCKED");
+    }
+
+    /** Libera el slot; {@code bicycleId} es la bicicleta que sale y queda UNLOCKED en bicis-service. */
+    public Slot unlock(String slotId, String bicycleId) {
+        SlotCell cell = require(slotId);
+        CellState before = cell.current.getAndSet(new CellState(SlotState.UNLOCKED, null));
+        return changed(cell, before.state(), bicycleId, "UNLOCKED");
+    }
+
+    /** Cambia el estado del candado; con {@code propagate} la bicicleta anclada toma el mismo estado. */
+    public Slot updatePadlockStatus(String slotId, String padlockStatus, boolean propagate) {
+        SlotCell cell = require(slotId);
+        CellState before = cell.current.getAndUpdate(
+                current -> new CellState(SlotState.of(padlockStatus, current.bicycleId()), current.bicycleId()));
+        return changed(cell, before.state(), propagate ? before.bicycleId() : null, padlockStatus);
+    }
+
+    private Slot changed(SlotCell cell, SlotState before, String bicycleId, String bicyclePadlockStatus) {
+        journal.awaitDurable(journal.append(cell::toSlot, bicycleId, bicycleId != null ? bicyclePadlockStatus : null));
+        transitions.onTransition(cell.stationId, cell.idSlot, before.padlockStatus(), cell::toSlot);
+        return cell.toSlot();
+    }
+
+    private SlotCell require(String slotId) {
+        SlotCell cell = cells.get(slotId);
+        if (cell == null) {
+            throw new IllegalArgumentException("Slot no encontrado: " + slotId);
+        }
+        return cell;
+    }
+
+    // ---- Altas, bajas y cambios hechos directamente en BD ----
+
+    /**
+     * Refleja un slot que ya está en BD (alta, o cambio hecho por el camino de BD). Mientras el
+     * inventario carga, se guarda para aplicarlo al final de la carga.
+     */
+    public void applyCommitted(Slot slot) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (!ready) {
+                changedDuringLoad.put(slot.getIdSlot(), slot);
+                return;
+            }
+        }
+        applyLoaded(slot);
+    }
+
+    private void applyLoaded(Slot slot) {
+        SlotCell cell = cells.get(slot.getIdSlot());
+        if (cell == null) {
+            register(slot);
+            return;
+        }
+        cell.current.set(new CellState(SlotState.of(slot.getPadlockStatus(), slot.getBicycleId()), slot.getBicycleId()));
+    }
+
+    public void remove(String slotId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (loadLock) {
+            changedDuringLoad.remove(slotId);
+        }
+        SlotCell cell = cells.remove(slotId);
+        if (cell != null) {
+            stations.computeIfPresent(cell.stationId, (id, station) -> station.without(cell));
+        }
+    }
+
+    private void register(Slot slot) {
+        SlotCell cell = new SlotCell(slot.getIdSlot(), slot.getStationId(),
+                SlotState.of(slot.getPadlockStatus(), slot.getBicycleId()), slot.getBicycleId());
+        SlotCell previous = cells.put(cell.idSlot, cell);
+        if (previous != null && !previous.stationId.equals(cell.stationId)) {
+            stations.computeIfPresent(previous.stationId, (id, station) -> station.without(previous));
+        }
+        stations.compute(cell.stationId, (id, station) -> (station == null ? StationSlots.EMPTY : station).with(cell));
+    }
+
+    // ---- Lecturas ----
+
+    public Optional<Slot> find(String slotId) {
+        SlotCell cell = cells.get(slotId);
+        return cell == null ? Optional.empty() : Optional.of(cell.toSlot());
+    }
+
+    public List<Slot> findAll() {
+        List<Slot> all = new ArrayList<>(cells.size());
+        cells.values().forEach(cell -> all.add(cell.toSlot()));
+        all.sort(Comparator.comparing(Slot::getIdSlot));
+        return all;
+    }
+
+    /** Slots de la estación por estado, indexado por {@link SlotState#ordinal()}. */
+    public int[] countByState(Integer stationId) {
+        int[] counts = new int[SlotState.values().length];
+        StationSlots station = stations.get(stationId);
+        if (station != null) {
+            for (SlotCell cell : station.cells) {
+                counts[cell.current.get().state().ordinal()]++;
+            }
+        }
+        return counts;
+    }
+
+    // ---- Escritura diferida ----
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error escribiendo el inventario de slots en BD", e);
+        }
+    }
+
+    /**
+     * Escribe el estado actual de los slots pendientes y los cambios de candado para bicis-service
+     * en el outbox; después borra los segmentos ya aplicados. Si algo falla se reencola todo: un
+     * reintento vuelve a escribir los mismos estados y, a lo sumo, repite filas idempotentes del outbox.
+     */
+    synchronized void flush() {
+        SlotJournal.Pending pending = journal.rotate();
+        long applied = journal.currentSegment();
+        if (pending.isEmpty()) {
+            journal.deleteSegmentsBefore(applied);
+            return;
+        }
+        List<Slot> batch = new ArrayList<>(pending.slots().size());
+        for (String id : pending.slots()) {
+            SlotCell cell = cells.get(id);
+            if (cell != null) {
+                batch.add(cell.toSlot());
+            }
+        }
+        try {
+            writeBatch(batch);
+            outbox.recordAll(pending.bicycles());
+        } catch (RuntimeException e) {
+            journal.requeue(pending);
+            throw e;
+        }
+        journal.deleteSegmentsBefore(applied);
+        log.debug("Flush del inventario de slots: {} slots escritos", batch.size());
+    }
+
+    private void writeBatch(List<Slot> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, slot) -> bind(ps, slot));
+        } catch (DataIntegrityViolationException e) {
+            // Una fila inválida (p. ej. bicicleta inexistente) no debe bloquear al resto: se reintenta fila por fila
+            for (Slot slot : batch) {
+                try {
+                    jdbcTemplate.update(UPDATE_SQL, ps -> bind(ps, slot));
+                } catch (DataIntegrityViolationException rowError) {
+                    log.error("Descartando cambio del slot {} rechazado por la BD: {}", slot.getIdSlot(),
+                            rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private static void bind(java.sql.PreparedStatement ps, Slot slot) throws java.sql.SQLException {
+        ps.setString(1, slot.getPadlockStatus());
+        ps.setString(2, slot.getBicycleId());
+        ps.setString(3, slot.getIdSlot());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            if (ready) {
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("No fue posible escribir el inventario pendiente; queda en el diario para el próximo arranque", e);
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    /** Estado y bicicleta de un slot; se reemplazan juntos, así nadie ve uno sin el otro. */
+    private record CellState(SlotState state, String bicycleId) {
+    }
+
+    /** Un slot reservado por CAS: el estado que tenía y el que se le puso, para revertirlo. */
+    private record Claim(SlotCell cell, CellState before, CellState reserved) {
+    }
+
+    /** Un slot: estado y bicicleta se cambian con CAS sobre un mismo {@link CellState}. */
+    private static final class SlotCell {
+        final String idSlot;
+        final Integer stationId;
+        final AtomicReference<CellState> current;
+
+        SlotCell(String idSlot, Integer stationId, SlotState state, String bicycleId) {
+            this.idSlot = idSlot;
+            this.stationId = stationId;
+            this.current = new AtomicReference<>(new CellState(state, bicycleId));
+        }
+
+        Slot toSlot() {
+            CellState snapshot = current.get();
+            Slot slot = new Slot();
+            slot.setIdSlot(idSlot);
+            slot.setStationId(stationId);
+            slot.setPadlockStatus(snapshot.state().padlockStatus());
+            slot.setBicycleId(snapshot.bicycleId());
+            return slot;
+        }
+    }
+
+    /**
+     * Slots de una estación ordenados por id (el mismo orden que el ORDER BY de la reserva en BD).
+     * Inmutable: altas y bajas crean un arreglo nuevo con las mismas celdas, así una reserva en
+     * curso nunca pierde su CAS.
+     */
+    private record StationSlots(SlotCell[] cells) {
+        static final StationSlots EMPTY = new StationSlots(new SlotCell[0]);
+
+        StationSlots with(SlotCell cell) {
+            SlotCell[] next = Arrays.stream(cells).filter(c -> !c.idSlot.equals(cell.idSlot)).toArray(n -> new SlotCell[n + 1]);
+            next[next.length - 1] = cell;
+            Arrays.sort(next, Comparator.comparing((SlotCell c) -> c.idSlot));
+            return new StationSlots(next);
+        }
+
+        StationSlots without(SlotCell cell) {
+            SlotCell[] next = Arrays.stream(cells).filter(c -> c != cell).toArray(SlotCell[]::new);
+            return next.length == 0 ? null : new StationSlots(next);
+        }
+    }
+}
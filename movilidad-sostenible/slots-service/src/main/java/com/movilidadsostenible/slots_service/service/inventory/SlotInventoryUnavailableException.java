@@ -0,0 +1,11 @@
+package com.movilidadsostenible.slots_service.service.inventory;
+
+/**
+ * El inventario está activo pero aún no terminó de cargar: no se aceptan cambios de estado.
+ */
+public class SlotInventoryUnavailableException extends RuntimeException {
+
+    public SlotInventoryUnavailableException() {
+        super("El inventario de slots aún se está cargando");
+    }
+}
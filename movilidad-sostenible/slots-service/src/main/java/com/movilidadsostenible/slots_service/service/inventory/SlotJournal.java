@@ -0,0 +1,251 @@
+package com.movilidadsostenible.slots_service.service.inventory;
+
+import com.movilidadsostenible.slots_service.model.entity.Slot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Diario de cambios de estado de los slots en segmentos de solo-agregar
+ * ({@code journal-<n>.log}, una línea {@code idSlot<TAB>estado<TAB>bicicleta} por cambio; si el
+ * cambio debe propagarse a bicis-service, la línea agrega {@code <TAB>bicicleta<TAB>estado}).
+ * Cada segmento guarda además qué slots quedaron pendientes; {@link #rotate()} abre el siguiente
+ * y devuelve los pendientes del anterior para escribirlos en BD, y solo cuando esa escritura
+ * termina se borran los segmentos viejos. Al arrancar, {@link #replay()} devuelve el último
+ * estado registrado de cada slot.
+ *
+ * <p>Quien agrega una línea espera con {@link #awaitDurable(long)} a que esté en disco antes de
+ * responder. Los force() se agrupan: uno solo cubre todo lo agregado hasta que empieza.
+ */
+class SlotJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotJournal.class);
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final List<Path> previousSegments;
+    private FileChannel channel;
+    private long segment;
+    private Set<String> pending = new HashSet<>();
+    private Map<String, String> pendingBicycles = new LinkedHashMap<>();
+    // Líneas agregadas y líneas ya forzadas a disco; el force() corre fuera del candado del diario
+    private long appended;
+    private volatile long durable;
+    private final Object forceLock = new Object();
+
+    SlotJournal(Path dir) {
+        this.dir = dir;
+        try {
+            Files.createDirectories(dir);
+            previousSegments = segments();
+            long last = previousSegments.isEmpty() ? 0 : number(previousSegments.get(previousSegments.size() - 1));
+            // Nunca se agrega a un segmento de una ejecución anterior: pudo quedar con una línea a medias
+            open(last + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No fue posible abrir el diario de slots en " + dir, e);
+        }
+    }
+
+    /**
+     * Registra el estado actual del slot. El {@code snapshot} se evalúa dentro del candado, así
+     * la última línea de cada slot siempre refleja su último cambio aunque haya escrituras concurrentes.
+     */
+    synchronized long append(Supplier<Slot> snapshot) {
+        return append(snapshot, null, null);
+    }
+
+    /**
+     * Igual que {@link #append(Supplier)}, registrando además el estado de candado a propagar a la
+     * bicicleta. Devuelve el número de la línea, para {@link #awaitDurable(long)}.
+     */
+    synchronized long append(Supplier<Slot> snapshot, String bicycleId, String bicyclePadlockStatus) {
+        Slot slot = snapshot.get();
+        String line = slot.getIdSlot() + '\t' + slot.getPadlockStatus() + '\t'
+                + (slot.getBicycleId() != null ? slot.getBicycleId() : "")
+                + (bicycleId != null ? "\t" + bicycleId + '\t' + bicyclePadlockStatus : "") + '\n';
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No fue posible escribir en el diario de slots", e);
+        }
+        pending.add(slot.getIdSlot());
+        if (bicycleId != null) {
+            pendingBicycles.remove(bicycleId);
+            pendingBicycles.put(bicycleId, bicyclePadlockStatus);
+        }
+        return ++appended;
+    }
+
+    /**
+     * Vuelve cuando la línea {@code line} ya está en disco. El primero en entrar hace un force()
+     * que cubre todo lo agregado hasta ese momento; los que esperaban detrás y quedaron cubiertos
+     * salen sin forzar de nuevo.
+     */
+    void awaitDurable(long line) {
+        if (durable >= line) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (durable >= line) {
+                return;
+            }
+            FileChannel current;
+            long covered;
+            synchronized (this) {
+                current = channel;
+                covered = appended;
+            }
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No fue posible sincronizar el diario de slots", e);
+            }
+            durable = covered;
+        }
+    }
+
+    /** Cierra el segmento actual, abre el siguiente y devuelve lo pendiente del cerrado. */
+    Pending rotate() {
+        // Primero forceLock: nadie debe estar forzando el canal que se cierra
+        synchronized (forceLock) {
+            synchronized (this) {
+                Pending flushed = new Pending(pending, pendingBicycles);
+                pending = new HashSet<>();
+                pendingBicycles = new LinkedHashMap<>();
+                try {
+                    channel.force(false);
+                    durable = appended;
+                    channel.close();
+                    open(segment + 1);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No fue posible rotar el diario de slots", e);
+                }
+                return flushed;
+            }
+        }
+    }
+
+    /** Devuelve cambios a pendientes tras un flush fallido; sus segmentos siguen en disco. */
+    synchronized void requeue(Pending flushed) {
+        pending.addAll(flushed.slots());
+        // Un estado más reciente de la misma bicicleta gana sobre el reencolado
+        flushed.bicycles().forEach(pendingBicycles::putIfAbsent);
+    }
+
+    synchronized long currentSegment() {
+        return segment;
+    }
+
+    /** Borra los segmentos anteriores a {@code segmentNumber}, ya escritos en BD. */
+    void deleteSegmentsBefore(long segmentNumber) {
+        try {
+            for (Path path : segments()) {
+                if (number(path) < segmentNumber) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("No fue posible borrar segmentos viejos del diario de slots: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Último estado registrado de cada slot, y último estado a propagar de cada bicicleta, en los
+     * segmentos de ejecuciones anteriores. Una línea incompleta al final de un segmento (caída a
+     * mitad de escritura) se ignora.
+     */
+    Replay replay() {
+        Map<String, Slot> last = new LinkedHashMap<>();
+        Map<String, String> bicycles = new LinkedHashMap<>();
+        for (Path path : previousSegments) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t", -1);
+                    if ((fields.length != 3 && fields.length != 5) || fields[0].isEmpty() || fields[1].isEmpty()) {
+                        continue;
+                    }
+                    if (fields.length == 5) {
+                        bicycles.remove(fields[3]);
+                        bicycles.put(fields[3], fields[4]);
+                    }
+                    Slot slot = new Slot();
+                    slot.setIdSlot(fields[0]);
+                    slot.setPadlockStatus(fields[1]);
+                    slot.setBicycleId(fields[2].isEmpty() ? null : fields[2]);
+                    last.put(slot.getIdSlot(), slot);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("No fue posible leer el diario de slots " + path, e);
+            }
+        }
+        return new Replay(last, bicycles);
+    }
+
+    @Override
+    public void close() {
+        synchronized (forceLock) {
+            synchronized (this) {
+                try {
+                    channel.force(false);
+                    durable = appended;
+                    channel.close();
+                } catch (IOException e) {
+                    log.warn("Error cerrando el diario de slots: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void open(long number) throws IOException {
+        segment = number;
+        channel = FileChannel.open(dir.resolve(String.format("%s%020d%s", PREFIX, number, SUFFIX)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> result = new ArrayList<>(files
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .toList());
+            result.sort((a, b) -> Long.compare(number(a), number(b)));
+            return result;
+        }
+    }
+
+    /** Slots cuyo estado falta escribir y estados de candado por propagar a bicicletas. */
+    record Pending(Set<String> slots, Map<String, String> bicycles) {
+        boolean isEmpty() {
+            return slots.isEmpty() && bicycles.isEmpty();
+        }
+    }
+
+    record Replay(Map<String, Slot> slots, Map<String, String> bicycles) {
+    }
+
+    private static long number(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
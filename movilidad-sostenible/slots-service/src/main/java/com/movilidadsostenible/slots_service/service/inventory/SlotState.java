@@ -0,0 +1,53 @@
+package com.movilidadsostenible.slots_service.service.inventory;
+
+/**
+ * Estado de un slot en el inventario en memoria. LOCKED se separa según el prefijo de la
+ * bicicleta anclada para que cada tipo de reserva busque solo entre sus slots.
+ */
+public enum SlotState {
+    LOCKED_ELECTRIC("LOCKED"),
+    LOCKED_MECHANIC("LOCKED"),
+    LOCKED_OTHER("LOCKED"),
+    UNLOCKED("UNLOCKED"),
+    RESERVED("RESERVED"),
+    ERROR("ERROR"),
+    MAINTENANCE("MAINTENANCE");
+
+    private final String padlockStatus;
+
+    SlotState(String padlockStatus) {
+        this.padlockStatus = padlockStatus;
+    }
+
+    public String padlockStatus() {
+        return padlockStatus;
+    }
+
+    /** Estado a partir de t_padlock_status y t_bike_type (ELECTRIC, MECHANIC o nulo). */
+    public static SlotState ofBikeType(String padlockStatus, String bikeType) {
+        if ("LOCKED".equals(padlockStatus)) {
+            return "ELECTRIC".equals(bikeType) ? LOCKED_ELECTRIC
+                    : "MECHANIC".equals(bikeType) ? LOCKED_MECHANIC
+                    : LOCKED_OTHER;
+        }
+        return of(padlockStatus, null);
+    }
+
+    /** Estado a partir de la columna t_padlock_status y la bicicleta anclada. */
+    public static SlotState of(String padlockStatus, String bicycleId) {
+        if (padlockStatus == null) {
+            return UNLOCKED;
+        }
+        return switch (padlockStatus) {
+            case "LOCKED" -> bicycleId == null ? LOCKED_OTHER
+                    : bicycleId.startsWith("ELEC") ? LOCKED_ELECTRIC
+                    : bicycleId.startsWith("MECH") ? LOCKED_MECHANIC
+                    : LOCKED_OTHER;
+            case "UNLOCKED" -> UNLOCKED;
+            case "RESERVED" -> RESERVED;
+            case "ERROR" -> ERROR;
+            case "MAINTENANCE" -> MAINTENANCE;
+            default -> throw new IllegalArgumentException("Estado de candado inválido: " + padlockStatus);
+        };
+    }
+}
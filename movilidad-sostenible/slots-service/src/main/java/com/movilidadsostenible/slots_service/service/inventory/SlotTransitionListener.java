@@ -0,0 +1,17 @@
+package com.movilidadsostenible.slots_service.service.inventory;
+
+import com.movilidadsostenible.slots_service.model.entity.Slot;
+
+import java.util.function.Supplier;
+
+/**
+ * Recibe cada cambio de estado de un slot. {@code after} se evalúa cuando el cambio queda
+ * ordenado dentro de su estación, así el último cambio de cada slot refleja su estado vigente.
+ */
+@FunctionalInterface
+public interface SlotTransitionListener {
+
+    SlotTransitionListener NONE = (stationId, slotId, before, after) -> { };
+
+    void onTransition(Integer stationId, String slotId, String before, Supplier<Slot> after);
+}
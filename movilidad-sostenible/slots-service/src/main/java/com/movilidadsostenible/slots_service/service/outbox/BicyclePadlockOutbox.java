@@ -0,0 +1,44 @@
+package com.movilidadsostenible.slots_service.service.outbox;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escritura en {@code bicycle_padlock_outbox}. Por el camino de BD se llama dentro de la misma
+ * transacción que cambia el slot; desde el inventario, en el mismo flush que escribe los slots
+ * (hasta entonces el cambio vive en el diario). {@link BicyclePadlockRelay} lo envía a bicis-service.
+ */
+@Component
+public class BicyclePadlockOutbox {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO bicycle_padlock_outbox (k_id_bicycle, t_padlock_status) VALUES (?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BicyclePadlockOutbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(String bicycleId, String padlockStatus) {
+        if (bicycleId != null) {
+            jdbcTemplate.update(INSERT_SQL, bicycleId, padlockStatus);
+        }
+    }
+
+    public void recordAll(Map<String, String> padlockStatusByBicycle) {
+        if (padlockStatusByBicycle.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, String>> rows = new ArrayList<>(padlockStatusByBicycle.entrySet());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getKey());
+            ps.setString(2, row.getValue());
+        });
+    }
+}
@@ -0,0 +1,126 @@
+package com.movilidadsostenible.slots_service.service.outbox;
+
+import com.movilidadsostenible.slots_service.clients.BicycleClient;
+import com.movilidadsostenible.slots_service.model.dto.BicyclePadlockBulkResultDTO;
+import com.movilidadsostenible.slots_service.model.dto.BicyclePadlockUpdateDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envía a bicis-service los cambios de candado pendientes en {@code bicycle_padlock_outbox}.
+ * Cada {@code slots.outbox.relay-interval-ms} lee hasta {@code slots.outbox.batch-size} filas en
+ * orden, se queda con el último estado de cada bicicleta y lo envía en una sola llamada masiva;
+ * las filas se borran solo cuando bicis-service respondió. Si falla, se reintenta tras
+ * {@code slots.outbox.retry-delay-ms}: la entrega es al menos una vez y el cambio es idempotente.
+ */
+@Component
+public class BicyclePadlockRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(BicyclePadlockRelay.class);
+
+    private static final String SELECT_SQL = """
+            SELECT k_id_outbox, k_id_bicycle, t_padlock_status
+              FROM bicycle_padlock_outbox
+             ORDER BY k_id_outbox
+             LIMIT ?
+            """;
+
+    private static final String DELETE_SQL = """
+            DELETE FROM bicycle_padlock_outbox WHERE k_id_outbox = ANY (?)
+            """;
+
+    @Value("${slots.outbox.relay-interval-ms:200}")
+    private long relayIntervalMs;
+    @Value("${slots.outbox.batch-size:500}")
+    private int batchSize;
+    @Value("${slots.outbox.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BicycleClient bicycleClient;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("bicycle-padlock-relay").daemon().factory());
+
+    private long retryAt;
+
+    @Autowired
+    public BicyclePadlockRelay(JdbcTemplate jdbcTemplate, BicycleClient bicycleClient) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bicycleClient = bicycleClient;
+    }
+
+    BicyclePadlockRelay(JdbcTemplate jdbcTemplate, BicycleClient bicycleClient, int batchSize) {
+        this(jdbcTemplate, bicycleClient);
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::relaySafely, relayIntervalMs, relayIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void relaySafely() {
+        if (System.currentTimeMillis() < retryAt) {
+            return;
+        }
+        try {
+            while (relayBatch() == batchSize) {
+                // Hay más pendientes: se sigue sin esperar al próximo ciclo
+            }
+        } catch (Exception e) {
+            retryAt = System.currentTimeMillis() + retryDelayMs;
+            log.warn("No fue posible propagar candados a bicis-service. Reintentando en {} ms: {}", retryDelayMs, e.getMessage());
+        }
+    }
+
+    /** Envía un lote y devuelve cuántas filas del outbox procesó. */
+    int relayBatch() {
+        List<Long> ids = new ArrayList<>();
+        Map<String, String> latest = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_SQL, rs -> {
+            ids.add(rs.getLong("k_id_outbox"));
+            String bicycleId = rs.getString("k_id_bicycle");
+            // El orden de la consulta deja el último estado de cada bicicleta
+            latest.remove(bicycleId);
+            latest.put(bicycleId, rs.getString("t_padlock_status"));
+        }, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<BicyclePadlockUpdateDTO> updates = new ArrayList<>(latest.size());
+        latest.forEach((bicycleId, status) -> updates.add(new BicyclePadlockUpdateDTO(bicycleId, status)));
+
+        BicyclePadlockBulkResultDTO result = bicycleClient.updatePadlockStatusBulk(updates);
+        if (result != null && (!isEmpty(result.getNotFound()) || !isEmpty(result.getInvalid()))) {
+            // No se van a poder aplicar nunca: se descartan para no bloquear el outbox
+            log.warn("bicis-service rechazó cambios de candado. No encontradas: {}, inválidas: {}",
+                    result.getNotFound(), result.getInvalid());
+        }
+        jdbcTemplate.update(DELETE_SQL, (Object) ids.toArray(Long[]::new));
+        log.debug("Relay de candados: {} filas, {} bicicletas", ids.size(), updates.size());
+        return ids.size();
+    }
+
+    private static boolean isEmpty(List<String> list) {
+        return list == null || list.isEmpty();
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+}
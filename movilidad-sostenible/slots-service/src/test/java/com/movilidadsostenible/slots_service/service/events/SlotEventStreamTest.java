@@ -0,0 +1,79 @@
+package com.movilidadsostenible.slots_service.service.events;
+
+import com.movilidadsostenible.slots_service.model.dto.SlotChangeBatchDTO;
+import com.movilidadsostenible.slots_service.model.dto.SlotChangeEventDTO;
+import com.movilidadsostenible.slots_service.model.entity.Slot;
+import com.movilidadsostenible.slots_service.publisher.SlotEventPublisher;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlotEventStreamTest {
+
+    private final SlotEventPublisher publisher = mock(SlotEventPublisher.class);
+    private final SlotEventStream stream = new SlotEventStream(publisher, 2, 3, 4);
+
+    @Test
+    void numbersChangesPerStationAndReplaysWithinTheWindow() {
+        for (int i = 0; i < 4; i++) {
+            stream.onTransition(1, "S-1", "LOCKED", () -> slot("RESERVED"));
+        }
+        stream.onTransition(2, "S-9", "UNLOCKED", () -> slot("RESERVED"));
+
+        assertThat(stream.replay(1, 2, null)).get()
+                .satisfies(replay -> {
+                    assertThat(replay.getLastSequence()).isEqualTo(4);
+                    assertThat(replay.getEvents()).extracting(SlotChangeEventDTO::getSequence).containsExactly(3L, 4L);
+                });
+        assertThat(stream.replay(1, 4, stream.epoch())).get().extracting(r -> r.getEvents().size()).isEqualTo(0);
+        assertThat(stream.replay(2, 0, null)).get().extracting(r -> r.getEvents().get(0).getSequence()).isEqualTo(1L);
+        // La secuencia 1 ya salió de la ventana, y un epoch distinto obliga a releer el resumen
+        assertThat(stream.replay(1, 0, null)).isEmpty();
+        assertThat(stream.replay(1, 3, stream.epoch() - 1)).isEmpty();
+        assertThat(stream.replay(3, 5, null)).isEmpty();
+    }
+
+    @Test
+    void publishesInBatchesAndRetriesAFailedBatchFirst() {
+        when(publisher.sendSlotChanges(any())).thenReturn(false, true);
+        for (int i = 0; i < 3; i++) {
+            stream.onTransition(1, "S-" + i, "LOCKED", () -> slot("RESERVED"));
+        }
+
+        stream.publishPending();
+        stream.publishPending();
+
+        ArgumentCaptor<SlotChangeBatchDTO> batches = ArgumentCaptor.forClass(SlotChangeBatchDTO.class);
+        verify(publisher, times(3)).sendSlotChanges(batches.capture());
+        assertThat(batches.getAllValues()).extracting(b -> b.getEvents().size()).containsExactly(2, 2, 1);
+        assertThat(batches.getAllValues().get(1).getEvents()).extracting(SlotChangeEventDTO::getSequence).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void dropsTheOldestChangesWhenThePendingQueueIsFull() {
+        when(publisher.sendSlotChanges(any())).thenReturn(true);
+        for (int i = 0; i < 6; i++) {
+            stream.onTransition(1, "S-" + i, "LOCKED", () -> slot("RESERVED"));
+        }
+
+        stream.publishPending();
+
+        ArgumentCaptor<SlotChangeBatchDTO> batches = ArgumentCaptor.forClass(SlotChangeBatchDTO.class);
+        verify(publisher, times(2)).sendSlotChanges(batches.capture());
+        // Se publican solo los 4 más recientes; el hueco 1-2 se cubre con replay
+        assertThat(batches.getAllValues()).flatExtracting(SlotChangeBatchDTO::getEvents)
+                .extracting(SlotChangeEventDTO::getSequence).containsExactly(3L, 4L, 5L, 6L);
+    }
+
+    private static Slot slot(String padlockStatus) {
+        Slot slot = new Slot();
+        slot.setPadlockStatus(padlockStatus);
+        return slot;
+    }
+}
@@ -0,0 +1,197 @@
+package com.movilidadsostenible.slots_service.service.impl;
+
+import com.movilidadsostenible.slots_service.model.dto.StationSlotSummaryDTO;
+import com.movilidadsostenible.slots_service.model.entity.Slot;
+import com.movilidadsostenible.slots_service.repository.SlotsRepository;
+import com.movilidadsostenible.slots_service.service.inventory.SlotInventory;
+import com.movilidadsostenible.slots_service.service.inventory.SlotTransitionListener;
+import com.movilidadsostenible.slots_service.service.outbox.BicyclePadlockOutbox;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Reservas concurrentes contra una sola estación en Postgres real: ningún slot se entrega dos
+ * veces y cada slot libre se reserva exactamente una vez. Requiere Docker; sin Docker se omite.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SlotsReservationConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotsReservationConcurrencyTest.class);
+
+    private static final int STATION = 1;
+    private static final int ELECTRIC_SLOTS = 400;
+    private static final int MECHANIC_SLOTS = 100;
+    private static final int UNLOCKED_SLOTS = 100;
+    private static final int THREADS = 32;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:17-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static SlotsServiceImpl service;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        dataSource.setMaximumPoolSize(THREADS);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("""
+                CREATE TABLE slots (
+                    k_id_slot varchar(50) NOT NULL PRIMARY KEY,
+                    t_padlock_status varchar(50) NOT NULL DEFAULT 'UNLOCKED',
+                    k_id_station integer NOT NULL,
+                    k_id_bicycle varchar(11) NULL,
+                    t_bike_type varchar(10) NULL GENERATED ALWAYS AS (CASE WHEN k_id_bicycle LIKE 'ELEC%' THEN 'ELECTRIC' WHEN k_id_bicycle LIKE 'MECH%' THEN 'MECHANIC' END) STORED,
+                    CONSTRAINT "CHK_t_padlock_status" CHECK (t_padlock_status IN ('LOCKED', 'UNLOCKED', 'ERROR', 'MAINTENANCE', 'RESERVED'))
+                )""");
+        jdbcTemplate.execute("""
+                CREATE INDEX "IX_slots_locked_station_type" ON slots (k_id_station, t_bike_type, k_id_slot)
+                 WHERE t_padlock_status = 'LOCKED'""");
+        jdbcTemplate.execute("""
+                CREATE INDEX "IX_slots_unlocked_station" ON slots (k_id_station, k_id_slot)
+                 WHERE t_padlock_status = 'UNLOCKED'""");
+        jdbcTemplate.execute("""
+                CREATE TABLE bicycle_padlock_outbox (
+                    k_id_outbox bigserial PRIMARY KEY,
+                    k_id_bicycle varchar(11) NOT NULL,
+                    t_padlock_status varchar(50) NOT NULL,
+                    f_created_at timestamp without time zone NOT NULL DEFAULT now()
+                )""");
+        BicyclePadlockOutbox outbox = new BicyclePadlockOutbox(jdbcTemplate);
+        // Inventario desactivado: las reservas van por el UPDATE ... SKIP LOCKED
+        service = new SlotsServiceImpl(mock(SlotsRepository.class), jdbcTemplate,
+                new SlotInventory(jdbcTemplate, SlotTransitionListener.NONE, outbox), SlotTransitionListener.NONE, outbox,
+                transactionTemplate);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM slots");
+        jdbcTemplate.update("DELETE FROM bicycle_padlock_outbox");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < ELECTRIC_SLOTS; i++) {
+            rows.add(new Object[]{"EST-E-" + i, "LOCKED", STATION, "ELEC-" + i});
+        }
+        for (int i = 0; i < MECHANIC_SLOTS; i++) {
+            rows.add(new Object[]{"EST-M-" + i, "LOCKED", STATION, "MECH-" + i});
+        }
+        for (int i = 0; i < UNLOCKED_SLOTS; i++) {
+            rows.add(new Object[]{"EST-U-" + i, "UNLOCKED", STATION, null});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO slots VALUES (?, ?, ?, ?)", rows);
+    }
+
+    @Test
+    void concurrentReservationsNeverHandOutTheSameSlotTwice() throws Exception {
+        // El doble de intentos que slots, repartidos entre los tres tipos de reserva
+        int attempts = 2 * (ELECTRIC_SLOTS + MECHANIC_SLOTS + UNLOCKED_SLOTS);
+        IntFunction<Slot> reservation = i -> switch (i % 6) {
+            case 0, 1, 2, 3 -> service.reserveFirstAvailableSlotElectricBicy(STATION);
+            case 4 -> service.reserveFirstAvailableSlotMechanicBicy(STATION);
+            default -> service.reserveFirstUnlockedSlot(STATION);
+        };
+
+        ConcurrentLinkedQueue<String> reserved = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = next.getAndIncrement(); i < attempts; i = next.getAndIncrement()) {
+                    int n = i;
+                    try {
+                        Slot slot = reservation.apply(n);
+                        reserved.add(slot.getIdSlot());
+                    } catch (IllegalArgumentException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        pool.shutdown();
+        log.info("{} intentos de reserva en {} s ({} reservas/s, {} hilos)",
+                attempts, String.format("%.2f", seconds), Math.round(attempts / seconds), THREADS);
+
+        List<String> ids = new ArrayList<>(reserved);
+        assertThat(new HashSet<>(ids)).hasSameSizeAs(ids);
+        assertThat(ids).hasSize(ELECTRIC_SLOTS + MECHANIC_SLOTS + UNLOCKED_SLOTS);
+        assertThat(rejected.get()).isEqualTo(attempts - ids.size());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM slots WHERE t_padlock_status = 'RESERVED'", Integer.class))
+                .isEqualTo(ids.size());
+        // Cada bicicleta reservada quedó en el outbox en la misma transacción que su slot
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(DISTINCT k_id_bicycle) FROM bicycle_padlock_outbox WHERE t_padlock_status = 'RESERVED'", Integer.class))
+                .isEqualTo(ELECTRIC_SLOTS + MECHANIC_SLOTS);
+    }
+
+    @Test
+    void summarizesStationsFromTheDatabaseByStateAndBikeType() {
+        jdbcTemplate.update("UPDATE slots SET t_padlock_status = 'RESERVED' WHERE k_id_slot IN ('EST-E-0', 'EST-E-1')");
+        jdbcTemplate.update("UPDATE slots SET t_padlock_status = 'ERROR' WHERE k_id_slot = 'EST-M-0'");
+        jdbcTemplate.update("UPDATE slots SET t_padlock_status = 'MAINTENANCE' WHERE k_id_slot = 'EST-U-0'");
+
+        // El id repetido se resume una sola vez; la estación sin slots sale en cero
+        List<StationSlotSummaryDTO> summaries = service.summarizeStations(List.of(STATION, 2, STATION));
+
+        assertThat(summaries).extracting(StationSlotSummaryDTO::getStationId).containsExactly(STATION, 2);
+        StationSlotSummaryDTO station = summaries.get(0);
+        assertThat(station.getTotal()).isEqualTo(ELECTRIC_SLOTS + MECHANIC_SLOTS + UNLOCKED_SLOTS);
+        assertThat(station.getLocked()).isEqualTo(ELECTRIC_SLOTS + MECHANIC_SLOTS - 3);
+        assertThat(station.getAvailableElectricBikes()).isEqualTo(ELECTRIC_SLOTS - 2);
+        assertThat(station.getAvailableMechanicBikes()).isEqualTo(MECHANIC_SLOTS - 1);
+        assertThat(station.getUnlocked()).isEqualTo(UNLOCKED_SLOTS - 1);
+        assertThat(station.getReserved()).isEqualTo(2);
+        assertThat(station.getError()).isEqualTo(1);
+        assertThat(station.getMaintenance()).isEqualTo(1);
+        assertThat(summaries.get(1)).isEqualTo(new StationSlotSummaryDTO(2, 0, 0, 0, 0, 0, 0, 0, 0));
+    }
+}
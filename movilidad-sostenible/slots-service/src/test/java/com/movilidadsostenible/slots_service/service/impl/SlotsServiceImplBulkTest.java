@@ -0,0 +1,80 @@
+package com.movilidadsostenible.slots_service.service.impl;
+
+import com.movilidadsostenible.slots_service.model.dto.SlotBulkResultDTO;
+import com.movilidadsostenible.slots_service.model.dto.StationSlotSummaryDTO;
+import com.movilidadsostenible.slots_service.model.entity.Slot;
+import com.movilidadsostenible.slots_service.repository.SlotsRepository;
+import com.movilidadsostenible.slots_service.service.inventory.SlotInventory;
+import com.movilidadsostenible.slots_service.service.inventory.SlotState;
+import com.movilidadsostenible.slots_service.service.inventory.SlotTransitionListener;
+import com.movilidadsostenible.slots_service.service.outbox.BicyclePadlockOutbox;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SlotsServiceImplBulkTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final BicyclePadlockOutbox outbox = new BicyclePadlockOutbox(jdbcTemplate);
+    private final SlotsServiceImpl service = new SlotsServiceImpl(mock(SlotsRepository.class), jdbcTemplate,
+            new SlotInventory(jdbcTemplate, SlotTransitionListener.NONE, outbox), SlotTransitionListener.NONE, outbox,
+            new TransactionTemplate());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void insertsValidSlotsInOneBatchAndReportsEachSlot() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, 0}});
+
+        List<SlotBulkResultDTO> results = service.createAll(List.of(
+                slot("POL-MET-1", 1), slot("POL-MET-2", 1), slot("POL-MET-1", 1), slot("POL-MET-3", null)));
+
+        assertThat(results).extracting(SlotBulkResultDTO::getStatus).containsExactly(201, 409, 400, 400);
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<Slot> batch) -> batch.size() == 2), eq(2),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void summarizesStationsFromTheLoadedInventoryWithoutQueryingTheDatabase() {
+        SlotInventory inventory = mock(SlotInventory.class);
+        int[] byState = new int[SlotState.values().length];
+        byState[SlotState.LOCKED_ELECTRIC.ordinal()] = 3;
+        byState[SlotState.LOCKED_MECHANIC.ordinal()] = 2;
+        byState[SlotState.UNLOCKED.ordinal()] = 4;
+        byState[SlotState.RESERVED.ordinal()] = 1;
+        when(inventory.isReady()).thenReturn(true);
+        when(inventory.countByState(1)).thenReturn(byState);
+        when(inventory.countByState(2)).thenReturn(new int[SlotState.values().length]);
+        SlotsServiceImpl fromInventory = new SlotsServiceImpl(mock(SlotsRepository.class), jdbcTemplate, inventory,
+                SlotTransitionListener.NONE, outbox, new TransactionTemplate());
+
+        List<StationSlotSummaryDTO> summaries = fromInventory.summarizeStations(List.of(1, 2, 1));
+
+        assertThat(summaries).containsExactly(
+                new StationSlotSummaryDTO(1, 10, 5, 4, 1, 0, 0, 3, 2),
+                new StationSlotSummaryDTO(2, 0, 0, 0, 0, 0, 0, 0, 0));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static Slot slot(String id, Integer stationId) {
+        Slot slot = new Slot();
+        slot.setIdSlot(id);
+        slot.setStationId(stationId);
+        slot.setPadlockStatus("UNLOCKED");
+        return slot;
+    }
+}
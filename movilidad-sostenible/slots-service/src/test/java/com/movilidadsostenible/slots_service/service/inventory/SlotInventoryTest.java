@@ -0,0 +1,164 @@
+package com.movilidadsostenible.slots_service.service.inventory;
+
+import com.movilidadsostenible.slots_service.model.entity.Slot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlotInventoryTest {
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void concurrentReservationsNeverShareASlot() throws Exception {
+        List<Slot> rows = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            rows.add(slot(String.format("S-%03d", i), i % 2 == 0 ? "ELEC" + i : "MECH" + i));
+        }
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(rows);
+        SlotInventory inventory = new SlotInventory(jdbcTemplate, journalDir, 60_000);
+        inventory.load();
+
+        Set<String> reserved = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Optional<Slot>>> attempts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            attempts.add(pool.submit(() -> inventory.reserve(1, SlotState.LOCKED_ELECTRIC)));
+        }
+        int granted = 0;
+        for (Future<Optional<Slot>> attempt : attempts) {
+            Optional<Slot> slot = attempt.get();
+            if (slot.isPresent()) {
+                granted++;
+                assertThat(slot.get().getBicycleId()).startsWith("ELEC");
+                reserved.add(slot.get().getIdSlot());
+            }
+        }
+        pool.shutdown();
+
+        assertThat(granted).isEqualTo(20);
+        assertThat(reserved).hasSize(20);
+        assertThat(inventory.reserve(1, SlotState.LOCKED_MECHANIC)).isPresent();
+        inventory.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildsUnflushedChangesFromTheJournal() {
+        JdbcTemplate failingDb = mock(JdbcTemplate.class);
+        when(failingDb.query(anyString(), any(RowMapper.class))).thenReturn(List.of(slot("S-001", "ELEC1")));
+        when(failingDb.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("BD caída"));
+        SlotInventory first = new SlotInventory(failingDb, journalDir, 60_000);
+        first.load();
+        first.reserve(1, SlotState.LOCKED_ELECTRIC).orElseThrow();
+        assertThatThrownBy(first::flush).isInstanceOf(DataAccessResourceFailureException.class);
+        first.stop();
+
+        // La BD sigue con el slot LOCKED: el estado RESERVED solo sobrevive en el diario
+        JdbcTemplate db = mock(JdbcTemplate.class);
+        when(db.query(anyString(), any(RowMapper.class))).thenReturn(List.of(slot("S-001", "ELEC1")));
+        SlotInventory second = new SlotInventory(db, journalDir, 60_000);
+        second.load();
+
+        assertThat(second.find("S-001")).get().extracting(Slot::getPadlockStatus).isEqualTo("RESERVED");
+        assertThat(second.reserve(1, SlotState.LOCKED_ELECTRIC)).isEmpty();
+
+        second.flush();
+        verify(db).batchUpdate(contains("UPDATE slots"),
+                argThat((Collection<Slot> batch) -> batch.size() == 1
+                        && "RESERVED".equals(batch.iterator().next().getPadlockStatus())),
+                eq(1), any(ParameterizedPreparedStatementSetter.class));
+        // La reserva de la bicicleta también sobrevive en el diario hasta llegar al outbox
+        verify(db).batchUpdate(contains("bicycle_padlock_outbox"),
+                argThat((Collection<Map.Entry<String, String>> rows) -> rows.size() == 1
+                        && Map.entry("ELEC1", "RESERVED").equals(rows.iterator().next())),
+                eq(1), any(ParameterizedPreparedStatementSetter.class));
+        second.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsStationSlotsByState() {
+        Slot free = slot("S-003", null);
+        free.setPadlockStatus("UNLOCKED");
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class)))
+                .thenReturn(List.of(slot("S-001", "ELEC1"), slot("S-002", "MECH2"), free));
+        SlotInventory inventory = new SlotInventory(jdbcTemplate, journalDir, 60_000);
+        inventory.load();
+        inventory.reserve(1, SlotState.LOCKED_ELECTRIC).orElseThrow();
+
+        int[] counts = inventory.countByState(1);
+
+        assertThat(counts[SlotState.RESERVED.ordinal()]).isEqualTo(1);
+        assertThat(counts[SlotState.LOCKED_MECHANIC.ordinal()]).isEqualTo(1);
+        assertThat(counts[SlotState.UNLOCKED.ordinal()]).isEqualTo(1);
+        assertThat(counts[SlotState.LOCKED_ELECTRIC.ordinal()]).isZero();
+        assertThat(inventory.countByState(99)).containsOnly(0);
+        inventory.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tripReservationIsAllOrNothing() {
+        Slot dock = slot("S-101", null);
+        dock.setStationId(2);
+        dock.setPadlockStatus("UNLOCKED");
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(List.of(slot("S-001", "ELEC1"), dock));
+        SlotInventory inventory = new SlotInventory(jdbcTemplate, journalDir, 60_000);
+        inventory.load();
+
+        Slot[] trip = inventory.reserveTrip(1, SlotState.LOCKED_ELECTRIC, 2);
+        assertThat(trip).extracting(Slot::getIdSlot).containsExactly("S-001", "S-101");
+        assertThat(trip[0].getBicycleId()).isEqualTo("ELEC1");
+
+        // Sin anclaje libre en la llegada la salida vuelve a quedar disponible
+        inventory.unlock("S-001", null);
+        inventory.lock("S-001", "ELEC1");
+        assertThatThrownBy(() -> inventory.reserveTrip(1, SlotState.LOCKED_ELECTRIC, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(inventory.find("S-001")).get().extracting(Slot::getPadlockStatus).isEqualTo("LOCKED");
+        inventory.stop();
+    }
+
+    private static Slot slot(String id, String bicycleId) {
+        Slot slot = new Slot();
+        slot.setIdSlot(id);
+        slot.setStationId(1);
+        slot.setPadlockStatus("LOCKED");
+        slot.setBicycleId(bicycleId);
+        return slot;
+    }
+}
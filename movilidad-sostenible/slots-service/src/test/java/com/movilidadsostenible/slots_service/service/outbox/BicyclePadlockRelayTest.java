@@ -0,0 +1,74 @@
+package com.movilidadsostenible.slots_service.service.outbox;
+
+import com.movilidadsostenible.slots_service.clients.BicycleClient;
+import com.movilidadsostenible.slots_service.model.dto.BicyclePadlockBulkResultDTO;
+import com.movilidadsostenible.slots_service.model.dto.BicyclePadlockUpdateDTO;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BicyclePadlockRelayTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final BicycleClient bicycleClient = mock(BicycleClient.class);
+    private final BicyclePadlockRelay relay = new BicyclePadlockRelay(jdbcTemplate, bicycleClient, 10);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendsTheLastStatusPerBicycleAndDeletesOnlyTheRowsRead() throws Exception {
+        outboxRows(new Object[][]{{1L, "ELEC1", "RESERVED"}, {2L, "MECH1", "LOCKED"}, {3L, "ELEC1", "UNLOCKED"}});
+        when(bicycleClient.updatePadlockStatusBulk(any())).thenReturn(new BicyclePadlockBulkResultDTO(2, List.of(), List.of()));
+
+        assertThat(relay.relayBatch()).isEqualTo(3);
+
+        ArgumentCaptor<List<BicyclePadlockUpdateDTO>> updates = ArgumentCaptor.forClass(List.class);
+        verify(bicycleClient).updatePadlockStatusBulk(updates.capture());
+        assertThat(updates.getValue()).containsExactly(
+                new BicyclePadlockUpdateDTO("MECH1", "LOCKED"), new BicyclePadlockUpdateDTO("ELEC1", "UNLOCKED"));
+        ArgumentCaptor<Object> deleted = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(anyString(), deleted.capture());
+        assertThat(deleted.getValue()).isEqualTo(new Long[]{1L, 2L, 3L});
+    }
+
+    @Test
+    void keepsTheRowsWhenBicisServiceFails() throws Exception {
+        outboxRows(new Object[][]{{7L, "ELEC1", "LOCKED"}});
+        when(bicycleClient.updatePadlockStatusBulk(any())).thenThrow(new IllegalStateException("caído"));
+
+        try {
+            relay.relayBatch();
+        } catch (IllegalStateException expected) {
+            // El relay lo captura y reintenta más tarde
+        }
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    private void outboxRows(Object[][] rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("k_id_outbox")).thenReturn((Long) row[0]);
+                when(rs.getString("k_id_bicycle")).thenReturn((String) row[1]);
+                when(rs.getString("t_padlock_status")).thenReturn((String) row[2]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(10));
+    }
+}
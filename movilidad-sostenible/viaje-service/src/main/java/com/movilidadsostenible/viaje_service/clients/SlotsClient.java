@@ -1,6 +1,7 @@
 package com.movilidadsostenible.viaje_service.clients;
 
 import com.movilidadsostenible.viaje_service.models.dto.BicycleTelemetryEndTravelDTO;
+import com.movilidadsostenible.viaje_service.models.dto.TripSlotReservationDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -26,6 +27,14 @@ public interface SlotsClient {
     @PostMapping("/stations/{stationId}/reserve-first-unlocked")
     ResponseEntity<String> reserveFirstUnlocked(@PathVariable("stationId") Integer stationId);
 
+    // Consumir endpoint que reserva salida (con bicicleta) y anclaje de llegada en una sola transacción
+    @PostMapping("/stations/{stationStartId}/reserve-trip")
+    ResponseEntity<TripSlotReservationDTO> reserveTrip(
+            @PathVariable("stationStartId") Integer stationStartId,
+            @RequestParam("stationEndId") Integer stationEndId,
+            @RequestParam("bikeType") String bikeType
+    );
+
     // Consumir endpoint que bloquea un slot por ID (LOCKED)
     @PutMapping("/{slotId}/lock")
     ResponseEntity<String> lockSlotById(@PathVariable("slotId") String slotId);
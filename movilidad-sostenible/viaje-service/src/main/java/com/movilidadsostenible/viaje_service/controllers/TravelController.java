@@ -3,6 +3,7 @@ package com.movilidadsostenible.viaje_service.controllers;
 import com.movilidadsostenible.viaje_service.clients.StationClientRest;
 import com.movilidadsostenible.viaje_service.clients.UserClientRest;
 import com.movilidadsostenible.viaje_service.models.dto.StartTravelRequestDTO;
+import com.movilidadsostenible.viaje_service.models.dto.TripSlotReservationDTO;
 import com.movilidadsostenible.viaje_service.models.dto.TravelReservationDTO;
 import com.movilidadsostenible.viaje_service.models.dto.TravelStartDTO;
 import com.movilidadsostenible.viaje_service.models.entity.Travel;
@@ -11,6 +12,7 @@ import com.movilidadsostenible.viaje_service.rabbit.publisher.TravelPublisher;
 import com.movilidadsostenible.viaje_service.services.TravelService;
 import com.movilidadsostenible.viaje_service.services.ReservationTempService;
 import com.movilidadsostenible.viaje_service.clients.SlotsClient;
+import feign.FeignException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -110,7 +112,7 @@ public class TravelController {
 
     @PostMapping("/start")
     @Operation(summary = "Iniciar viaje temporal",
-            description = "Recibe userUid, stationStartId, stationEndId y bikeType (ELECTRIC o MECHANIC). Reserva un slot adecuado mediante SlotsClient, guarda la reserva temporal en Redis (no persiste), publica un mensaje delay en Rabbit para expiración TTL y devuelve reservationId y slotId.")
+            description = "Recibe userUid, stationStartId, stationEndId y bikeType (ELECTRIC o MECHANIC). Reserva en una sola llamada a slots-service el slot de salida y el anclaje de llegada, guarda la reserva temporal en Redis (no persiste), publica un mensaje delay en Rabbit para expiración TTL y devuelve reservationId y slotId.")
     public ResponseEntity<?> startTravel(
             @RequestBody StartTravelRequestDTO req
     ) {
@@ -145,33 +147,21 @@ public class TravelController {
         }
 
         String bikeType = req.getBikeType().trim().toUpperCase(Locale.ROOT);
-        ResponseEntity<String> slotStartId;
-        ResponseEntity<String> slotEndId;
+        if (!"ELECTRIC".equals(bikeType) && !"MECHANIC".equals(bikeType)) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("mensaje", "bikeType inválido: debe ser ELECTRIC o MECHANIC"));
+        }
+        // Salida y llegada se reservan juntas en slots-service: si falta una no queda ninguna reservada
+        TripSlotReservationDTO trip;
         try {
-            if ("ELECTRIC".equals(bikeType)) {
-                slotStartId = slotsClient.reserveFirstAvailableElectric(req.getStationStartId());
-            } else if ("MECHANIC".equals(bikeType)) {
-                slotStartId = slotsClient.reserveFirstAvailableMechanic(req.getStationStartId());
-            } else {
-                return ResponseEntity.badRequest().body(Collections.singletonMap("mensaje", "bikeType inválido: debe ser ELECTRIC o MECHANIC"));
-            }
+            trip = slotsClient.reserveTrip(req.getStationStartId(), req.getStationEndId(), bikeType).getBody();
+        } catch (FeignException.BadRequest ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("mensaje", "No hay slots disponibles en la estación solicitada"));
         } catch (Exception ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Collections.singletonMap("mensaje", "Error al solicitar slot: " + ex.getMessage()));
         }
-
-        try {
-          slotEndId = slotsClient.reserveFirstUnlocked(req.getStationEndId());
-
-        } catch (Exception ex) {
-          slotsClient.lockSlotById(slotStartId.getBody());
-
-          return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-            .body(Collections.singletonMap("mensaje", "Error al solicitar slot: " + ex.getMessage()));
-        }
-
-        if (slotStartId == null || !slotStartId.getStatusCode().is2xxSuccessful() || slotStartId.getBody() == null || slotStartId.getBody().isEmpty()) {
-          return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("mensaje", "No hay slots disponibles en la estación solicitada"));
+        if (trip == null || trip.getSlotStartId() == null || trip.getSlotEndId() == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Collections.singletonMap("mensaje", "No hay slots disponibles en la estación solicitada"));
         }
 
         String travelType;
@@ -187,20 +177,9 @@ public class TravelController {
                     .body(Collections.singletonMap("mensaje", "Error al obtener tipo de estación: " + ex.getMessage()));
         }
 
-        // Separar slotId y bicycleId del cuerpo recibido (formato: "slotId|bicycleId")
-        String slotIdRaw = slotStartId.getBody();
-        String slotId;
-        String bicycleIdParsed = null;
-        String[] parts = slotIdRaw.split("\\|");
-        if (parts.length >= 2) {
-            slotId = parts[0];
-            bicycleIdParsed = parts[1];
-        } else {
-            // Si no viene con '|', se asume que solo es el slotId
-            slotId = slotIdRaw;
-        }
-
-        String slotEndIdBody = slotEndId.getBody();
+        String slotId = trip.getSlotStartId();
+        String bicycleIdParsed = trip.getBicycleId();
+        String slotEndIdBody = trip.getSlotEndId();
         String reservationId = UUID.randomUUID().toString();
 
         // Crear DTO temporal y guardarlo en Redis (bicycleId = 0 por ahora)
@@ -0,0 +1,12 @@
+package com.movilidadsostenible.viaje_service.models.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class TripSlotReservationDTO {
+    private String slotStartId;
+    private String bicycleId;
+    private String slotEndId;
+}
@@ -1,6 +1,7 @@
 package com.movilidadsostenible.viaje_service.mqtt;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.movilidadsostenible.viaje_service.clients.SlotsClient;
 import com.movilidadsostenible.viaje_service.clients.UserClientRest;
 import com.movilidadsostenible.viaje_service.models.dto.*;
@@ -9,6 +10,8 @@ import com.movilidadsostenible.viaje_service.rabbit.publisher.TravelPublisher;
 import com.movilidadsostenible.viaje_service.services.ReservationTempService;
 import com.movilidadsostenible.viaje_service.services.TravelService;
 import com.movilidadsostenible.viaje_service.services.ExchangeRateService;
+import com.movilidadsostenible.mqtt.DevicePartitions;
+import com.movilidadsostenible.mqtt.MqttTopics;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.eclipse.paho.client.mqttv3.*;
@@ -57,8 +60,12 @@ public class MqttSubscriber implements MqttCallbackExtended {
     private ExchangeRateService exchangeRateService;
     @Autowired
     private UserClientRest userClientRest;
+    // Todas las réplicas reciben cada fin de viaje; lo cierra y cobra solo la dueña de la bici
+    @Autowired
+    private DevicePartitions partitions;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Lector ligado al tipo: parsea directo del byte[]
+    private static final ObjectReader END_TRAVEL_READER = new ObjectMapper().readerFor(EndTravelDTO.class);
     private MqttClient client;
     private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
@@ -134,19 +141,23 @@ public class MqttSubscriber implements MqttCallbackExtended {
   @Override
     public void messageArrived(String topic, MqttMessage message) {
         try {
-          String payloadStr = new String(message.getPayload(), StandardCharsets.UTF_8);
+          byte[] payload = message.getPayload();
           String slotIdIdFromTopic = extractSlotId(topic);
           String bicyIdFromTopic = extractBikeId(topic);
-          EndTravelDTO telemetry = objectMapper.readValue(payloadStr, EndTravelDTO.class);
+          EndTravelDTO telemetry = END_TRAVEL_READER.readValue(payload);
           if (telemetry.getEndTravelTimestamp() == null) {
               telemetry.setEndTravelTimestamp(System.currentTimeMillis());
           }
           if (slotIdIdFromTopic == null) {
-            log.warn("Mensaje MQTT sin id de slot. topic={}, payload={}", topic, payloadStr);
+            log.warn("Mensaje MQTT sin id de slot. topic={}, payload={}", topic, new String(payload, StandardCharsets.UTF_8));
             return;
           }
           if (bicyIdFromTopic == null) {
-            log.warn("Mensaje MQTT sin id de bicicleta. topic={}, payload={}", topic, payloadStr);
+            log.warn("Mensaje MQTT sin id de bicicleta. topic={}, payload={}", topic, new String(payload, StandardCharsets.UTF_8));
+            return;
+          }
+          if (!partitions.owns(bicyIdFromTopic)) {
+            log.debug("Fin de viaje de la bicicleta {} atendido por otra réplica", bicyIdFromTopic);
             return;
           }
 
@@ -255,24 +266,16 @@ public class MqttSubscriber implements MqttCallbackExtended {
     }
 
     private String extractSlotId(String topic) {
-      // Espera: bikes/{id}/telemetry
-      if (topic == null) return null;
-      String[] parts = topic.split("/");
-      if (parts.length >= 4 && "travel".equals(parts[0]) && "end".equals(parts[3])) {
-        try { return parts[1];} catch (NumberFormatException ignored) {}
-      }
-      return null;
+      // Espera: travel/{slotId}/{bikeId}/end
+      return isEndTravelTopic(topic) ? MqttTopics.segment(topic, 1) : null;
     }
 
     private String extractBikeId(String topic) {
-        // Espera: bikes/{id}/telemetry
-        if (topic == null) return null;
-        String[] parts = topic.split("/");
-        if (parts.length >= 4 && "travel".equals(parts[0]) && "end".equals(parts[3])) {
-            try { return parts[2];} catch (NumberFormatException ignored) {}
-        }
-        return null;
+        // Espera: travel/{slotId}/{bikeId}/end
+        return isEndTravelTopic(topic) ? MqttTopics.segment(topic, 2) : null;
     }
 
-
+    private static boolean isEndTravelTopic(String topic) {
+        return MqttTopics.segmentEquals(topic, 0, "travel") && MqttTopics.segmentEquals(topic, 3, "end");
+    }
 }